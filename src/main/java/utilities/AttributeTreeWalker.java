@@ -0,0 +1,296 @@
+package utilities;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitor;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Walks a file tree reading the attributes of every node exactly once and hands them over to a visitor, so that tree
+ * operations don't have to stat the nodes again. Operations that need the POSIX attributes of the nodes ask for them
+ * upfront, so that they're read instead of the basic attributes. Symbolic links are visited, but not followed.
+ *
+ * The walk doesn't stop at the first failure, the failures are recorded and the rest of the tree is still walked.
+ */
+class AttributeTreeWalker {
+
+    /**
+     * Operation performed on the nodes of a walked tree. Parallel walks invoke it concurrently.
+     */
+    interface Visitor {
+
+        /**
+         * Visits a node before the contents of the node, if it's a directory.
+         * @param path       Path of the node.
+         * @param attributes Attributes of the node. If the walker was asked for POSIX attributes and the file store of
+         *                   the root supports them, these are PosixFileAttributes.
+         * @return true to walk the contents of a directory, false to skip them. Ignored for other nodes.
+         * @throws IOException If the node couldn't be visited.
+         */
+        boolean visit(Path path, BasicFileAttributes attributes) throws IOException;
+
+        /**
+         * Visits a directory after all of its contents. Not invoked for the directories whose contents are skipped or
+         * are beyond the max depth of the walk.
+         * @param directory        Path of the directory.
+         * @param isSubtreeVisited true if all the contents of the directory were visited without failures, else false.
+         * @throws IOException If the directory couldn't be visited.
+         */
+        default void postVisitDirectory(Path directory, boolean isSubtreeVisited) throws IOException {
+        }
+    }
+
+    private static final LinkOption[] LINK_OPTIONS = {LinkOption.NOFOLLOW_LINKS};
+    private final Visitor visitor;
+    private final int maxDepth;
+    private final boolean isPosixAttributesNeeded;
+    private final Map<Path, IOException> failures = new ConcurrentHashMap<>();
+    // Attributes read for each node, decided by the root of the current walk
+    private Class<? extends BasicFileAttributes> attributesType = BasicFileAttributes.class;
+
+    /**
+     * Creates a walker that reads the basic attributes of the nodes.
+     * @param visitor  Operation to perform on the nodes.
+     * @param maxDepth Max depth of the nodes to visit, 0 visits only the root of the tree.
+     */
+    AttributeTreeWalker(Visitor visitor, int maxDepth) {
+        this(visitor, maxDepth, false);
+    }
+
+    /**
+     * Creates a walker.
+     * @param visitor                 Operation to perform on the nodes.
+     * @param maxDepth                Max depth of the nodes to visit, 0 visits only the root of the tree.
+     * @param isPosixAttributesNeeded If true, the POSIX attributes of the nodes are read instead of the basic ones
+     *                                whenever the file store of the root supports them.
+     */
+    AttributeTreeWalker(Visitor visitor, int maxDepth, boolean isPosixAttributesNeeded) {
+        this.visitor = visitor;
+        this.maxDepth = maxDepth;
+        this.isPosixAttributesNeeded = isPosixAttributesNeeded;
+    }
+
+    /**
+     * Decides the attributes to read for the nodes of a tree.
+     * @param root Root of the tree to walk.
+     * @return PosixFileAttributes if they're needed and the file store of the root supports them, else
+     *         BasicFileAttributes.
+     */
+    private Class<? extends BasicFileAttributes> getAttributesType(Path root) {
+        if(!isPosixAttributesNeeded) {
+            return BasicFileAttributes.class;
+        }
+        try {
+            return Files.getFileStore(root).supportsFileAttributeView(PosixFileAttributeView.class)
+                    ? PosixFileAttributes.class
+                    : BasicFileAttributes.class;
+        } catch (IOException e) {
+            // Eg: The root doesn't exist, reading its attributes fails and is recorded by the walk
+            return BasicFileAttributes.class;
+        }
+    }
+
+    /**
+     * Returns the POSIX attributes of a node, reusing the attributes read by the walk if they're POSIX attributes.
+     * @param path       Path of the node.
+     * @param attributes Attributes of the node handed over by the walk.
+     * @return POSIX attributes of the node.
+     * @throws IOException If the attributes couldn't be read.
+     */
+    static PosixFileAttributes getPosixFileAttributes(Path path, BasicFileAttributes attributes) throws IOException {
+        if(attributes instanceof PosixFileAttributes) {
+            return (PosixFileAttributes) attributes;
+        }
+        return Files.readAttributes(path, PosixFileAttributes.class, LINK_OPTIONS);
+    }
+
+    /**
+     * Returns the nodes that couldn't be visited so far.
+     * @return Paths that couldn't be visited, mapped to the reason.
+     */
+    Map<Path, IOException> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Walks a tree depth first in the calling thread, using Files.walkFileTree().
+     * @param root Root of the tree to walk.
+     * @return true if the tree was walked without failures, else false.
+     */
+    boolean walk(Path root) {
+        attributesType = getAttributesType(root);
+        Deque<Boolean> isSubtreeVisitedStack = new ArrayDeque<>();
+        FileVisitor<Path> fileVisitor = new FileVisitor<>() {
+
+            // Files.walkFileTree() reads the basic attributes only, the POSIX ones are read only if they're needed
+            private BasicFileAttributes readAttributes(Path path, BasicFileAttributes attributes) throws IOException {
+                return attributesType == BasicFileAttributes.class
+                        ? attributes
+                        : Files.readAttributes(path, attributesType, LINK_OPTIONS);
+            }
+
+            private void recordFailure(Path path, IOException e) {
+                failures.put(path, e);
+                if(!isSubtreeVisitedStack.isEmpty()) {
+                    isSubtreeVisitedStack.pop();
+                    isSubtreeVisitedStack.push(false);
+                }
+            }
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+                try {
+                    if(!visitor.visit(directory, readAttributes(directory, attributes))) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                } catch (IOException e) {
+                    recordFailure(directory, e);
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                isSubtreeVisitedStack.push(true);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                try {
+                    visitor.visit(file, readAttributes(file, attributes));
+                } catch (IOException e) {
+                    recordFailure(file, e);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                recordFailure(file, e);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path directory, IOException e) {
+                boolean isSubtreeVisited = isSubtreeVisitedStack.pop();
+                if(e != null) {
+                    recordFailure(directory, e);
+                    isSubtreeVisited = false;
+                }
+                try {
+                    visitor.postVisitDirectory(directory, isSubtreeVisited);
+                } catch (IOException postVisitException) {
+                    recordFailure(directory, postVisitException);
+                    isSubtreeVisited = false;
+                }
+                if(!isSubtreeVisited && !isSubtreeVisitedStack.isEmpty()) {
+                    isSubtreeVisitedStack.pop();
+                    isSubtreeVisitedStack.push(false);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        };
+
+        try {
+            Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), maxDepth, fileVisitor);
+        } catch (IOException e) {
+            // The visitor doesn't throw, but the walk may fail to start
+            failures.put(root, e);
+        }
+        return failures.isEmpty();
+    }
+
+    /**
+     * Walks a tree on a fork join pool, the contents of sibling directories are walked concurrently.
+     * @param root Root of the tree to walk.
+     * @param pool Pool to walk the tree on.
+     * @return true if the tree was walked without failures, else false.
+     */
+    boolean walk(Path root, ForkJoinPool pool) {
+        attributesType = getAttributesType(root);
+        BasicFileAttributes rootAttributes;
+        try {
+            rootAttributes = Files.readAttributes(root, attributesType, LINK_OPTIONS);
+            if(visitor.visit(root, rootAttributes) && rootAttributes.isDirectory() && maxDepth > 0) {
+                pool.invoke(new WalkingTask(root, 0));
+            }
+        } catch (IOException e) {
+            failures.put(root, e);
+        }
+        return failures.isEmpty();
+    }
+
+    private class WalkingTask extends RecursiveTask<Boolean> {
+
+        private static final long serialVersionUID = 1L;
+        private final Path directory;
+        private final int depth;
+
+        /**
+         * The WalkingTask visits the contents of a directory that has been visited already and forks a task for each
+         * of its sub directories that are to be walked. The directory is post visited once all the tasks complete.
+         * @param directory Directory whose contents are to be walked.
+         * @param depth     Depth of the directory in the walked tree.
+         */
+        public WalkingTask(Path directory, int depth) {
+            this.directory = directory;
+            this.depth = depth;
+        }
+
+        /**
+         * Walks the contents of the directory and then post visits it.
+         * @return true if the directory and all of its contents were visited without failures, else false.
+         */
+        @Override
+        protected Boolean compute() {
+            boolean isSubtreeVisited = true;
+            List<WalkingTask> subDirectoryTasks = new ArrayList<>();
+            try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory)) {
+                for (Path childPath : directoryStream) {
+                    try {
+                        BasicFileAttributes childAttributes = Files.readAttributes(
+                            childPath,
+                            attributesType,
+                            LINK_OPTIONS
+                        );
+                        if(visitor.visit(childPath, childAttributes) && childAttributes.isDirectory()
+                                && depth + 1 < maxDepth) {
+                            subDirectoryTasks.add(new WalkingTask(childPath, depth + 1));
+                        }
+                    } catch (IOException e) {
+                        failures.put(childPath, e);
+                        isSubtreeVisited = false;
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                failures.put(directory, e instanceof IOException ? (IOException) e : ((DirectoryIteratorException) e).getCause());
+                isSubtreeVisited = false;
+            }
+
+            for (WalkingTask subDirectoryTask : invokeAll(subDirectoryTasks)) {
+                isSubtreeVisited &= subDirectoryTask.join();
+            }
+            try {
+                visitor.postVisitDirectory(directory, isSubtreeVisited);
+            } catch (IOException e) {
+                failures.put(directory, e);
+                return false;
+            }
+            return isSubtreeVisited;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package utilities;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Classifies values against the regex fields in chunks on a fork join pool. The calling thread reads the values into
+ * chunks and merges the classified chunks in order, so at most a few chunks per thread are held in memory at once and
+ * the per value matches are in the order of the values.
+ *
+ * Whether to stop early is decided after each merged chunk, hence a stopped classification covers a prefix of the
+ * values made of whole chunks.
+ */
+class BatchClassifier {
+
+    private static class ChunkClassification {
+
+        private final List<List<String>> matchingFieldNames;
+        private final long[] fieldCounts;
+        private final Map<BitSet, Long> fieldCombinationCounts = new HashMap<>();
+        private final Map<BitSet, List<String>> fieldCombinationToNamesMap = new HashMap<>();
+        private long valueCount;
+        private long unmatchedCount;
+
+        /**
+         * A ChunkClassification abstracts the matches of a chunk of values.
+         * @param fieldCount       Number of regex fields.
+         * @param keepValueMatches If true, the matching field names of each value are kept.
+         */
+        public ChunkClassification(int fieldCount, boolean keepValueMatches) {
+            fieldCounts = new long[fieldCount];
+            matchingFieldNames = keepValueMatches ? new ArrayList<>() : null;
+        }
+    }
+
+    private static final Logger logger = LogManager.getLogger(BatchClassifier.class);
+    private final MultiPatternMatcher multiPatternMatcher;
+    private final RegexUtility.BatchClassificationOptions options;
+    private final List<List<String>> matchingFieldNames;
+    private final long[] fieldCounts;
+    private final Map<List<String>, Long> fieldCombinationCounts = new LinkedHashMap<>();
+    private long valueCount;
+    private long unmatchedCount;
+
+    /**
+     * Creates a classifier.
+     * @param multiPatternMatcher Matcher of the regex fields.
+     * @param options             Options of the classification.
+     */
+    private BatchClassifier(MultiPatternMatcher multiPatternMatcher, RegexUtility.BatchClassificationOptions options) {
+        this.multiPatternMatcher = multiPatternMatcher;
+        this.options = options;
+        matchingFieldNames = options.isKeepValueMatches() ? new ArrayList<>() : null;
+        fieldCounts = new long[multiPatternMatcher.getNames().size()];
+    }
+
+    /**
+     * Classifies values against the regex fields.
+     * @param values              Values to classify.
+     * @param multiPatternMatcher Matcher of the regex fields.
+     * @param options             Options of the classification.
+     * @return The matches of the values.
+     */
+    static RegexUtility.BatchClassificationResult classify(
+            Iterator<String> values,
+            MultiPatternMatcher multiPatternMatcher,
+            RegexUtility.BatchClassificationOptions options
+    ) {
+        long startTimeInNanos = System.nanoTime();
+        BatchClassifier batchClassifier = new BatchClassifier(multiPatternMatcher, options);
+        boolean isStoppedEarly = false;
+        // A couple of chunks per thread keeps the threads busy while the next chunks are read
+        int maxPendingChunkCount = 2 * options.getParallelism();
+        Deque<Future<ChunkClassification>> pendingChunks = new ArrayDeque<>();
+        ForkJoinPool classifyingPool = new ForkJoinPool(options.getParallelism());
+        try {
+            while (!isStoppedEarly && values.hasNext()) {
+                List<String> chunk = new ArrayList<>(options.getChunkSize());
+                while (chunk.size() < options.getChunkSize() && values.hasNext()) {
+                    chunk.add(values.next());
+                }
+                pendingChunks.add(classifyingPool.submit(() -> batchClassifier.classifyChunk(chunk)));
+                while (!isStoppedEarly && pendingChunks.size() >= maxPendingChunkCount) {
+                    isStoppedEarly = batchClassifier.merge(pendingChunks.poll().get());
+                }
+            }
+            while (!isStoppedEarly && !pendingChunks.isEmpty()) {
+                isStoppedEarly = batchClassifier.merge(pendingChunks.poll().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error(e);
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            logger.error(e);
+            throw new RuntimeException(e.getCause());
+        } finally {
+            // The chunks beyond an early stop aren't needed
+            classifyingPool.shutdownNow();
+        }
+        return batchClassifier.getResult(isStoppedEarly, Duration.ofNanos(System.nanoTime() - startTimeInNanos));
+    }
+
+    /**
+     * Classifies a chunk of values.
+     * @param chunk Values to classify, null values match no field.
+     * @return The matches of the values.
+     */
+    private ChunkClassification classifyChunk(List<String> chunk) {
+        ChunkClassification chunkClassification = new ChunkClassification(fieldCounts.length, options.isKeepValueMatches());
+        for (String value : chunk) {
+            BitSet matchingIndices = value == null ? new BitSet() : multiPatternMatcher.getMatchingIndices(value);
+            if(matchingIndices.isEmpty()) {
+                chunkClassification.unmatchedCount++;
+            }
+            for (int i = matchingIndices.nextSetBit(0); i >= 0; i = matchingIndices.nextSetBit(i + 1)) {
+                chunkClassification.fieldCounts[i]++;
+            }
+            chunkClassification.fieldCombinationCounts.merge(matchingIndices, 1L, Long::sum);
+            if(chunkClassification.matchingFieldNames != null) {
+                // Values matching the same fields share the list of names
+                chunkClassification.matchingFieldNames.add(
+                    chunkClassification.fieldCombinationToNamesMap.computeIfAbsent(matchingIndices, this::getNames)
+                );
+            }
+            chunkClassification.valueCount++;
+        }
+        return chunkClassification;
+    }
+
+    /**
+     * Returns the names of a combination of fields.
+     * @param fieldIndices Indices of the fields.
+     * @return Names of the fields.
+     */
+    private List<String> getNames(BitSet fieldIndices) {
+        List<String> names = new ArrayList<>(fieldIndices.cardinality());
+        fieldIndices.stream()
+                .mapToObj(multiPatternMatcher.getNames()::get)
+                .forEach(names::add);
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Merges the matches of a chunk, which follows the chunks merged so far.
+     * @param chunkClassification The matches of the chunk.
+     * @return true if the field of the values is settled with the desired confidence, else false.
+     */
+    private boolean merge(ChunkClassification chunkClassification) {
+        if(matchingFieldNames != null) {
+            matchingFieldNames.addAll(chunkClassification.matchingFieldNames);
+        }
+        for (int i = 0; i < fieldCounts.length; i++) {
+            fieldCounts[i] += chunkClassification.fieldCounts[i];
+        }
+        chunkClassification.fieldCombinationCounts.forEach(
+            (fieldIndices, count) -> fieldCombinationCounts.merge(
+                chunkClassification.fieldCombinationToNamesMap.computeIfAbsent(fieldIndices, this::getNames),
+                count,
+                Long::sum
+            )
+        );
+        valueCount += chunkClassification.valueCount;
+        unmatchedCount += chunkClassification.unmatchedCount;
+
+        if(options.getEarlyStopConfidence() == 0 || valueCount < options.getEarlyStopMinimumValueCount()) {
+            return false;
+        }
+        long maxFieldCount = 0;
+        for (long fieldCount : fieldCounts) {
+            maxFieldCount = Math.max(maxFieldCount, fieldCount);
+        }
+        return maxFieldCount >= options.getEarlyStopConfidence() * valueCount;
+    }
+
+    /**
+     * Returns the result of the classification.
+     * @param isStoppedEarly true if the classification stopped before all the values were classified, else false.
+     * @param duration       Time taken by the classification.
+     * @return The result of the classification.
+     */
+    private RegexUtility.BatchClassificationResult getResult(boolean isStoppedEarly, Duration duration) {
+        Map<String, Long> fieldHistogram = new LinkedHashMap<>();
+        for (int i = 0; i < fieldCounts.length; i++) {
+            fieldHistogram.put(multiPatternMatcher.getNames().get(i), fieldCounts[i]);
+        }
+        return new RegexUtility.BatchClassificationResult(
+            matchingFieldNames,
+            fieldHistogram,
+            fieldCombinationCounts,
+            valueCount,
+            unmatchedCount,
+            isStoppedEarly,
+            duration
+        );
+    }
+}
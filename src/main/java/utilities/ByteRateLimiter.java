@@ -0,0 +1,48 @@
+package utilities;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces the threads sharing it to an aggregate rate of bytes per second. Every acquisition reserves the time slot
+ * following the previous reservation and waits until the slot starts, so the rate holds across threads. Capacity left
+ * unused while idle isn't saved up, hence there are no bursts after idle periods.
+ */
+class ByteRateLimiter {
+
+    private final long bytesPerSecond;
+    private long nextAvailableTimeInNanos = System.nanoTime();
+
+    /**
+     * Creates a rate limiter.
+     * @param bytesPerSecond Maximum number of bytes per second.
+     */
+    ByteRateLimiter(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Waits until the specified number of bytes can be processed without exceeding the rate.
+     * @param byteCount Number of bytes about to be processed, at most bytesPerSecond.
+     * @throws InterruptedIOException If the thread was interrupted while waiting.
+     */
+    void acquire(long byteCount) throws InterruptedIOException {
+        long waitTimeInNanos;
+        synchronized (this) {
+            long currentTimeInNanos = System.nanoTime();
+            long startTimeInNanos = Math.max(currentTimeInNanos, nextAvailableTimeInNanos);
+            nextAvailableTimeInNanos = startTimeInNanos + TimeUnit.SECONDS.toNanos(byteCount) / bytesPerSecond;
+            waitTimeInNanos = startTimeInNanos - currentTimeInNanos;
+        }
+        if(waitTimeInNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitTimeInNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                InterruptedIOException interruptedIOException = new InterruptedIOException();
+                interruptedIOException.initCause(e);
+                throw interruptedIOException;
+            }
+        }
+    }
+}
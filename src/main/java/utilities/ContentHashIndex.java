@@ -0,0 +1,274 @@
+package utilities;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Content hashes of files, keyed by their file keys (Eg: device and inode) and validated by their size and last
+ * modified time, so that the hashes of unmodified files are reused across runs when the index is persisted. Only the
+ * entries of the files visited in the current run are persisted, so that the entries of deleted files (and of files
+ * outside the walked tree) don't pile up across runs.
+ *
+ * Files are hashed through memory mapped regions of their channels. A partial hash covers only the beginning of a
+ * file and is meant to cheaply tell apart files of the same size, the full hash covers the whole file.
+ */
+class ContentHashIndex {
+
+    private static class Entry {
+
+        private final long size;
+        private final long lastModifiedTimeInNanos;
+        private volatile byte[] partialHash;
+        private volatile byte[] fullHash;
+
+        /**
+         * An Entry abstracts the hashes of a file as of a specific size and last modified time.
+         * @param size                    Size of the file in bytes.
+         * @param lastModifiedTimeInNanos Last modified time of the file in nanoseconds since the epoch.
+         */
+        public Entry(long size, long lastModifiedTimeInNanos) {
+            this.size = size;
+            this.lastModifiedTimeInNanos = lastModifiedTimeInNanos;
+        }
+    }
+
+    private static final Logger logger = LogManager.getLogger(ContentHashIndex.class);
+    private static final int MAGIC_NUMBER = 0x4A434849;
+    private static final int VERSION = 1;
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int HASH_SIZE = 32;
+    static final int PARTIAL_HASH_SIZE = 64 * 1024;
+    private static final long MAPPED_REGION_SIZE = 64L * 1024 * 1024;
+    private final ConcurrentHashMap<String, Entry> keyToEntryMap = new ConcurrentHashMap<>();
+    private final Set<String> visitedKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Loads a persisted index. A missing index results in an empty one, as does an invalid index, which is logged.
+     * @param indexPath File the index was persisted to.
+     * @return The loaded index.
+     */
+    static ContentHashIndex load(Path indexPath) {
+        ContentHashIndex contentHashIndex = new ContentHashIndex();
+        if(Files.notExists(indexPath)) {
+            return contentHashIndex;
+        }
+        try (DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+            if(dataInputStream.readInt() != MAGIC_NUMBER || dataInputStream.readInt() != VERSION) {
+                throw new IOException(
+                    I18NUtility.getFormattedString("utilities.FileUtility.invalidContentHashIndex", indexPath)
+                );
+            }
+            int entryCount = dataInputStream.readInt();
+            if(entryCount < 0) {
+                throw new IOException(
+                    I18NUtility.getFormattedString("utilities.FileUtility.invalidContentHashIndex", indexPath)
+                );
+            }
+            for (int i = 0; i < entryCount; i++) {
+                String key = dataInputStream.readUTF();
+                Entry entry = new Entry(dataInputStream.readLong(), dataInputStream.readLong());
+                entry.partialHash = readHash(dataInputStream, indexPath);
+                entry.fullHash = readHash(dataInputStream, indexPath);
+                contentHashIndex.keyToEntryMap.put(key, entry);
+            }
+        } catch (IOException e) {
+            logger.warn(e);
+            contentHashIndex.keyToEntryMap.clear();
+        }
+        return contentHashIndex;
+    }
+
+    /**
+     * Reads a length prefixed hash.
+     * @param dataInputStream Stream to read the hash from.
+     * @param indexPath       File the index is read from.
+     * @return The hash, null if it wasn't computed.
+     * @throws IOException If the hash couldn't be read or its length is corrupted.
+     */
+    private static byte[] readHash(DataInputStream dataInputStream, Path indexPath) throws IOException {
+        int hashLength = dataInputStream.readInt();
+        if(hashLength == 0) {
+            return null;
+        }
+        // A corrupted length would fail the allocation below with an unchecked exception or an OutOfMemoryError
+        if(hashLength < 0 || hashLength > HASH_SIZE) {
+            throw new IOException(
+                I18NUtility.getFormattedString("utilities.FileUtility.invalidContentHashIndex", indexPath)
+            );
+        }
+        byte[] hash = new byte[hashLength];
+        dataInputStream.readFully(hash);
+        return hash;
+    }
+
+    /**
+     * Writes a length prefixed hash.
+     * @param dataOutputStream Stream to write the hash to.
+     * @param hash             Hash to write, null if it wasn't computed.
+     * @throws IOException If the hash couldn't be written.
+     */
+    private static void writeHash(DataOutputStream dataOutputStream, byte[] hash) throws IOException {
+        if(hash == null) {
+            dataOutputStream.writeInt(0);
+            return;
+        }
+        dataOutputStream.writeInt(hash.length);
+        dataOutputStream.write(hash);
+    }
+
+    /**
+     * Persists the index. It's written to a temporary file beside the index file first, which then replaces the index
+     * file, so that an interrupted write doesn't corrupt an existing index.
+     * @param indexPath File to persist the index to.
+     * @throws IOException If the index couldn't be persisted.
+     */
+    void save(Path indexPath) throws IOException {
+        Path temporaryIndexPath = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        Map<String, Entry> entriesToSave = new HashMap<>(keyToEntryMap);
+        entriesToSave.keySet().retainAll(visitedKeys);
+        try (DataOutputStream dataOutputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryIndexPath)))) {
+            dataOutputStream.writeInt(MAGIC_NUMBER);
+            dataOutputStream.writeInt(VERSION);
+            dataOutputStream.writeInt(entriesToSave.size());
+            for (Map.Entry<String, Entry> keyAndEntry : entriesToSave.entrySet()) {
+                Entry entry = keyAndEntry.getValue();
+                dataOutputStream.writeUTF(keyAndEntry.getKey());
+                dataOutputStream.writeLong(entry.size);
+                dataOutputStream.writeLong(entry.lastModifiedTimeInNanos);
+                writeHash(dataOutputStream, entry.partialHash);
+                writeHash(dataOutputStream, entry.fullHash);
+            }
+        }
+
+        try {
+            Files.move(temporaryIndexPath, indexPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryIndexPath, indexPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Returns the key of a file in the index.
+     * @param path       Path of the file.
+     * @param attributes Attributes of the file.
+     * @return Key of the file.
+     */
+    private static String getKey(Path path, BasicFileAttributes attributes) {
+        // Files without a file key are keyed by their path, which doesn't survive renames
+        return attributes.fileKey() == null ? path.toAbsolutePath().toString() : attributes.fileKey().toString();
+    }
+
+    /**
+     * Records that a file has been found in the current run, so that its entry is persisted even if it isn't hashed.
+     * @param path       Path of the file.
+     * @param attributes Attributes of the file.
+     */
+    void markVisited(Path path, BasicFileAttributes attributes) {
+        visitedKeys.add(getKey(path, attributes));
+    }
+
+    /**
+     * Returns the entry of a file, replacing the existing entry if the file has been modified since.
+     * @param path       Path of the file.
+     * @param attributes Attributes of the file.
+     * @return Entry of the file.
+     */
+    private Entry getEntry(Path path, BasicFileAttributes attributes) {
+        String key = getKey(path, attributes);
+        visitedKeys.add(key);
+        long lastModifiedTimeInNanos = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        return keyToEntryMap.compute(
+            key,
+            (existingKey, entry) -> entry != null && entry.size == attributes.size()
+                    && entry.lastModifiedTimeInNanos == lastModifiedTimeInNanos
+                    ? entry
+                    : new Entry(attributes.size(), lastModifiedTimeInNanos)
+        );
+    }
+
+    /**
+     * Returns the hash of the beginning of a file, computing it unless it's indexed already.
+     * @param path       Path of the file.
+     * @param attributes Attributes of the file.
+     * @return Hash of the first PARTIAL_HASH_SIZE bytes of the file.
+     * @throws IOException If the file couldn't be read.
+     */
+    byte[] getPartialHash(Path path, BasicFileAttributes attributes) throws IOException {
+        Entry entry = getEntry(path, attributes);
+        if(entry.partialHash == null) {
+            entry.partialHash = hash(path, PARTIAL_HASH_SIZE);
+        }
+        return entry.partialHash;
+    }
+
+    /**
+     * Returns the hash of a whole file, computing it unless it's indexed already. The partial hash of a file that
+     * isn't larger than PARTIAL_HASH_SIZE is its full hash as well.
+     * @param path       Path of the file.
+     * @param attributes Attributes of the file.
+     * @return Hash of the file.
+     * @throws IOException If the file couldn't be read.
+     */
+    byte[] getFullHash(Path path, BasicFileAttributes attributes) throws IOException {
+        if(attributes.size() <= PARTIAL_HASH_SIZE) {
+            return getPartialHash(path, attributes);
+        }
+        Entry entry = getEntry(path, attributes);
+        if(entry.fullHash == null) {
+            entry.fullHash = hash(path, Long.MAX_VALUE);
+        }
+        return entry.fullHash;
+    }
+
+    /**
+     * Hashes the beginning of a file through memory mapped regions.
+     * @param path   Path of the file.
+     * @param length Maximum number of bytes to hash.
+     * @return Hash of the bytes.
+     * @throws IOException If the file couldn't be read.
+     */
+    private static byte[] hash(Path path, long length) throws IOException {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            logger.error(e);
+            throw new RuntimeException(e);
+        }
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The file may have been truncated since its attributes were read
+            long lengthToHash = Math.min(length, fileChannel.size());
+            for (long position = 0; position < lengthToHash; position += MAPPED_REGION_SIZE) {
+                messageDigest.update(
+                    fileChannel.map(
+                        FileChannel.MapMode.READ_ONLY,
+                        position,
+                        Math.min(MAPPED_REGION_SIZE, lengthToHash - position)
+                    )
+                );
+            }
+        }
+        return messageDigest.digest();
+    }
+}
@@ -0,0 +1,455 @@
+package utilities;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * A compact snapshot of a directory tree (relative path, type, size, last modified time and file key of each entry),
+ * persisted in a file that's written sequentially and read through memory mapped windows.
+ *
+ * The entries are written in the order of a depth first walk that visits the children of each directory sorted by
+ * name, which is the order of comparing the relative paths segment by segment. Comparing a snapshot against the
+ * current state of the tree is hence a merge join of the snapshot with a fresh walk in the same order, neither of them
+ * has to be loaded into memory.
+ */
+class DirectorySnapshot {
+
+    static class Entry {
+
+        private final Path relativePath;
+        private final byte type;
+        private final long size;
+        private final long lastModifiedTimeInNanos;
+        private final String fileKey;
+
+        /**
+         * An Entry abstracts the state of a path in a directory snapshot.
+         * @param relativePath            Path relative to the snapshot root.
+         * @param type                    Type of the path, one of the *_TYPE constants.
+         * @param size                    Size of the path in bytes.
+         * @param lastModifiedTimeInNanos Last modified time of the path in nanoseconds since the epoch.
+         * @param fileKey                 File key (Eg: device and inode) of the path, empty if there isn't any.
+         */
+        public Entry(Path relativePath, byte type, long size, long lastModifiedTimeInNanos, String fileKey) {
+            this.relativePath = relativePath;
+            this.type = type;
+            this.size = size;
+            this.lastModifiedTimeInNanos = lastModifiedTimeInNanos;
+            this.fileKey = fileKey;
+        }
+
+        /**
+         * Returns the path relative to the snapshot root.
+         * @return Relative path of the entry.
+         */
+        public Path getRelativePath() {
+            return relativePath;
+        }
+
+        /**
+         * Checks if the path has been modified since another snapshot of it. The size and last modified time of
+         * directories change along with their entries, so only their file keys are compared.
+         * @param previousEntry Previous snapshot of the same path and type.
+         * @return true if the path has been modified, else false.
+         */
+        public boolean isModifiedSince(Entry previousEntry) {
+            if(type == DIRECTORY_TYPE) {
+                return !fileKey.equals(previousEntry.fileKey);
+            }
+            return size != previousEntry.size
+                    || lastModifiedTimeInNanos != previousEntry.lastModifiedTimeInNanos
+                    || !fileKey.equals(previousEntry.fileKey);
+        }
+    }
+
+    static final byte FILE_TYPE = 0;
+    static final byte DIRECTORY_TYPE = 1;
+    static final byte OTHER_TYPE = 2;
+    private static final int MAGIC_NUMBER = 0x4A49534E;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int ENTRY_COUNT_OFFSET = Integer.BYTES + Integer.BYTES;
+    private static final int MAPPED_WINDOW_SIZE = 16 * 1024 * 1024;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Compares relative paths segment by segment, so that a directory is ordered before its entries and its entries
+     * before its next sibling.
+     */
+    static final Comparator<Path> SEGMENT_WISE_COMPARATOR = (path1, path2) -> {
+        int commonNameCount = Math.min(path1.getNameCount(), path2.getNameCount());
+        for (int i = 0; i < commonNameCount; i++) {
+            int comparison = path1.getName(i).toString().compareTo(path2.getName(i).toString());
+            if(comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(path1.getNameCount(), path2.getNameCount());
+    };
+
+    /**
+     * Walks a directory tree depth first, visiting the entries of each directory sorted by name. Only the sorted
+     * entries of the directories on the current walk path are held in memory.
+     */
+    private static class SortedTreeWalker implements Iterator<Entry> {
+
+        private final Path rootPath;
+        private final Set<Path> excludedPaths;
+        private final Deque<Iterator<Path>> directoryEntriesStack = new ArrayDeque<>();
+        private Entry nextEntry;
+
+        /**
+         * Creates a walker for a directory tree.
+         * @param rootPath      Root of the tree to walk, it's not visited itself.
+         * @param excludedPaths Absolute paths to skip, Eg: The snapshot file itself.
+         * @throws IOException Thrown if the root cannot be listed.
+         */
+        public SortedTreeWalker(Path rootPath, Set<Path> excludedPaths) throws IOException {
+            this.rootPath = rootPath;
+            this.excludedPaths = excludedPaths;
+            directoryEntriesStack.push(listSortedEntries(rootPath));
+            nextEntry = computeNextEntry();
+        }
+
+        /**
+         * Lists the entries of a directory sorted by name.
+         * @param directory Directory to list.
+         * @return Iterator over the sorted entries.
+         * @throws IOException Thrown if the directory cannot be listed.
+         */
+        private Iterator<Path> listSortedEntries(Path directory) throws IOException {
+            List<Path> entries = new ArrayList<>();
+            try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory)) {
+                directoryStream.forEach(entries::add);
+            }
+            entries.sort(Comparator.comparing(entry -> entry.getFileName().toString()));
+            return entries.iterator();
+        }
+
+        /**
+         * Visits the next entry of the walk.
+         * @return The next entry, null if the walk is complete.
+         */
+        private Entry computeNextEntry() {
+            while (!directoryEntriesStack.isEmpty()) {
+                Iterator<Path> directoryEntries = directoryEntriesStack.peek();
+                if(!directoryEntries.hasNext()) {
+                    directoryEntriesStack.pop();
+                    continue;
+                }
+                Path entryPath = directoryEntries.next();
+                if(excludedPaths.contains(entryPath)) {
+                    continue;
+                }
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(
+                        entryPath,
+                        BasicFileAttributes.class,
+                        LinkOption.NOFOLLOW_LINKS
+                    );
+                    if(attributes.isDirectory()) {
+                        directoryEntriesStack.push(listSortedEntries(entryPath));
+                    }
+                    return toEntry(rootPath.relativize(entryPath), attributes);
+                } catch (NoSuchFileException e) {
+                    // Deleted after its directory was listed
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextEntry != null;
+        }
+
+        @Override
+        public Entry next() {
+            if(nextEntry == null) {
+                throw new NoSuchElementException();
+            }
+            Entry currentEntry = nextEntry;
+            nextEntry = computeNextEntry();
+            return currentEntry;
+        }
+    }
+
+    /**
+     * Reads the entries of a snapshot file through a memory mapped window that slides over the file.
+     */
+    private static class SnapshotReader implements Iterator<Entry> {
+
+        private final FileChannel fileChannel;
+        private final Path rootPath;
+        private final long entryCount;
+        private long windowPosition = 0;
+        private MappedByteBuffer window;
+        private long readEntryCount = 0;
+
+        /**
+         * Opens a snapshot file for reading.
+         * @param fileChannel Channel of the snapshot file.
+         * @param rootPath    Root of the tree the snapshot is compared against, used to create relative paths.
+         * @throws IOException Thrown if the snapshot file cannot be mapped.
+         */
+        public SnapshotReader(FileChannel fileChannel, Path rootPath) throws IOException {
+            this.fileChannel = fileChannel;
+            this.rootPath = rootPath;
+            ensureAvailable(HEADER_SIZE);
+            if(window.getInt() != MAGIC_NUMBER || window.getInt() != VERSION) {
+                throw new IllegalArgumentException(
+                    I18NUtility.getFormattedString(
+                        "utilities.FileUtility.invalidDirectorySnapshot"
+                    )
+                );
+            }
+            entryCount = window.getLong();
+        }
+
+        /**
+         * Remaps the window if fewer than the specified number of bytes are left in it.
+         * @param byteCount Number of bytes to be read next.
+         * @throws IOException Thrown if the snapshot file cannot be mapped or is truncated.
+         */
+        private void ensureAvailable(int byteCount) throws IOException {
+            if(window != null && window.remaining() >= byteCount) {
+                return;
+            }
+            long position = window == null ? 0 : windowPosition + window.position();
+            long size = Math.min(Math.max(MAPPED_WINDOW_SIZE, byteCount), fileChannel.size() - position);
+            if(size < byteCount) {
+                throw new IllegalArgumentException(
+                    I18NUtility.getFormattedString(
+                        "utilities.FileUtility.invalidDirectorySnapshot"
+                    )
+                );
+            }
+            window = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            windowPosition = position;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return readEntryCount < entryCount;
+        }
+
+        @Override
+        public Entry next() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                ensureAvailable(Integer.BYTES);
+                int relativePathLength = window.getInt();
+                ensureAvailable(relativePathLength + 1 + Long.BYTES + Long.BYTES + Integer.BYTES);
+                byte[] relativePathBytes = new byte[relativePathLength];
+                window.get(relativePathBytes);
+                byte type = window.get();
+                long size = window.getLong();
+                long lastModifiedTimeInNanos = window.getLong();
+                int fileKeyLength = window.getInt();
+                ensureAvailable(fileKeyLength);
+                byte[] fileKeyBytes = new byte[fileKeyLength];
+                window.get(fileKeyBytes);
+                readEntryCount++;
+                return new Entry(
+                    rootPath.getFileSystem().getPath(new String(relativePathBytes, StandardCharsets.UTF_8)),
+                    type,
+                    size,
+                    lastModifiedTimeInNanos,
+                    new String(fileKeyBytes, StandardCharsets.UTF_8)
+                );
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Converts the attributes of a path into a snapshot entry.
+     * @param relativePath Path relative to the snapshot root.
+     * @param attributes   Attributes of the path.
+     * @return Snapshot entry of the path.
+     */
+    private static Entry toEntry(Path relativePath, BasicFileAttributes attributes) {
+        byte type = attributes.isDirectory() ? DIRECTORY_TYPE : attributes.isRegularFile() ? FILE_TYPE : OTHER_TYPE;
+        return new Entry(
+            relativePath,
+            type,
+            attributes.size(),
+            attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS),
+            Objects.toString(attributes.fileKey(), "")
+        );
+    }
+
+    /**
+     * Walks a directory tree and persists its snapshot. The snapshot is written to a temporary file beside the
+     * snapshot file first, which then replaces the snapshot file, so that an interrupted write doesn't corrupt an
+     * existing snapshot. The entries are written through a buffer rather than a mapping, so that the temporary file
+     * isn't mapped while it's moved (which fails on Windows) and never has to be truncated to its actual size.
+     * @param rootPath     Root of the tree to snapshot.
+     * @param snapshotPath File to persist the snapshot to.
+     * @return Number of entries in the snapshot.
+     * @throws IOException Thrown if the tree cannot be walked or the snapshot cannot be written.
+     */
+    static long write(Path rootPath, Path snapshotPath) throws IOException {
+        Path temporarySnapshotPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        long entryCount = 0;
+        try {
+            try (FileChannel fileChannel = FileChannel.open(
+                    temporarySnapshotPath,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE
+            )) {
+                SortedTreeWalker sortedTreeWalker = new SortedTreeWalker(rootPath, Set.of(snapshotPath, temporarySnapshotPath));
+                ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+                buffer.putInt(MAGIC_NUMBER);
+                buffer.putInt(VERSION);
+                buffer.putLong(0);
+
+                while (sortedTreeWalker.hasNext()) {
+                    Entry entry = sortedTreeWalker.next();
+                    byte[] relativePathBytes = entry.relativePath.toString().getBytes(StandardCharsets.UTF_8);
+                    byte[] fileKeyBytes = entry.fileKey.getBytes(StandardCharsets.UTF_8);
+                    int entrySize = Integer.BYTES + relativePathBytes.length + 1 + Long.BYTES + Long.BYTES
+                            + Integer.BYTES + fileKeyBytes.length;
+                    if(buffer.remaining() < entrySize) {
+                        writeFully(fileChannel, buffer.flip());
+                        buffer = entrySize > buffer.capacity() ? ByteBuffer.allocateDirect(entrySize) : buffer.clear();
+                    }
+                    buffer.putInt(relativePathBytes.length);
+                    buffer.put(relativePathBytes);
+                    buffer.put(entry.type);
+                    buffer.putLong(entry.size);
+                    buffer.putLong(entry.lastModifiedTimeInNanos);
+                    buffer.putInt(fileKeyBytes.length);
+                    buffer.put(fileKeyBytes);
+                    entryCount++;
+                }
+                writeFully(fileChannel, buffer.flip());
+
+                // The header is completed once all the entries have been written
+                ByteBuffer entryCountBuffer = ByteBuffer.allocate(Long.BYTES).putLong(0, entryCount);
+                while (entryCountBuffer.hasRemaining()) {
+                    fileChannel.write(entryCountBuffer, ENTRY_COUNT_OFFSET + entryCountBuffer.position());
+                }
+                fileChannel.force(false);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            try {
+                Files.move(temporarySnapshotPath, snapshotPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporarySnapshotPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            // A failed write doesn't leave its temporary file behind
+            try {
+                Files.deleteIfExists(temporarySnapshotPath);
+            } catch (IOException deleteException) {
+                e.addSuppressed(deleteException);
+            }
+            throw e;
+        }
+        return entryCount;
+    }
+
+    /**
+     * Writes all the remaining bytes of a buffer at the current position of a channel.
+     * @param fileChannel Channel to write to.
+     * @param buffer      Buffer to write.
+     * @throws IOException Thrown if the channel cannot be written.
+     */
+    private static void writeFully(FileChannel fileChannel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            fileChannel.write(buffer);
+        }
+    }
+
+    /**
+     * Compares a persisted snapshot against the current state of its tree and reports the differences as
+     * ENTRY_CREATE, ENTRY_MODIFY and ENTRY_DELETE events. A path whose type has changed (Eg: A file replaced by a
+     * directory) is reported as deleted and created.
+     * @param rootPath     Root of the tree to compare.
+     * @param snapshotPath Snapshot file of the tree.
+     * @param consumer     Invoked with the absolute path and event of each difference.
+     * @throws IOException Thrown if the tree cannot be walked or the snapshot cannot be read.
+     */
+    static void replayChanges(Path rootPath, Path snapshotPath, BiConsumer<Path, WatchEvent<?>> consumer) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            SnapshotReader snapshotReader = new SnapshotReader(fileChannel, rootPath);
+            SortedTreeWalker sortedTreeWalker = new SortedTreeWalker(rootPath, Set.of(snapshotPath));
+            Entry previousEntry = snapshotReader.hasNext() ? snapshotReader.next() : null;
+            Entry currentEntry = sortedTreeWalker.hasNext() ? sortedTreeWalker.next() : null;
+
+            while (previousEntry != null || currentEntry != null) {
+                int comparison = previousEntry == null ? 1
+                        : currentEntry == null ? -1
+                        : SEGMENT_WISE_COMPARATOR.compare(previousEntry.relativePath, currentEntry.relativePath);
+                if(comparison < 0) {
+                    replayChange(rootPath, previousEntry.relativePath, StandardWatchEventKinds.ENTRY_DELETE, consumer);
+                    previousEntry = snapshotReader.hasNext() ? snapshotReader.next() : null;
+                    continue;
+                }
+                if(comparison > 0) {
+                    replayChange(rootPath, currentEntry.relativePath, StandardWatchEventKinds.ENTRY_CREATE, consumer);
+                }
+                else if(previousEntry.type != currentEntry.type) {
+                    replayChange(rootPath, currentEntry.relativePath, StandardWatchEventKinds.ENTRY_DELETE, consumer);
+                    replayChange(rootPath, currentEntry.relativePath, StandardWatchEventKinds.ENTRY_CREATE, consumer);
+                    previousEntry = snapshotReader.hasNext() ? snapshotReader.next() : null;
+                }
+                else {
+                    if(currentEntry.isModifiedSince(previousEntry)) {
+                        replayChange(rootPath, currentEntry.relativePath, StandardWatchEventKinds.ENTRY_MODIFY, consumer);
+                    }
+                    previousEntry = snapshotReader.hasNext() ? snapshotReader.next() : null;
+                }
+                currentEntry = sortedTreeWalker.hasNext() ? sortedTreeWalker.next() : null;
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Reports a difference between a snapshot and the current state of its tree.
+     * @param rootPath     Root of the tree.
+     * @param relativePath Path of the difference relative to the root.
+     * @param kind         Kind of the difference.
+     * @param consumer     Invoked with the absolute path and event of the difference.
+     */
+    private static void replayChange(Path rootPath, Path relativePath, WatchEvent.Kind<Path> kind, BiConsumer<Path, WatchEvent<?>> consumer) {
+        consumer.accept(rootPath.resolve(relativePath), new SyntheticWatchEvent<>(kind, 1, relativePath));
+    }
+}
@@ -0,0 +1,340 @@
+package utilities;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The disk usage of a directory, the way du reports it: the total size and number of the files (everything but
+ * directories, symbolic links are counted but not followed) within the directory and all of its sub directories,
+ * along with a node for each sub directory.
+ *
+ * A tree can be kept up to date by passing the watch events of its root directory to updateFromWatchEvent(), Eg: By
+ * registering the root with FileUtility.registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered() for
+ * ENTRY_CREATE, ENTRY_DELETE and ENTRY_MODIFY events with diskUsageNode::updateFromWatchEvent as (or chained to) the
+ * consumer. Reads are lock free and may observe an update that is in progress.
+ */
+public class DiskUsageNode {
+
+    private static final Logger logger = LogManager.getLogger(DiskUsageNode.class);
+    private static final Comparator<DiskUsageNode> SIZE_COMPARATOR = Comparator.comparingLong(DiskUsageNode::getSize);
+    private final Path path;
+    private volatile DiskUsageNode parent;
+    private final Map<Path, Long> fileNameToSizeMap = new ConcurrentHashMap<>();
+    private final Map<Path, DiskUsageNode> directoryNameToNodeMap = new ConcurrentHashMap<>();
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong fileCount = new AtomicLong();
+
+    /**
+     * Creates the node of a directory.
+     * @param path   Path of the directory.
+     * @param parent Node of the parent directory, null for the root of a tree.
+     */
+    private DiskUsageNode(Path path, DiskUsageNode parent) {
+        this.path = path;
+        this.parent = parent;
+    }
+
+    /**
+     * Computes the disk usage of a directory tree. The directories that can't be read are skipped with a warning.
+     * @param directory Root directory of the tree.
+     * @param pool      Pool to walk the tree on, sibling sub directories are walked concurrently. If null, the tree
+     *                  is walked in the calling thread.
+     * @return Node of the root directory, null if it isn't a directory.
+     */
+    static DiskUsageNode compute(Path directory, ForkJoinPool pool) {
+        Map<Path, DiskUsageNode> directoryToNodeMap = new ConcurrentHashMap<>();
+        AttributeTreeWalker treeWalker = new AttributeTreeWalker(
+            new AttributeTreeWalker.Visitor() {
+                @Override
+                public boolean visit(Path node, BasicFileAttributes attributes) {
+                    DiskUsageNode parentNode = node.equals(directory) ? null : directoryToNodeMap.get(node.getParent());
+                    if(attributes.isDirectory()) {
+                        DiskUsageNode directoryNode = new DiskUsageNode(node, parentNode);
+                        directoryToNodeMap.put(node, directoryNode);
+                        if(parentNode != null) {
+                            parentNode.directoryNameToNodeMap.put(node.getFileName(), directoryNode);
+                        }
+                        return true;
+                    }
+                    if(parentNode != null) {
+                        parentNode.fileNameToSizeMap.put(node.getFileName(), attributes.size());
+                    }
+                    return false;
+                }
+
+                @Override
+                public void postVisitDirectory(Path directory, boolean isSubtreeVisited) {
+                    // The sub directories have been post visited already
+                    directoryToNodeMap.get(directory).computeTotals();
+                }
+            },
+            Integer.MAX_VALUE
+        );
+        if(pool == null) {
+            treeWalker.walk(directory);
+        }
+        else {
+            treeWalker.walk(directory, pool);
+        }
+        treeWalker.getFailures()
+                .forEach((failedPath, e) -> logger.warn(
+                    I18NUtility.getFormattedString(
+                        "utilities.FileUtility.skippingUnreadablePathMessage",
+                        failedPath,
+                        e
+                    )
+                ));
+        return directoryToNodeMap.get(directory);
+    }
+
+    /**
+     * Sums up the totals of the directory from its files and the totals of its sub directories.
+     */
+    private void computeTotals() {
+        long totalSize = 0;
+        long totalFileCount = fileNameToSizeMap.size();
+        for (long fileSize : fileNameToSizeMap.values()) {
+            totalSize += fileSize;
+        }
+        for (DiskUsageNode directoryNode : directoryNameToNodeMap.values()) {
+            totalSize += directoryNode.getSize();
+            totalFileCount += directoryNode.getFileCount();
+        }
+        size.set(totalSize);
+        fileCount.set(totalFileCount);
+    }
+
+    /**
+     * Adds deltas to the totals of the directory and all of its ancestors.
+     * @param sizeDelta      Delta of the size.
+     * @param fileCountDelta Delta of the number of files.
+     */
+    private void addToTotals(long sizeDelta, long fileCountDelta) {
+        for (DiskUsageNode node = this; node != null; node = node.parent) {
+            node.size.addAndGet(sizeDelta);
+            node.fileCount.addAndGet(fileCountDelta);
+        }
+    }
+
+    /**
+     * Returns the path of the directory.
+     * @return Path of the directory.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the node of the parent directory.
+     * @return Node of the parent directory, null for the root of a tree.
+     */
+    public DiskUsageNode getParent() {
+        return parent;
+    }
+
+    /**
+     * Returns the total size of the files within the directory and all of its sub directories.
+     * @return Total size in bytes.
+     */
+    public long getSize() {
+        return size.get();
+    }
+
+    /**
+     * Returns the total number of files within the directory and all of its sub directories.
+     * @return Total number of files.
+     */
+    public long getFileCount() {
+        return fileCount.get();
+    }
+
+    /**
+     * Returns the nodes of the immediate sub directories.
+     * @return Nodes of the sub directories, largest first.
+     */
+    public List<DiskUsageNode> getChildren() {
+        List<DiskUsageNode> children = new ArrayList<>(directoryNameToNodeMap.values());
+        children.sort(SIZE_COMPARATOR.reversed());
+        return children;
+    }
+
+    /**
+     * Returns the node of a directory within this directory.
+     * @param directory Path of the directory, absolute or relative to this directory.
+     * @return Node of the directory, null if it isn't a known directory within this directory.
+     */
+    public DiskUsageNode getNode(Path directory) {
+        Path relativePath = directory.isAbsolute() ? path.relativize(directory) : directory;
+        DiskUsageNode node = this;
+        for (Path segment : relativePath) {
+            if(segment.toString().isEmpty()) {
+                continue;
+            }
+            node = node.directoryNameToNodeMap.get(segment);
+            if(node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Returns the largest sub directories at any depth within this directory.
+     * @param k Maximum number of sub directories to return.
+     * @return Nodes of the largest sub directories, largest first.
+     */
+    public List<DiskUsageNode> getLargestSubtrees(int k) {
+        if(k < 0) {
+            throw new IllegalArgumentException(
+                I18NUtility.getFormattedString(
+                    "input.validation.invalidActionOrArgumentMessage",
+                    "k",
+                    k
+                )
+            );
+        }
+        // A min heap of the k largest sub directories seen so far
+        PriorityQueue<DiskUsageNode> largestSubtrees = new PriorityQueue<>(Math.max(k, 1), SIZE_COMPARATOR);
+        Deque<DiskUsageNode> nodesToVisit = new ArrayDeque<>(directoryNameToNodeMap.values());
+        while (k > 0 && !nodesToVisit.isEmpty()) {
+            DiskUsageNode node = nodesToVisit.pop();
+            largestSubtrees.add(node);
+            if(largestSubtrees.size() > k) {
+                largestSubtrees.poll();
+            }
+            nodesToVisit.addAll(node.directoryNameToNodeMap.values());
+        }
+        List<DiskUsageNode> largestSubtreesList = new ArrayList<>(largestSubtrees);
+        largestSubtreesList.sort(SIZE_COMPARATOR.reversed());
+        return largestSubtreesList;
+    }
+
+    /**
+     * Updates the tree from a watch event of a path within it. Created and modified paths are read again, deleted
+     * paths are removed and the directory whose events overflowed is computed again.
+     * @param changePath Path the event was triggered for.
+     * @param event      The watch event.
+     */
+    public void updateFromWatchEvent(Path changePath, WatchEvent<?> event) {
+        DiskUsageNode rootNode = this;
+        while (rootNode.parent != null) {
+            rootNode = rootNode.parent;
+        }
+        Path absoluteChangePath = changePath.toAbsolutePath();
+        if(!absoluteChangePath.startsWith(rootNode.path)) {
+            return;
+        }
+
+        synchronized (rootNode) {
+            if(event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                DiskUsageNode overflowedNode = rootNode.getNode(absoluteChangePath);
+                if(overflowedNode != null) {
+                    overflowedNode.recompute();
+                }
+                return;
+            }
+            if(absoluteChangePath.equals(rootNode.path)) {
+                return;
+            }
+            DiskUsageNode parentNode = rootNode.getNode(absoluteChangePath.getParent());
+            if(parentNode == null) {
+                return;
+            }
+            Path name = absoluteChangePath.getFileName();
+            // The modification time of a directory changes along with its entries, which are tracked by their own events
+            if(event.kind() == StandardWatchEventKinds.ENTRY_MODIFY && parentNode.directoryNameToNodeMap.containsKey(name)) {
+                return;
+            }
+            parentNode.removeEntry(name);
+            if(event.kind() != StandardWatchEventKinds.ENTRY_DELETE) {
+                parentNode.addEntry(absoluteChangePath);
+            }
+        }
+    }
+
+    /**
+     * Removes a file or sub directory of the directory.
+     * @param name Name of the file or sub directory.
+     */
+    private void removeEntry(Path name) {
+        Long fileSize = fileNameToSizeMap.remove(name);
+        if(fileSize != null) {
+            addToTotals(-fileSize, -1);
+        }
+        DiskUsageNode directoryNode = directoryNameToNodeMap.remove(name);
+        if(directoryNode != null) {
+            directoryNode.parent = null;
+            addToTotals(-directoryNode.getSize(), -directoryNode.getFileCount());
+        }
+    }
+
+    /**
+     * Reads a file or sub directory of the directory and adds it. Paths that don't exist anymore are ignored, their
+     * deletion is tracked by its own event.
+     * @param entryPath Path of the file or sub directory.
+     */
+    private void addEntry(Path entryPath) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(entryPath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            logger.debug(e);
+            return;
+        }
+        if(!attributes.isDirectory()) {
+            fileNameToSizeMap.put(entryPath.getFileName(), attributes.size());
+            addToTotals(attributes.size(), 1);
+            return;
+        }
+        DiskUsageNode directoryNode = compute(entryPath, null);
+        if(directoryNode != null) {
+            directoryNode.parent = this;
+            directoryNameToNodeMap.put(entryPath.getFileName(), directoryNode);
+            addToTotals(directoryNode.getSize(), directoryNode.getFileCount());
+        }
+    }
+
+    /**
+     * Computes the directory again, replacing its entries.
+     */
+    private void recompute() {
+        DiskUsageNode recomputedNode = compute(path, null);
+        long sizeDelta = -getSize();
+        long fileCountDelta = -getFileCount();
+        fileNameToSizeMap.clear();
+        directoryNameToNodeMap.clear();
+        if(recomputedNode != null) {
+            fileNameToSizeMap.putAll(recomputedNode.fileNameToSizeMap);
+            recomputedNode.directoryNameToNodeMap.forEach((name, directoryNode) -> {
+                directoryNode.parent = this;
+                directoryNameToNodeMap.put(name, directoryNode);
+            });
+            sizeDelta += recomputedNode.getSize();
+            fileCountDelta += recomputedNode.getFileCount();
+        }
+        addToTotals(sizeDelta, fileCountDelta);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%d bytes, %d files)", path, getSize(), getFileCount());
+    }
+}
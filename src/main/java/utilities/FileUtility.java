@@ -6,41 +6,77 @@ import org.apache.logging.log4j.Logger;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileAttribute;
 import java.nio.file.attribute.PosixFilePermission;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 public class FileUtility {
 
-    static class WatchServiceRegisteringFileVisitor extends SimpleFileVisitor<Path> {
+    public enum WatchEventBackpressurePolicy {
+        // Block the dispatcher until the consumer catches up, events are eventually queued by the OS instead.
+        BLOCK,
+        // Drop the oldest event waiting to be consumed to make space for the new event.
+        DROP_OLDEST,
+        // Drop an event if the last event waiting to be consumed for the same path is of the same kind, else BLOCK.
+        COALESCE
+    }
+
+    public static class WatchServiceRegisteringFileVisitor extends SimpleFileVisitor<Path> {
 
-        private long successfulFileVisitsCount = 0;
-        private long successfulDirectoryVisitsCount = 0;
-        private long failedVisitsCount = 0;
+        private final LongAdder successfulFileVisitsCount = new LongAdder();
+        private final LongAdder successfulDirectoryVisitsCount = new LongAdder();
+        private final LongAdder failedVisitsCount = new LongAdder();
+        private final CompletableFuture<WatchServiceRegisteringFileVisitor> registrationFuture = new CompletableFuture<>();
         private final Path basePath;
         private final WatchEvent.Kind<?>[] eventsToWatch;
         private final int maxDepth;
+        private final BiConsumer<Path, WatchEvent<?>> consumer;
 
         /**
          * The WatchServiceRegisteringFileVisitor is a SimpleFileVisitor implementation that visits all children
          * files/folders of a specified path upto a specified max depth and registers them for a WatchService to generate
-         * events for the specified watch event kinds.
+         * events for the specified watch event kinds. The visitor is thread safe, so that sibling subtrees can be
+         * visited concurrently.
          * @param basePath      The path to walk.
          * @param maxDepth      The maximum depth to walk.
+         * @param consumer      The callback to invoke when an event is triggered for a registered path.
          * @param eventsToWatch Events to register with the watch service.
          */
-        public WatchServiceRegisteringFileVisitor(Path basePath, int maxDepth, WatchEvent.Kind<?> ... eventsToWatch) {
+        public WatchServiceRegisteringFileVisitor(Path basePath, int maxDepth, BiConsumer<Path, WatchEvent<?>> consumer, WatchEvent.Kind<?> ... eventsToWatch) {
             this.basePath = basePath;
             this.eventsToWatch = eventsToWatch;
             this.maxDepth = maxDepth;
+            this.consumer = consumer;
+        }
+
+        /**
+         * Called before the contents of a directory are visited. The directory is registered before its contents are
+         * listed, so that entries created while it's being walked generate events.
+         * @param childPath Path of the directory to visit.
+         * @param attrs     Attributes of the directory.
+         * @return The result of the visit, indicates the next traversal action.
+         */
+        @Override
+        public FileVisitResult preVisitDirectory(Path childPath, BasicFileAttributes attrs) {
+            return registerDirectory(childPath);
         }
 
         /**
@@ -51,14 +87,10 @@ public class FileUtility {
          */
         @Override
         public FileVisitResult visitFile(Path childPath, BasicFileAttributes attrs) {
-            if(Files.isDirectory(childPath)) {
-                int newMaxDepth = getNewMaxDepth(childPath);
-                registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(childPath, newMaxDepth, eventsToWatch);
-                successfulDirectoryVisitsCount++;
-            }
-            else {
-                successfulFileVisitsCount++;
+            if(attrs.isDirectory()) {
+                return registerDirectory(childPath);
             }
+            successfulFileVisitsCount.increment();
             return FileVisitResult.CONTINUE;
         }
 
@@ -70,10 +102,29 @@ public class FileUtility {
          */
         @Override
         public FileVisitResult visitFileFailed(Path childPath, IOException ioException) {
-            failedVisitsCount++;
+            logger.warn(ioException);
+            failedVisitsCount.increment();
             return FileVisitResult.SKIP_SUBTREE;
         }
 
+        /**
+         * Registers a visited directory with the WatchService.
+         * @param childPath Path of the visited directory.
+         * @return The result of the visit, indicates the next traversal action.
+         */
+        private FileVisitResult registerDirectory(Path childPath) {
+            try {
+                registerDirectoryWithWatchServiceIfNotAlreadyRegistered(childPath, getNewMaxDepth(childPath), consumer, eventsToWatch);
+            } catch (RuntimeException e) {
+                // Eg: The watch limit of the OS has been reached, the rest of the tree can still be registered
+                logger.warn(e);
+                failedVisitsCount.increment();
+                return FileVisitResult.SKIP_SUBTREE;
+            }
+            successfulDirectoryVisitsCount.increment();
+            return FileVisitResult.CONTINUE;
+        }
+
         /**
          * Gets the max depth for the specified path relative to the original max depth of the base path.
          * @param childPath Path for which the max depth needs to be computed.
@@ -88,28 +139,12 @@ public class FileUtility {
             return newMaxDepth;
         }
 
-        /**
-         * Called after a directory is visited.
-         * @param childPath     Path of the visited file.
-         * @param ioException   Exception thrown during directory visit failure.
-         * @return The result of the visit, indicates the next traversal action.
-         */
-        @Override
-        public FileVisitResult postVisitDirectory(Path childPath, IOException ioException)
-                    throws IOException {
-            super.postVisitDirectory(childPath, ioException);
-
-            int newMaxDepth = getNewMaxDepth(childPath);
-            registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(childPath, newMaxDepth, eventsToWatch);
-            return FileVisitResult.CONTINUE;
-        }
-
         /**
          * Returns the number of successful file visits so far by this visitor.
          * @return Number of successful file visits.
          */
         public long getSuccessfulFileVisitsCount() {
-            return successfulFileVisitsCount;
+            return successfulFileVisitsCount.sum();
         }
 
         /**
@@ -117,7 +152,7 @@ public class FileUtility {
          * @return Number of successful directory visits.
          */
         public long getSuccessfulDirectoryVisitsCount() {
-            return successfulDirectoryVisitsCount;
+            return successfulDirectoryVisitsCount.sum();
         }
 
         /**
@@ -125,29 +160,187 @@ public class FileUtility {
          * @return Number of failed file visits.
          */
         public long getFailedVisitsCount() {
-            return failedVisitsCount;
+            return failedVisitsCount.sum();
+        }
+
+        /**
+         * Returns the future that is completed with this visitor once all the directories of the walked tree have been
+         * registered.
+         * @return Future completed once the walked tree is fully registered.
+         */
+        public CompletableFuture<WatchServiceRegisteringFileVisitor> getRegistrationFuture() {
+            return registrationFuture;
+        }
+
+    }
+
+    static class WatchServiceRegisteringTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final WatchServiceRegisteringFileVisitor watchServiceRegisteringFileVisitor;
+        private final Path directory;
+        private final BasicFileAttributes attributes;
+        private final int depth;
+        private final int maxDepth;
+        private final Set<Object> ancestorFileKeys;
+
+        /**
+         * The WatchServiceRegisteringTask visits a directory with a WatchServiceRegisteringFileVisitor and forks a task
+         * for each of its sub directories, so that sibling subtrees are registered concurrently by the pool's workers.
+         * Directories at the max depth are visited as files by the task of their parent, in the same way as
+         * Files.walkFileTree() does.
+         * @param watchServiceRegisteringFileVisitor Visitor that registers the visited directories.
+         * @param directory                          Directory to visit.
+         * @param attributes                         Attributes of the directory to visit.
+         * @param depth                              Depth of the directory relative to the walked path.
+         * @param maxDepth                           The maximum depth to walk.
+         * @param ancestorFileKeys                   File keys of the ancestors of the directory, used to detect cycles
+         *                                           caused by symbolic links.
+         */
+        public WatchServiceRegisteringTask(WatchServiceRegisteringFileVisitor watchServiceRegisteringFileVisitor, Path directory, BasicFileAttributes attributes, int depth, int maxDepth, Set<Object> ancestorFileKeys) {
+            this.watchServiceRegisteringFileVisitor = watchServiceRegisteringFileVisitor;
+            this.directory = directory;
+            this.attributes = attributes;
+            this.depth = depth;
+            this.maxDepth = maxDepth;
+            this.ancestorFileKeys = ancestorFileKeys;
+        }
+
+        /**
+         * Registers the directory and then visits its contents.
+         */
+        @Override
+        protected void compute() {
+            if(watchServiceRegisteringFileVisitor.preVisitDirectory(directory, attributes) != FileVisitResult.CONTINUE) {
+                return;
+            }
+
+            Set<Object> fileKeys = ancestorFileKeys;
+            if(attributes.fileKey() != null) {
+                fileKeys = new HashSet<>(ancestorFileKeys);
+                fileKeys.add(attributes.fileKey());
+            }
+
+            List<WatchServiceRegisteringTask> subDirectoryTasks = new ArrayList<>();
+            try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory)) {
+                for (Path childPath : directoryStream) {
+                    BasicFileAttributes childAttributes;
+                    try {
+                        childAttributes = Files.readAttributes(childPath, BasicFileAttributes.class);
+                    } catch (IOException e) {
+                        watchServiceRegisteringFileVisitor.visitFileFailed(childPath, e);
+                        continue;
+                    }
+                    if(!childAttributes.isDirectory() || depth + 1 >= maxDepth) {
+                        watchServiceRegisteringFileVisitor.visitFile(childPath, childAttributes);
+                    }
+                    else if(childAttributes.fileKey() != null && fileKeys.contains(childAttributes.fileKey())) {
+                        watchServiceRegisteringFileVisitor.visitFileFailed(
+                            childPath,
+                            new FileSystemLoopException(childPath.toString())
+                        );
+                    }
+                    else {
+                        subDirectoryTasks.add(
+                            new WatchServiceRegisteringTask(
+                                watchServiceRegisteringFileVisitor,
+                                childPath,
+                                childAttributes,
+                                depth + 1,
+                                maxDepth,
+                                fileKeys
+                            )
+                        );
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                watchServiceRegisteringFileVisitor.visitFileFailed(
+                    directory,
+                    e instanceof IOException ? (IOException) e : ((DirectoryIteratorException) e).getCause()
+                );
+            }
+
+            invokeAll(subDirectoryTasks);
+        }
+    }
+
+    static class FolderCreatingTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final Path directory;
+        private final Map<Path, Set<Path>> parentToChildrenMap;
+        private final LongAdder createdCount;
+        private final Map<Path, IOException> failures;
+
+        /**
+         * The FolderCreatingTask creates all the sub directories of a directory from the same thread and then forks a
+         * task for each of them that has sub directories of its own. Every directory is created once, by the task of
+         * its parent, so no thread re-checks the parents and siblings don't contend across threads.
+         * @param directory           Existing directory whose sub directories are to be created.
+         * @param parentToChildrenMap Directories mapped to the sub directories to create in them.
+         * @param createdCount        Counter of the created (or already existing) directories.
+         * @param failures            Directories that couldn't be created, mapped to the reason.
+         */
+        public FolderCreatingTask(Path directory, Map<Path, Set<Path>> parentToChildrenMap, LongAdder createdCount, Map<Path, IOException> failures) {
+            this.directory = directory;
+            this.parentToChildrenMap = parentToChildrenMap;
+            this.createdCount = createdCount;
+            this.failures = failures;
         }
 
+        /**
+         * Creates the sub directories of the directory and then their sub directories. The sub directories of a
+         * directory that couldn't be created aren't attempted.
+         */
+        @Override
+        protected void compute() {
+            List<FolderCreatingTask> subDirectoryTasks = new ArrayList<>();
+            for (Path subDirectory : parentToChildrenMap.get(directory)) {
+                try {
+                    Files.createDirectory(subDirectory);
+                } catch (FileAlreadyExistsException e) {
+                    if(!Files.isDirectory(subDirectory)) {
+                        failures.put(subDirectory, e);
+                        continue;
+                    }
+                } catch (IOException e) {
+                    failures.put(subDirectory, e);
+                    continue;
+                }
+                createdCount.increment();
+                if(parentToChildrenMap.containsKey(subDirectory)) {
+                    subDirectoryTasks.add(new FolderCreatingTask(subDirectory, parentToChildrenMap, createdCount, failures));
+                }
+            }
+            invokeAll(subDirectoryTasks);
+        }
     }
 
     static class WatchServiceRegistrationInfo {
 
         private final Path path;
-        private final WatchService watchService;
+        private final WatchKey watchKey;
         private final int maxDepth;
+        private final BiConsumer<Path, WatchEvent<?>> consumer;
+        private final WatchedRootMetricsRecorder metricsRecorder;
         private final WatchEvent.Kind<?>[] eventsToWatch;
+        private final Set<Path> entryNames = ConcurrentHashMap.newKeySet();
 
         /**
          * This class abstracts all the information needed to track watch service registrations.
-         * @param path          Registered path.
-         * @param watchService  Watch service with which the path has been registered.
-         * @param maxDepth      Max directory depth to monitor for events.
-         * @param eventsToWatch Events registered with the watch service.
+         * @param path            Registered path.
+         * @param watchKey        Watch key returned when the path was registered with the watch service.
+         * @param maxDepth        Max directory depth to monitor for events.
+         * @param consumer        The callback to invoke when an event is triggered for the registered path.
+         * @param metricsRecorder Metrics recorder of the watched root the path belongs to.
+         * @param eventsToWatch   Events registered with the watch service.
          */
-        public WatchServiceRegistrationInfo(Path path, WatchService watchService, int maxDepth,  WatchEvent.Kind<?> ... eventsToWatch){
+        public WatchServiceRegistrationInfo(Path path, WatchKey watchKey, int maxDepth, BiConsumer<Path, WatchEvent<?>> consumer, WatchedRootMetricsRecorder metricsRecorder, WatchEvent.Kind<?> ... eventsToWatch){
             this.path = path;
-            this.watchService = watchService;
+            this.watchKey = watchKey;
             this.maxDepth = maxDepth;
+            this.consumer = consumer;
+            this.metricsRecorder = metricsRecorder;
             this.eventsToWatch = eventsToWatch;
         }
 
@@ -155,17 +348,16 @@ public class FileUtility {
          * Returns the registered path.
          * @return Registered path.
          */
-        @SuppressWarnings("unused")
         public Path getPath() {
             return path;
         }
 
         /**
-         * Returns the watch service with which the path has been registered.
-         * @return Watch service with which the path has been registered.
+         * Returns the watch key returned when the path was registered with the watch service.
+         * @return Watch key of the registered path.
          */
-        public WatchService getWatchService() {
-            return watchService;
+        public WatchKey getWatchKey() {
+            return watchKey;
         }
 
         /**
@@ -176,246 +368,1643 @@ public class FileUtility {
             return maxDepth;
         }
 
+        /**
+         * The callback to invoke when an event is triggered for the registered path.
+         * @return Callback to invoke for events of the registered path.
+         */
+        public BiConsumer<Path, WatchEvent<?>> getConsumer() {
+            return consumer;
+        }
+
+        /**
+         * The metrics recorder of the watched root the registered path belongs to.
+         * @return Metrics recorder of the watched root.
+         */
+        public WatchedRootMetricsRecorder getMetricsRecorder() {
+            return metricsRecorder;
+        }
+
         /**
          * The events registered with the watch service.
          * @return Events registered with the watch service.
          */
-        @SuppressWarnings("unused")
         public WatchEvent.Kind<?>[] getEventsToWatch() {
             return eventsToWatch;
         }
-    }
-
-    private static final Logger logger = LogManager.getLogger(FileUtility.class);
-    private static final ConcurrentHashMap<String, WatchServiceRegistrationInfo> pathToWatchServiceRegistrationInfoMap = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String, Queue<WatchEvent<?>>> watchServiceEventsMap = new ConcurrentHashMap<>();
-    private static Thread backgroundWatchServiceRegisteringThread;
-
-    /**
-     * Creates a specific number of folders with the specified name and prefix/suffix
-     *
-     * @param path     The path where the folders have to be created
-     * @param name     The base name of the folders to be created
-     * @param isPrefix If true append the number to the prefix of the folder name, else append it as the suffix.
-     * @param count    The number of folders to be created
-     */
-    public static void createFolders(Path path, String name, boolean isPrefix, int count) {
-        IntStream.range(1, count + 1)
-                .parallel()
-                .forEach(x -> {
-                            String folderName = isPrefix ? Integer.toString(x).concat(name) : name.concat(Integer.toString(x));
-                            Path folderPath = path.resolve(folderName);
-                            try {
-                                Files.createDirectories(folderPath);
-                            } catch (IOException e) {
-                                logger.error(e);
-                                throw new RuntimeException(e);
-                            }
-                        }
-                );
-    }
 
-    /**
-     * Sets permissions to a specified file/folder and all its contents if needed
-     *
-     * @param path           The path of the folder/file whose permission needs to be changed
-     * @param permissions    The new permission to set to the folder/file specified
-     * @param setRecursively If true and a folder is specified, it sets the specified permissions to all the contents
-     *                       in it, recursively.
-     *                       If false and a folder is specified, It only sets the specified permission to the folder
-     *                       specified and not any of its contents.
-     *                       If a file is specified, irrespective, this parameter doesn't have any effect on it.
-     */
-    public static void setPermissions(Path path, Set<PosixFilePermission> permissions, boolean setRecursively) {
-        try {
-            if (setRecursively) {
-                Files.walk(path)
-                        .parallel()
-                        .forEach(node -> {
-                            try {
-                                Files.setPosixFilePermissions(node, permissions);
-                            } catch (IOException e) {
-                                logger.error(e);
-                                throw new RuntimeException(e);
-                            }
-                        });
-            }
-            else
-                Files.setPosixFilePermissions(path, permissions);
-        } catch (IOException e) {
-            logger.error(e);
-            throw new RuntimeException(e);
+        /**
+         * The names of the entries in the registered directory, as of the last events retrieved for it. Used to
+         * recover the creations and deletions missed when the events overflow.
+         * @return Names of the entries in the registered directory.
+         */
+        public Set<Path> getEntryNames() {
+            return entryNames;
         }
     }
 
-    /**
-     * Lists the immediate folder contents/file that match the specified pattern
-     *
-     * @param path          The path to find file name matches in.
-     * @param patternString The pattern to match the file name with.
-     * @return List of Path objects of the files/folders whose name matches the specified pattern.
-     */
-    public static List<Path> listMatches(Path path, String patternString) {
-        return getContentMatches(path, patternString, false);
-    }
+    static class WatchServiceEventDispatcher implements Runnable {
 
-    /**
-     * Lists the recursive folder contents/file that match the specified pattern
-     *
-     * @param path          The path to recursively find file name matches in.
-     * @param patternString The pattern to match the file name with.
-     * @return List of Path objects of the files/folder contents whose name matches the specified pattern.
-     */
-    public static List<Path> treeMatches(Path path, String patternString) {
-        return getContentMatches(path, patternString, true);
-    }
+        private final FileSystem fileSystem;
+        private final WatchService watchService;
+        private Thread dispatcherThread;
 
-    /**
-     * Lists the recursive/immediate folder contents/file that match the specified pattern
-     *
-     * @param path          The path to recursively find file name matches in.
-     * @param patternString The pattern to match the file name with.
-     * @param searchTree    If a directory is specified and this parameter is true, it searches recursively, else it only
-     *                      searches the immediate contents of the folder. This parameter is not applicable if a file path
-     *                      is specified.
-     * @return List of Path objects of the files/folder contents whose name matches the specified pattern.
-     */
-    private static List<Path> getContentMatches(Path path, String patternString, boolean searchTree) {
-        List<Path> matchList = new ArrayList<>();
-        Stream<Path> contents = null;
-        try {
-            contents = searchTree ? Files.walk(path) : Files.list(path);
-        } catch (IOException e) {
-            logger.error(e);
-            throw new RuntimeException(e);
+        /**
+         * The WatchServiceEventDispatcher drains the WatchService shared by all the registered directories of a file
+         * system on a dedicated background thread. The thread blocks until a registered directory signals events, so it
+         * doesn't consume any CPU while the watched paths are idle.
+         * @param fileSystem File system whose directories are registered with the watch service.
+         * @throws IOException Thrown if the watch service cannot be created.
+         */
+        public WatchServiceEventDispatcher(FileSystem fileSystem) throws IOException {
+            this.fileSystem = fileSystem;
+            this.watchService = fileSystem.newWatchService();
         }
-        if (Files.isDirectory(path)) {
-            matchList.addAll(
-                    contents.parallel()
-                            .filter(content -> RegexUtility.matches(patternString, 0, content.getFileName().toString()))
-                            .collect(Collectors.toList())
-            );
-        } else if (RegexUtility.matches(patternString, 0, path.getFileName().toString()))
-            matchList.add(path);
-        return matchList;
-    }
 
-    /**
-     * Deletes the specified folder/file
-     *
-     * @param path The folder/file to delete
-     */
-    public static void deleteRecursively(Path path) {
-        try {
-            if (!Files.isDirectory(path)) {
-                Files.delete(path);
-            } else {
-                Stream<Path> dirTree = Files.list(path);
-                dirTree.forEach(walkPath -> {
-                    try {
-                        if (Files.isDirectory(walkPath)) {
-                            FileUtility.deleteRecursively(walkPath);
-                        } else {
-                            Files.delete(walkPath);
-                        }
-                    } catch (IOException e) {
-                        throw new UncheckedIOException(e);
-                    }
-                });
-                dirTree.close();
-                Files.delete(path);
+        /**
+         * Returns the watch service from which events are drained.
+         * @return Watch service from which events are drained.
+         */
+        public WatchService getWatchService() {
+            return watchService;
+        }
 
+        /**
+         * Starts the background dispatcher thread if it's not already running.
+         */
+        public synchronized void start() {
+            if(!isRunning()) {
+                dispatcherThread = new Thread(this, "FileUtility-WatchServiceEventDispatcher-" + fileSystem);
+                dispatcherThread.setDaemon(true);
+                dispatcherThread.start();
             }
-        } catch (IOException e) {
-            logger.error(e);
-            throw new RuntimeException(e);
         }
-    }
-
-    /**
-     * Deletes contents specified by the path input if the name matches the provided pattern
-     *
-     * @param path           The path to perform the matched deletion in.
-     * @param pattern        The pattern to match the file/folder name with.
-     * @param setRecursively If a directory is specified and this parameter is true, it matches recursively and deletes,
-     *                       else it checks the specified folder/file name and deletes it if it matches the specified
-     *                       pattern. This parameter is not applicable if a file path is specified.
-     */
-    public static void deleteIfMatches(Path path, String pattern, boolean setRecursively) {
-        if (RegexUtility.matches(pattern, 0, path.getFileName().toString()))
-            FileUtility.deleteRecursively(path);
-        else
-            FileUtility.treeMatches(path, pattern)
-                    .stream()
-                    .forEach(FileUtility::deleteRecursively);
-    }
-
-    /**
-     * Changes the permission of the contents specified by the path input if the name matches the provided pattern
-     *
-     * @param path           The path to perform the matched permission change in.
-     * @param permissions    The permissions to set the matched folders/files with
-     * @param pattern        The pattern to match the file/folder name with.
-     * @param setRecursively If a directory is specified and this parameter is true, it matches recursively and sets the
-     *                       specified permissions, else it checks the specified folder/file name and sets the
-     *                       permissions if it matches the specified pattern. This parameter is not applicable if a file
-     *                       path is specified.
-     */
-    public static void setPermissionsIfMatches(Path path, Set<PosixFilePermission> permissions, String pattern, boolean setRecursively) {
-        FileUtility.listMatches(path, pattern)
-                .parallelStream()
-                .forEach(content -> FileUtility.setPermissions(content, permissions, setRecursively));
-    }
 
-    /**
-     * Sets the attribute of the contents specified by the path input if the name matches the provided pattern
-     *
-     * @param path           The path to set the attribute in.
-     * @param attribute      The attribute to set the matched folders/files with
-     * @param pattern        The pattern to match the file/folder name with.
-     * @param setRecursively If a directory is specified and this parameter is true, it matches recursively and sets the
-     *                       specified attribute, else it checks the specified folder/file name and sets the
-     *                       attribute if it matches the specified pattern. This parameter is not applicable if a file
-     *                       path is specified.
-     * @throws IOException Thrown by Files.walk()
-     */
-    public static void setAttributeIfMatches(Path path, FileAttribute<?> attribute, String pattern, boolean setRecursively) throws IOException {
-        Stream<Path> contents = setRecursively ? Files.walk(path) : Arrays.asList(path).stream();
-        contents.parallel()
-                .forEach(content -> {
+        /**
+         * Stops the background dispatcher thread and waits for it to exit. Registrations are retained and their
+         * events are dispatched once the dispatcher is started again.
+         *
+         * The thread is joined outside of the monitor, so that the dispatcher can still query its state while it
+         * finishes dispatching the current events.
+         */
+        public void stop() {
+            Thread stoppedDispatcherThread;
+            synchronized (this) {
+                stoppedDispatcherThread = dispatcherThread;
+                dispatcherThread = null;
+            }
+            if(stoppedDispatcherThread != null) {
+                stoppedDispatcherThread.interrupt();
+                // A consumer stopping the dispatcher runs on the dispatcher thread, which exits once it returns
+                if(stoppedDispatcherThread != Thread.currentThread()) {
                     try {
-                        Files.setAttribute(content, attribute.name(), attribute.value());
-                    } catch (IOException e) {
-                        logger.error(e);
-                        throw new RuntimeException(e);
+                        stoppedDispatcherThread.join();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
                     }
-                });
-    }
+                }
+            }
+        }
 
-    /**
-     * Checks if one path is a sub path of the other
-     * @param parentPath        Path to check for sub paths
-     * @param potentialSubPath  Path to check if it's a sub path of the parentPath path
-     * @return true if potentialSubPath is a sub path of parentPath
-     */
-    public static boolean isSubPath(Path parentPath, Path potentialSubPath) {
-        // Input validation
-        Objects.requireNonNull(parentPath);
-        Objects.requireNonNull(potentialSubPath);
-        if(!Files.isDirectory(parentPath)) {
-            throw new IllegalArgumentException(
-                I18NUtility.getFormattedString(
-                    "utilities.FileUtility.parentPathNotADirectory",
-                    parentPath
-                )
-            );
+        /**
+         * Checks if the background dispatcher thread is running.
+         * @return true if the background dispatcher thread is running, else false.
+         */
+        public synchronized boolean isRunning() {
+            return dispatcherThread != null && dispatcherThread.isAlive();
         }
 
-        parentPath = parentPath.toAbsolutePath();
-        potentialSubPath = potentialSubPath.toAbsolutePath();
+        /**
+         * Blocks on the watch service and dispatches the events of every signalled watch key until the dispatcher
+         * thread is interrupted or the watch service is closed.
+         */
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey watchKey;
+                try {
+                    watchKey = watchService.take();
+                } catch (InterruptedException e) {
+                    break;
+                } catch (ClosedWatchServiceException e) {
+                    logger.warn(e);
+                    break;
+                }
 
-        if(parentPath.equals(potentialSubPath)) {
-            return true;
+                watchServiceMetricsRegistry.recordDispatchLoopIteration();
+                WatchServiceRegistrationInfo watchServiceRegistrationInfo = watchKeyToWatchServiceRegistrationInfoMap.get(watchKey);
+                List<WatchEvent<?>> watchEvents = watchKey.pollEvents();
+                // Keys that have been cancelled by a de-registration aren't indexed anymore
+                if(watchServiceRegistrationInfo != null) {
+                    dispatchWatchEvents(watchServiceRegistrationInfo, watchEvents);
+                }
+                // An invalid key means that the directory is no longer accessible or the registration was cancelled
+                if(!watchKey.reset() && watchServiceRegistrationInfo != null) {
+                    removeWatchServiceRegistration(watchServiceRegistrationInfo);
+                }
+            }
+        }
+    }
+
+    public static class WatchedRootMetrics {
+
+        private final Path rootPath;
+        private final long queueDepth;
+        private final double eventsPerSecond;
+        private final long droppedEventsCount;
+        private final long[] sortedConsumerLatenciesInNanos;
+
+        /**
+         * A snapshot of the metrics of a watched root, i.e. a path registered with the WatchService along with all the
+         * directories registered beneath it.
+         * @param rootPath                       Path of the watched root.
+         * @param queueDepth                     Number of events waiting to be consumed.
+         * @param eventsPerSecond                Average number of events generated per second in the recent past.
+         * @param droppedEventsCount             Number of events dropped as their queue was full.
+         * @param sortedConsumerLatenciesInNanos Recent consumer latencies in ascending order.
+         */
+        public WatchedRootMetrics(Path rootPath, long queueDepth, double eventsPerSecond, long droppedEventsCount, long[] sortedConsumerLatenciesInNanos) {
+            this.rootPath = rootPath;
+            this.queueDepth = queueDepth;
+            this.eventsPerSecond = eventsPerSecond;
+            this.droppedEventsCount = droppedEventsCount;
+            this.sortedConsumerLatenciesInNanos = sortedConsumerLatenciesInNanos;
+        }
+
+        /**
+         * Returns the path of the watched root.
+         * @return Path of the watched root.
+         */
+        public Path getRootPath() {
+            return rootPath;
+        }
+
+        /**
+         * Returns the number of events of the watched root waiting to be consumed.
+         * @return Number of events waiting to be consumed.
+         */
+        public long getQueueDepth() {
+            return queueDepth;
+        }
+
+        /**
+         * Returns the average number of events generated per second for the watched root in the last few seconds.
+         * @return Average number of events generated per second.
+         */
+        public double getEventsPerSecond() {
+            return eventsPerSecond;
+        }
+
+        /**
+         * Returns the number of events of the watched root that have been dropped as their queue was full.
+         * @return Number of dropped events.
+         */
+        public long getDroppedEventsCount() {
+            return droppedEventsCount;
+        }
+
+        /**
+         * Returns a percentile of the time taken from queueing an event till its consumer returned, computed from the
+         * most recent events (utilities.FileUtility.watchservice.metrics.latency.samples).
+         * @param percentile Percentile to compute, Eg: 99 for the 99th percentile.
+         * @return The consumer latency percentile, Duration.ZERO if no event has been consumed yet.
+         */
+        public Duration getConsumerLatencyPercentile(double percentile) {
+            // Input validation
+            if(percentile <= 0 || percentile > 100) {
+                throw new IllegalArgumentException(
+                    I18NUtility.getFormattedString(
+                        "utilities.FileUtility.invalidPercentile",
+                        percentile
+                    )
+                );
+            }
+
+            if(sortedConsumerLatenciesInNanos.length == 0) {
+                return Duration.ZERO;
+            }
+            // Nearest rank percentile
+            int rank = (int) Math.ceil(percentile / 100 * sortedConsumerLatenciesInNanos.length);
+            return Duration.ofNanos(sortedConsumerLatenciesInNanos[Math.max(rank, 1) - 1]);
+        }
+    }
+
+    public static class WatchServiceMetrics implements WatchServiceMXBean {
+
+        private final long registeredDirectoryCount;
+        private final int watchServiceCount;
+        private final long dispatchLoopIterationCount;
+        private final Map<String, Long> deliveredEventCounts;
+        private final long registrationCount;
+        private final long registrationFailureCount;
+        private final long deregistrationCount;
+        private final long consumerInvocationCount;
+        private final long consumerTimeInNanos;
+
+        /**
+         * A snapshot of the metrics of the WatchService machinery, the same metrics are exposed through JMX as
+         * utilities:type=FileUtility,name=WatchService.
+         * @param watchServiceMXBean Metrics to take the snapshot of.
+         */
+        public WatchServiceMetrics(WatchServiceMXBean watchServiceMXBean) {
+            this.registeredDirectoryCount = watchServiceMXBean.getRegisteredDirectoryCount();
+            this.watchServiceCount = watchServiceMXBean.getWatchServiceCount();
+            this.dispatchLoopIterationCount = watchServiceMXBean.getDispatchLoopIterationCount();
+            this.deliveredEventCounts = Collections.unmodifiableMap(watchServiceMXBean.getDeliveredEventCounts());
+            this.registrationCount = watchServiceMXBean.getRegistrationCount();
+            this.registrationFailureCount = watchServiceMXBean.getRegistrationFailureCount();
+            this.deregistrationCount = watchServiceMXBean.getDeregistrationCount();
+            this.consumerInvocationCount = watchServiceMXBean.getConsumerInvocationCount();
+            this.consumerTimeInNanos = watchServiceMXBean.getConsumerTimeInNanos();
+        }
+
+        @Override
+        public long getRegisteredDirectoryCount() {
+            return registeredDirectoryCount;
+        }
+
+        @Override
+        public int getWatchServiceCount() {
+            return watchServiceCount;
+        }
+
+        @Override
+        public long getDispatchLoopIterationCount() {
+            return dispatchLoopIterationCount;
+        }
+
+        @Override
+        public Map<String, Long> getDeliveredEventCounts() {
+            return deliveredEventCounts;
+        }
+
+        @Override
+        public long getRegistrationCount() {
+            return registrationCount;
+        }
+
+        @Override
+        public long getRegistrationFailureCount() {
+            return registrationFailureCount;
+        }
+
+        @Override
+        public long getDeregistrationCount() {
+            return deregistrationCount;
+        }
+
+        @Override
+        public long getConsumerInvocationCount() {
+            return consumerInvocationCount;
+        }
+
+        @Override
+        public long getConsumerTimeInNanos() {
+            return consumerTimeInNanos;
+        }
+    }
+
+    public static class BulkOperationResult {
+
+        private final long succeededCount;
+        private final Map<Path, IOException> failures;
+        private final Duration duration;
+
+        /**
+         * The result of an operation performed on many paths, which doesn't stop at the first path that fails.
+         * @param succeededCount Number of paths the operation succeeded for.
+         * @param failures       Paths the operation failed for, mapped to the reason.
+         * @param duration       Time taken by the operation.
+         */
+        public BulkOperationResult(long succeededCount, Map<Path, IOException> failures, Duration duration) {
+            this.succeededCount = succeededCount;
+            this.failures = Collections.unmodifiableMap(failures);
+            this.duration = duration;
+        }
+
+        /**
+         * Returns the number of paths the operation succeeded for.
+         * @return Number of successful paths.
+         */
+        public long getSucceededCount() {
+            return succeededCount;
+        }
+
+        /**
+         * Returns the paths the operation failed for, mapped to the reason.
+         * @return Failed paths and their reasons.
+         */
+        public Map<Path, IOException> getFailures() {
+            return failures;
+        }
+
+        /**
+         * Checks if the operation succeeded for all the paths.
+         * @return true if no path failed, else false.
+         */
+        public boolean isSuccessful() {
+            return failures.isEmpty();
+        }
+
+        /**
+         * Returns the time taken by the operation.
+         * @return Time taken by the operation.
+         */
+        public Duration getDuration() {
+            return duration;
+        }
+
+        /**
+         * Returns the number of paths processed per second, successful or not.
+         * @return Paths processed per second.
+         */
+        public double getThroughputPerSecond() {
+            long durationInNanos = Math.max(duration.toNanos(), 1);
+            return (succeededCount + failures.size()) * 1e9 / durationInNanos;
+        }
+    }
+
+    /**
+     * Stages, each made of a file name matcher and an action, applied to every node of a tree in a single walk instead
+     * of walking the tree once per operation, Eg: new TreeOperationPipeline().addSetPermissionsStage(...)
+     * .addDeleteStage(...).execute(path).
+     */
+    public static class TreeOperationPipeline {
+
+        /**
+         * Operation applied to the nodes matched by a stage.
+         */
+        @FunctionalInterface
+        public interface Action {
+
+            /**
+             * Applies the operation to a node.
+             * @param path       Path of the node.
+             * @param attributes Attributes of the node read by the walk, before any stage was applied to it.
+             * @throws IOException If the operation failed.
+             */
+            void apply(Path path, BasicFileAttributes attributes) throws IOException;
+        }
+
+        private static class Stage {
+
+            private final PathMatcher fileNameMatcher;
+            private final Action action;
+
+            /**
+             * A stage of the pipeline.
+             * @param fileNameMatcher Matcher of the names of the nodes to apply the action to.
+             * @param action          Action to apply, null for a stage deleting the matched nodes.
+             */
+            public Stage(PathMatcher fileNameMatcher, Action action) {
+                this.fileNameMatcher = fileNameMatcher;
+                this.action = action;
+            }
+        }
+
+        private final List<Stage> stages = new ArrayList<>();
+        private boolean isPosixAttributesNeeded = false;
+
+        /**
+         * Adds a stage applying an action to the nodes whose name is matched.
+         * @param fileNameMatcher Matcher of the names of the nodes to apply the action to.
+         * @param action          Action to apply.
+         * @return This pipeline.
+         */
+        public TreeOperationPipeline addStage(PathMatcher fileNameMatcher, Action action) {
+            stages.add(new Stage(Objects.requireNonNull(fileNameMatcher), Objects.requireNonNull(action)));
+            return this;
+        }
+
+        /**
+         * Adds a stage setting the permissions of the nodes whose name is matched. Nodes that have the permissions
+         * already aren't updated, symbolic links are updated via their target.
+         * @param fileNameMatcher Matcher of the names of the nodes to set the permissions of.
+         * @param permissions     Permissions to set.
+         * @return This pipeline.
+         */
+        public TreeOperationPipeline addSetPermissionsStage(PathMatcher fileNameMatcher, Set<PosixFilePermission> permissions) {
+            Set<PosixFilePermission> permissionsToSet = Set.copyOf(permissions);
+            isPosixAttributesNeeded = true;
+            return addStage(
+                fileNameMatcher,
+                (path, attributes) -> {
+                    if (attributes.isSymbolicLink()
+                            || !AttributeTreeWalker.getPosixFileAttributes(path, attributes).permissions().equals(permissionsToSet))
+                        Files.setPosixFilePermissions(path, permissionsToSet);
+                }
+            );
+        }
+
+        /**
+         * Adds a stage setting an attribute of the nodes whose name is matched.
+         * @param fileNameMatcher Matcher of the names of the nodes to set the attribute of.
+         * @param attribute       Attribute to set.
+         * @return This pipeline.
+         */
+        public TreeOperationPipeline addSetAttributeStage(PathMatcher fileNameMatcher, FileAttribute<?> attribute) {
+            Objects.requireNonNull(attribute);
+            return addStage(
+                fileNameMatcher,
+                (path, attributes) -> Files.setAttribute(path, attribute.name(), attribute.value())
+            );
+        }
+
+        /**
+         * Adds a stage deleting the nodes whose name is matched. A matched directory is deleted along with all of its
+         * contents, which aren't matched against any stage. The stages following the delete stage aren't applied to
+         * the matched nodes.
+         * @param fileNameMatcher Matcher of the names of the nodes to delete.
+         * @return This pipeline.
+         */
+        public TreeOperationPipeline addDeleteStage(PathMatcher fileNameMatcher) {
+            stages.add(new Stage(Objects.requireNonNull(fileNameMatcher), null));
+            return this;
+        }
+
+        /**
+         * Applies the stages to a tree on the common fork join pool.
+         * @param root Root of the tree.
+         * @return The number of nodes all matching stages succeeded for and the nodes a stage failed for.
+         */
+        public BulkOperationResult execute(Path root) {
+            return execute(root, ForkJoinPool.commonPool());
+        }
+
+        /**
+         * Applies the stages to a tree, walking sibling sub directories concurrently.
+         * @param root        Root of the tree.
+         * @param parallelism Maximum number of threads to walk the tree with.
+         * @return The number of nodes all matching stages succeeded for and the nodes a stage failed for.
+         */
+        public BulkOperationResult execute(Path root, int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException(
+                    I18NUtility.getFormattedString(
+                        "utilities.FileUtility.nonPositiveParallelism",
+                        parallelism
+                    )
+                );
+            }
+            ForkJoinPool pipelinePool = new ForkJoinPool(parallelism);
+            try {
+                return execute(root, pipelinePool);
+            } finally {
+                pipelinePool.shutdown();
+            }
+        }
+
+        /**
+         * Applies the stages to every node of a tree in a single walk. The stages are applied to a node in the order
+         * they were added, the stages following a failed one aren't applied to it.
+         * @param root Root of the tree.
+         * @param pool Pool to walk the tree on.
+         * @return The number of nodes all matching stages succeeded for and the nodes a stage failed for.
+         */
+        private BulkOperationResult execute(Path root, ForkJoinPool pool) {
+            Objects.requireNonNull(root);
+            long startTimeInNanos = System.nanoTime();
+            List<Stage> stagesToApply = List.copyOf(stages);
+            LongAdder succeededCount = new LongAdder();
+            Set<Path> directoriesToDelete = ConcurrentHashMap.newKeySet();
+            AttributeTreeWalker treeWalker = new AttributeTreeWalker(
+                new AttributeTreeWalker.Visitor() {
+
+                    private boolean delete(Path path, BasicFileAttributes attributes) throws IOException {
+                        // Directories are deleted after their contents
+                        if (attributes.isDirectory()) {
+                            directoriesToDelete.add(path);
+                            return true;
+                        }
+                        Files.delete(path);
+                        succeededCount.increment();
+                        return false;
+                    }
+
+                    @Override
+                    public boolean visit(Path path, BasicFileAttributes attributes) throws IOException {
+                        Path parentPath = path.getParent();
+                        if (parentPath != null && directoriesToDelete.contains(parentPath))
+                            return delete(path, attributes);
+
+                        boolean isMatched = false;
+                        for (Stage stage : stagesToApply) {
+                            if (!isFileNameMatched(path, stage.fileNameMatcher))
+                                continue;
+                            if (stage.action == null)
+                                return delete(path, attributes);
+                            stage.action.apply(path, attributes);
+                            isMatched = true;
+                        }
+                        if (isMatched)
+                            succeededCount.increment();
+                        return true;
+                    }
+
+                    @Override
+                    public void postVisitDirectory(Path directory, boolean isSubtreeVisited) throws IOException {
+                        // The failures within the directory have been recorded already
+                        if (directoriesToDelete.remove(directory) && isSubtreeVisited) {
+                            Files.delete(directory);
+                            succeededCount.increment();
+                        }
+                    }
+                },
+                Integer.MAX_VALUE,
+                isPosixAttributesNeeded
+            );
+            treeWalker.walk(root, pool);
+            return new BulkOperationResult(
+                succeededCount.sum(),
+                treeWalker.getFailures(),
+                Duration.ofNanos(System.nanoTime() - startTimeInNanos)
+            );
+        }
+    }
+
+    /**
+     * Options of copying and moving trees, Eg: new TreeCopyOptions().setMaxBytesPerSecond(...).setCheckpointPath(...).
+     */
+    public static class TreeCopyOptions {
+
+        /**
+         * Listener of the progress of a copy, invoked concurrently from the copying threads.
+         */
+        @FunctionalInterface
+        public interface ProgressListener {
+
+            /**
+             * Invoked once a file, symbolic link or directory (after its contents) has been copied.
+             * @param sourcePath      Copied path.
+             * @param targetPath      Path it has been copied to.
+             * @param copiedPathCount Number of paths copied so far.
+             * @param copiedByteCount Number of bytes copied so far.
+             */
+            void onProgress(Path sourcePath, Path targetPath, long copiedPathCount, long copiedByteCount);
+        }
+
+        private int parallelism = Integer.parseInt(PropertyUtility.getProperty("utilities.FileUtility.copy.parallelism"));
+        private long maxBytesPerSecond = 0;
+        private boolean preserveAttributes = true;
+        private Path checkpointPath;
+        private ProgressListener progressListener;
+
+        /**
+         * Returns the maximum number of threads to copy with.
+         * @return Maximum number of threads.
+         */
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        /**
+         * Sets the maximum number of threads to copy with, the utilities.FileUtility.copy.parallelism property by
+         * default.
+         * @param parallelism Maximum number of threads.
+         * @return These options.
+         */
+        public TreeCopyOptions setParallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException(
+                    I18NUtility.getFormattedString(
+                        "utilities.FileUtility.nonPositiveParallelism",
+                        parallelism
+                    )
+                );
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Returns the maximum number of bytes to copy per second across all the threads.
+         * @return Maximum number of bytes per second, 0 if unlimited.
+         */
+        public long getMaxBytesPerSecond() {
+            return maxBytesPerSecond;
+        }
+
+        /**
+         * Sets the maximum number of bytes to copy per second across all the threads, unlimited by default.
+         * @param maxBytesPerSecond Maximum number of bytes per second, 0 for unlimited.
+         * @return These options.
+         */
+        public TreeCopyOptions setMaxBytesPerSecond(long maxBytesPerSecond) {
+            if (maxBytesPerSecond < 0) {
+                throw new IllegalArgumentException(
+                    I18NUtility.getFormattedString(
+                        "input.validation.invalidActionOrArgumentMessage",
+                        "maxBytesPerSecond",
+                        maxBytesPerSecond
+                    )
+                );
+            }
+            this.maxBytesPerSecond = maxBytesPerSecond;
+            return this;
+        }
+
+        /**
+         * Checks if the POSIX permissions and times of the copied paths are preserved.
+         * @return true if the attributes are preserved, else false.
+         */
+        public boolean isPreserveAttributes() {
+            return preserveAttributes;
+        }
+
+        /**
+         * Sets whether the POSIX permissions (if supported) and times of the copied paths are preserved, true by
+         * default.
+         * @param preserveAttributes true to preserve the attributes, else false.
+         * @return These options.
+         */
+        public TreeCopyOptions setPreserveAttributes(boolean preserveAttributes) {
+            this.preserveAttributes = preserveAttributes;
+            return this;
+        }
+
+        /**
+         * Returns the file recording the copied files.
+         * @return The checkpoint file, null if there isn't any.
+         */
+        public Path getCheckpointPath() {
+            return checkpointPath;
+        }
+
+        /**
+         * Sets the file recording the copied files, none by default. An interrupted copy is resumed by copying again
+         * with the same checkpoint file, which skips the files recorded in it unless their size or last modified time
+         * has changed since. It's deleted once a copy succeeds.
+         * @param checkpointPath The checkpoint file, outside the copied tree.
+         * @return These options.
+         */
+        public TreeCopyOptions setCheckpointPath(Path checkpointPath) {
+            this.checkpointPath = checkpointPath;
+            return this;
+        }
+
+        /**
+         * Returns the listener of the progress of the copy.
+         * @return The progress listener, null if there isn't any.
+         */
+        public ProgressListener getProgressListener() {
+            return progressListener;
+        }
+
+        /**
+         * Sets the listener of the progress of the copy, none by default.
+         * @param progressListener The progress listener.
+         * @return These options.
+         */
+        public TreeCopyOptions setProgressListener(ProgressListener progressListener) {
+            this.progressListener = progressListener;
+            return this;
+        }
+    }
+
+    private static final Logger logger = LogManager.getLogger(FileUtility.class);
+    private static final PathTrie<WatchServiceRegistrationInfo> watchServiceRegistrationInfoTrie = new PathTrie<>();
+    private static final ConcurrentHashMap<String, Queue<WatchEvent<?>>> watchServiceEventsMap = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<WatchKey, WatchServiceRegistrationInfo> watchKeyToWatchServiceRegistrationInfoMap = new ConcurrentHashMap<>();
+    private static final Set<Path> watchServiceDirectoriesBeingRegistered = ConcurrentHashMap.newKeySet();
+    private static final ConcurrentHashMap<FileSystem, WatchServiceEventDispatcher> fileSystemToWatchServiceEventDispatcherMap = new ConcurrentHashMap<>();
+    private static volatile WatchEventConsumerExecutor watchEventConsumerExecutor;
+    private static volatile WatchEventDebouncer watchEventDebouncer;
+    private static final PathTrie<WatchedRootMetricsRecorder> watchedRootMetricsRecorderTrie = new PathTrie<>();
+    private static final int watchServiceEventsQueueCapacity = Integer.parseInt(
+        PropertyUtility.getProperty("utilities.FileUtility.watchservice.events.queue.capacity")
+    );
+    private static final int consumerLatencySampleSize = Integer.parseInt(
+        PropertyUtility.getProperty("utilities.FileUtility.watchservice.metrics.latency.samples")
+    );
+    private static final WatchServiceMetricsRegistry watchServiceMetricsRegistry = new WatchServiceMetricsRegistry(
+        watchServiceRegistrationInfoTrie::size,
+        fileSystemToWatchServiceEventDispatcherMap::size
+    );
+
+    static {
+        watchServiceMetricsRegistry.registerMBean();
+    }
+    private static final ForkJoinPool watchServiceRegisteringPool = new ForkJoinPool(
+        Integer.parseInt(PropertyUtility.getProperty("utilities.FileUtility.watchservice.registration.parallelism"))
+    );
+
+    /**
+     * Creates a specific number of folders with the specified name and prefix/suffix
+     *
+     * @param path     The path where the folders have to be created
+     * @param name     The base name of the folders to be created
+     * @param isPrefix If true append the number to the prefix of the folder name, else append it as the suffix.
+     * @param count    The number of folders to be created, nothing is created if it's not positive
+     */
+    public static void createFolders(Path path, String name, boolean isPrefix, int count) {
+        if (count <= 0)
+            return;
+        String escapedName = name.replace("%", "%%");
+        BulkOperationResult bulkOperationResult = createFolders(
+            path,
+            isPrefix ? "%d".concat(escapedName) : escapedName.concat("%d"),
+            1,
+            count + 1,
+            Integer.parseInt(PropertyUtility.getProperty("utilities.FileUtility.create.parallelism"))
+        );
+        if(!bulkOperationResult.isSuccessful())
+            throw getFailedPathsException(
+                RuntimeException::new,
+                "utilities.FileUtility.failedToCreatePaths",
+                path,
+                bulkOperationResult.getFailures()
+            );
+    }
+
+    /**
+     * Creates a folder for every number in a range, named by formatting a template with the number, Eg: The template
+     * "shard-%05d/data" creates shard-00000/data, shard-00001/data and so on.
+     *
+     * @param path           The path where the folders have to be created, it's created if it doesn't exist.
+     * @param template       Format string of the relative path of a folder, formatted with the number in the root
+     *                       locale, so that the names don't depend on the default locale.
+     * @param startInclusive First number of the range.
+     * @param endExclusive   Number following the last number of the range.
+     * @param parallelism    Maximum number of threads to create the folders with.
+     * @return The number of created folders, parents included, and the folders that couldn't be created.
+     */
+    public static BulkOperationResult createFolders(Path path, String template, int startInclusive, int endExclusive, int parallelism) {
+        Objects.requireNonNull(template);
+        if(endExclusive < startInclusive) {
+            throw new IllegalArgumentException(
+                I18NUtility.getFormattedString(
+                    "input.validation.invalidActionOrArgumentMessage",
+                    "range",
+                    String.format(Locale.ROOT, "[%d, %d)", startInclusive, endExclusive)
+                )
+            );
+        }
+        List<String> relativePaths = IntStream.range(startInclusive, endExclusive)
+                .mapToObj(number -> String.format(Locale.ROOT, template, number))
+                .collect(Collectors.toList());
+        return createFolders(path, relativePaths, parallelism);
+    }
+
+    /**
+     * Creates folders from their paths relative to a parent folder. The hierarchy is built upfront so that every parent
+     * is created exactly once and all the sub folders of a parent are created from the same thread, while sibling
+     * subtrees are created concurrently. Folders that exist already are counted as created.
+     *
+     * The creation doesn't stop at the first folder that cannot be created, the remaining folders are still created
+     * and the failures are reported in the result. The sub folders of a folder that couldn't be created aren't
+     * attempted.
+     *
+     * @param path          The path where the folders have to be created, it's created if it doesn't exist.
+     * @param relativePaths Paths of the folders to create, relative to the specified path.
+     * @param parallelism   Maximum number of threads to create the folders with.
+     * @return The number of created folders, parents included, and the folders that couldn't be created.
+     */
+    public static BulkOperationResult createFolders(Path path, Collection<String> relativePaths, int parallelism) {
+        // Input validation
+        Objects.requireNonNull(path);
+        Objects.requireNonNull(relativePaths);
+        if(parallelism <= 0) {
+            throw new IllegalArgumentException(
+                I18NUtility.getFormattedString(
+                    "utilities.FileUtility.nonPositiveParallelism",
+                    parallelism
+                )
+            );
+        }
+
+        Path parentPath = path.toAbsolutePath().normalize();
+        Map<Path, Set<Path>> parentToChildrenMap = new HashMap<>();
+        for (String relativePathString : relativePaths) {
+            Path folderPath = parentPath.resolve(relativePathString).normalize();
+            if(!folderPath.startsWith(parentPath) || folderPath.equals(parentPath)) {
+                throw new IllegalArgumentException(
+                    I18NUtility.getFormattedString(
+                        "utilities.FileUtility.pathNotWithinParentPath",
+                        relativePathString,
+                        parentPath
+                    )
+                );
+            }
+            // Stop at the first ancestor added already, its own ancestors have been added along with it
+            while (!folderPath.equals(parentPath)) {
+                Path folderParentPath = folderPath.getParent();
+                if(!parentToChildrenMap.computeIfAbsent(folderParentPath, newParentPath -> new LinkedHashSet<>())
+                        .add(folderPath)) {
+                    break;
+                }
+                folderPath = folderParentPath;
+            }
+        }
+
+        long startTimeInNanos = System.nanoTime();
+        LongAdder createdCount = new LongAdder();
+        Map<Path, IOException> failures = new ConcurrentHashMap<>();
+        try {
+            Files.createDirectories(parentPath);
+            if(!parentToChildrenMap.isEmpty()) {
+                ForkJoinPool creatingPool = new ForkJoinPool(parallelism);
+                try {
+                    creatingPool.invoke(new FolderCreatingTask(parentPath, parentToChildrenMap, createdCount, failures));
+                } finally {
+                    creatingPool.shutdown();
+                }
+            }
+        } catch (IOException e) {
+            failures.put(parentPath, e);
+        }
+        return new BulkOperationResult(
+            createdCount.sum(),
+            failures,
+            Duration.ofNanos(System.nanoTime() - startTimeInNanos)
+        );
+    }
+
+    /**
+     * Sets permissions to a specified file/folder and all its contents if needed
+     *
+     * @param path           The path of the folder/file whose permission needs to be changed
+     * @param permissions    The new permission to set to the folder/file specified
+     * @param setRecursively If true and a folder is specified, it sets the specified permissions to all the contents
+     *                       in it, recursively.
+     *                       If false and a folder is specified, It only sets the specified permission to the folder
+     *                       specified and not any of its contents.
+     *                       If a file is specified, irrespective, this parameter doesn't have any effect on it.
+     */
+    public static void setPermissions(Path path, Set<PosixFilePermission> permissions, boolean setRecursively) {
+        if (setRecursively) {
+            AttributeTreeWalker treeWalker = new AttributeTreeWalker(
+                (node, attributes) -> {
+                    // Nodes that have the permissions already aren't updated, symbolic links are updated via the target
+                    if (attributes.isSymbolicLink()
+                            || !AttributeTreeWalker.getPosixFileAttributes(node, attributes).permissions().equals(permissions))
+                        Files.setPosixFilePermissions(node, permissions);
+                    return true;
+                },
+                Integer.MAX_VALUE,
+                true
+            );
+            if (!treeWalker.walk(path, ForkJoinPool.commonPool()))
+                throw getFailedPathsException(
+                    RuntimeException::new,
+                    "utilities.FileUtility.failedToVisitPaths",
+                    path,
+                    treeWalker.getFailures()
+                );
+        }
+        else {
+            try {
+                Files.setPosixFilePermissions(path, permissions);
+            } catch (IOException e) {
+                logger.error(e);
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Creates an exception reporting the paths that an operation failed on, with the failures as suppressed
+     * exceptions.
+     *
+     * @param exceptionFunction Creates the exception from its message.
+     * @param messageKey        Key of the message, formatted with the number of failures and the path.
+     * @param path              The path the operation was performed on.
+     * @param failures          Paths the operation failed on, mapped to the reason.
+     * @param <T>               Type of the exception.
+     * @return The logged exception.
+     */
+    private static <T extends Exception> T getFailedPathsException(Function<String, T> exceptionFunction,
+            String messageKey, Path path, Map<Path, IOException> failures) {
+        T exception = exceptionFunction.apply(
+            I18NUtility.getFormattedString(
+                messageKey,
+                failures.size(),
+                path
+            )
+        );
+        failures.values()
+                .forEach(exception::addSuppressed);
+        logger.error(exception);
+        return exception;
+    }
+
+    /**
+     * Lists the immediate folder contents/file that match the specified pattern
+     *
+     * @param path          The path to find file name matches in.
+     * @param patternString The pattern to match the file name with.
+     * @return List of Path objects of the files/folders whose name matches the specified pattern.
+     */
+    public static List<Path> listMatches(Path path, String patternString) {
+        return listMatches(path, RegexUtility.getPattern(patternString, 0));
+    }
+
+    /**
+     * Lists the immediate folder contents/file whose name matches the specified compiled pattern
+     *
+     * @param path    The path to find file name matches in.
+     * @param pattern The compiled pattern to match the file name with.
+     * @return List of Path objects of the files/folders whose name matches the specified pattern.
+     */
+    public static List<Path> listMatches(Path path, Pattern pattern) {
+        return getContentMatches(path, getFileNameMatcher(pattern), false);
+    }
+
+    /**
+     * Lists the immediate folder contents/file whose name is matched by the specified PathMatcher, Eg: A glob created
+     * with path.getFileSystem().getPathMatcher("glob:*.txt").
+     *
+     * @param path            The path to find file name matches in.
+     * @param fileNameMatcher The matcher to match the file name with.
+     * @return List of Path objects of the files/folders whose name is matched.
+     */
+    public static List<Path> listMatches(Path path, PathMatcher fileNameMatcher) {
+        return getContentMatches(path, fileNameMatcher, false);
+    }
+
+    /**
+     * Lists the recursive folder contents/file that match the specified pattern
+     *
+     * @param path          The path to recursively find file name matches in.
+     * @param patternString The pattern to match the file name with.
+     * @return List of Path objects of the files/folder contents whose name matches the specified pattern.
+     */
+    public static List<Path> treeMatches(Path path, String patternString) {
+        return treeMatches(path, RegexUtility.getPattern(patternString, 0));
+    }
+
+    /**
+     * Lists the recursive folder contents/file whose name matches the specified compiled pattern
+     *
+     * @param path    The path to recursively find file name matches in.
+     * @param pattern The compiled pattern to match the file name with.
+     * @return List of Path objects of the files/folder contents whose name matches the specified pattern.
+     */
+    public static List<Path> treeMatches(Path path, Pattern pattern) {
+        return getContentMatches(path, getFileNameMatcher(pattern), true);
+    }
+
+    /**
+     * Lists the recursive folder contents/file whose name is matched by the specified PathMatcher, Eg: A glob created
+     * with path.getFileSystem().getPathMatcher("glob:*.txt").
+     *
+     * @param path            The path to recursively find file name matches in.
+     * @param fileNameMatcher The matcher to match the file name with.
+     * @return List of Path objects of the files/folder contents whose name is matched.
+     */
+    public static List<Path> treeMatches(Path path, PathMatcher fileNameMatcher) {
+        return getContentMatches(path, fileNameMatcher, true);
+    }
+
+    /**
+     * Lazily streams the immediate folder contents/file whose name matches the specified compiled pattern. Matches are
+     * yielded as the directory is read, so short-circuiting operations like limit() or findFirst() stop reading early.
+     * The returned stream holds an open directory handle and has to be closed, preferably via try-with-resources.
+     *
+     * @param path    The path to find file name matches in.
+     * @param pattern The compiled pattern to match the file name with.
+     * @return Stream of Path objects of the files/folders whose name matches the specified pattern. An
+     *         UncheckedIOException is thrown while consuming it if a directory can't be read.
+     */
+    public static Stream<Path> streamListMatches(Path path, Pattern pattern) {
+        return streamContentMatches(path, getFileNameMatcher(pattern), false);
+    }
+
+    /**
+     * Lazily streams the immediate folder contents/file whose name is matched by the specified PathMatcher. Matches are
+     * yielded as the directory is read, so short-circuiting operations like limit() or findFirst() stop reading early.
+     * The returned stream holds an open directory handle and has to be closed, preferably via try-with-resources.
+     *
+     * @param path            The path to find file name matches in.
+     * @param fileNameMatcher The matcher to match the file name with.
+     * @return Stream of Path objects of the files/folders whose name is matched. An UncheckedIOException is thrown
+     *         while consuming it if a directory can't be read.
+     */
+    public static Stream<Path> streamListMatches(Path path, PathMatcher fileNameMatcher) {
+        return streamContentMatches(path, fileNameMatcher, false);
+    }
+
+    /**
+     * Lazily streams the recursive folder contents/file whose name matches the specified compiled pattern. The tree is
+     * walked depth first as the stream is consumed, holding at most one open directory handle per level, so
+     * short-circuiting operations like limit() or findFirst() stop the walk early. The returned stream has to be
+     * closed, preferably via try-with-resources.
+     *
+     * @param path    The path to recursively find file name matches in.
+     * @param pattern The compiled pattern to match the file name with.
+     * @return Stream of Path objects of the files/folder contents whose name matches the specified pattern. An
+     *         UncheckedIOException is thrown while consuming it if a directory can't be read.
+     */
+    public static Stream<Path> streamTreeMatches(Path path, Pattern pattern) {
+        return streamContentMatches(path, getFileNameMatcher(pattern), true);
+    }
+
+    /**
+     * Lazily streams the recursive folder contents/file whose name is matched by the specified PathMatcher. The tree is
+     * walked depth first as the stream is consumed, holding at most one open directory handle per level, so
+     * short-circuiting operations like limit() or findFirst() stop the walk early. The returned stream has to be
+     * closed, preferably via try-with-resources.
+     *
+     * @param path            The path to recursively find file name matches in.
+     * @param fileNameMatcher The matcher to match the file name with.
+     * @return Stream of Path objects of the files/folder contents whose name is matched. An UncheckedIOException is
+     *         thrown while consuming it if a directory can't be read.
+     */
+    public static Stream<Path> streamTreeMatches(Path path, PathMatcher fileNameMatcher) {
+        return streamContentMatches(path, fileNameMatcher, true);
+    }
+
+    /**
+     * Creates a PathMatcher that matches file names with a compiled pattern. Matchers created from the same pattern
+     * can be used concurrently.
+     *
+     * @param pattern The compiled pattern to match the file name with.
+     * @return PathMatcher matching the file name with the pattern.
+     */
+    private static PathMatcher getFileNameMatcher(Pattern pattern) {
+        Objects.requireNonNull(pattern);
+        return fileName -> pattern.matcher(fileName.toString()).matches();
+    }
+
+    /**
+     * Checks if the name of a path is matched by a PathMatcher.
+     *
+     * @param path            The path whose name is to be matched.
+     * @param fileNameMatcher The matcher to match the file name with.
+     * @return true if the path has a name and it's matched, else false.
+     */
+    private static boolean isFileNameMatched(Path path, PathMatcher fileNameMatcher) {
+        Path fileName = path.getFileName();
+        return fileName != null && fileNameMatcher.matches(fileName);
+    }
+
+    /**
+     * Lists the recursive/immediate folder contents/file whose name is matched by the specified PathMatcher
+     *
+     * @param path            The path to recursively find file name matches in.
+     * @param fileNameMatcher The matcher to match the file name with.
+     * @param searchTree      If a directory is specified and this parameter is true, it searches recursively, else it
+     *                        only searches the immediate contents of the folder. This parameter is not applicable if a
+     *                        file path is specified.
+     * @return List of Path objects of the files/folder contents whose name is matched.
+     */
+    private static List<Path> getContentMatches(Path path, PathMatcher fileNameMatcher, boolean searchTree) {
+        Objects.requireNonNull(fileNameMatcher);
+        List<Path> matchList = new ArrayList<>();
+        AttributeTreeWalker treeWalker = new AttributeTreeWalker(
+            (content, attributes) -> {
+                // The immediate contents of a directory don't include the directory itself
+                boolean isListedDirectory = !searchTree && attributes.isDirectory() && content.equals(path);
+                if (!isListedDirectory && isFileNameMatched(content, fileNameMatcher))
+                    matchList.add(content);
+                return true;
+            },
+            searchTree ? Integer.MAX_VALUE : 1
+        );
+        if (!treeWalker.walk(path))
+            throw getFailedPathsException(
+                RuntimeException::new,
+                "utilities.FileUtility.failedToVisitPaths",
+                path,
+                treeWalker.getFailures()
+            );
+        return matchList;
+    }
+
+    /**
+     * Lazily streams the recursive/immediate folder contents/file whose name is matched by the specified PathMatcher
+     *
+     * @param path            The path to recursively find file name matches in.
+     * @param fileNameMatcher The matcher to match the file name with.
+     * @param searchTree      If a directory is specified and this parameter is true, it searches recursively, else it
+     *                        only searches the immediate contents of the folder. This parameter is not applicable if a
+     *                        file path is specified.
+     * @return Stream of Path objects of the files/folder contents whose name is matched, it has to be closed.
+     */
+    private static Stream<Path> streamContentMatches(Path path, PathMatcher fileNameMatcher, boolean searchTree) {
+        Objects.requireNonNull(fileNameMatcher);
+        Stream<Path> contents;
+        if (Files.isDirectory(path)) {
+            try {
+                contents = searchTree ? Files.walk(path) : Files.list(path);
+            } catch (IOException e) {
+                logger.error(e);
+                throw new RuntimeException(e);
+            }
+        } else
+            contents = Stream.of(path);
+        return contents.filter(content -> isFileNameMatched(content, fileNameMatcher));
+    }
+
+    /**
+     * Deletes the specified folder/file
+     *
+     * @param path The folder/file to delete
+     */
+    public static void deleteRecursively(Path path) {
+        BulkOperationResult bulkOperationResult = deleteRecursively(
+            path,
+            Integer.parseInt(PropertyUtility.getProperty("utilities.FileUtility.delete.parallelism"))
+        );
+        if(!bulkOperationResult.isSuccessful())
+            throw getFailedPathsException(
+                RuntimeException::new,
+                "utilities.FileUtility.failedToDeletePaths",
+                path,
+                bulkOperationResult.getFailures()
+            );
+    }
+
+    /**
+     * Deletes the specified folder/file along with all of its contents. Sibling sub directories are deleted
+     * concurrently, each directory is deleted after its contents. Symbolic links are deleted, but not followed.
+     *
+     * The deletion doesn't stop at the first path that cannot be deleted, the remaining paths are still deleted and
+     * the failures are reported in the result. The ancestors of a path that couldn't be deleted aren't deleted either.
+     * @param path        The folder/file to delete.
+     * @param parallelism Maximum number of threads to delete with.
+     * @return The number of deleted paths and the paths that couldn't be deleted.
+     */
+    public static BulkOperationResult deleteRecursively(Path path, int parallelism) {
+        // Input validation
+        Objects.requireNonNull(path);
+        if(parallelism <= 0) {
+            throw new IllegalArgumentException(
+                I18NUtility.getFormattedString(
+                    "utilities.FileUtility.nonPositiveParallelism",
+                    parallelism
+                )
+            );
+        }
+
+        long startTimeInNanos = System.nanoTime();
+        LongAdder deletedCount = new LongAdder();
+        AttributeTreeWalker treeWalker = new AttributeTreeWalker(
+            new AttributeTreeWalker.Visitor() {
+                @Override
+                public boolean visit(Path node, BasicFileAttributes attributes) throws IOException {
+                    if (!attributes.isDirectory()) {
+                        Files.delete(node);
+                        deletedCount.increment();
+                    }
+                    return true;
+                }
+
+                @Override
+                public void postVisitDirectory(Path directory, boolean isSubtreeVisited) throws IOException {
+                    // The failures within the directory have been recorded already
+                    if (isSubtreeVisited) {
+                        Files.delete(directory);
+                        deletedCount.increment();
+                    }
+                }
+            },
+            Integer.MAX_VALUE
+        );
+        ForkJoinPool deletingPool = new ForkJoinPool(parallelism);
+        try {
+            treeWalker.walk(path, deletingPool);
+        } finally {
+            deletingPool.shutdown();
+        }
+        return new BulkOperationResult(
+            deletedCount.sum(),
+            treeWalker.getFailures(),
+            Duration.ofNanos(System.nanoTime() - startTimeInNanos)
+        );
+    }
+
+    /**
+     * Copies the specified folder/file along with all of its contents with the default options.
+     *
+     * @param sourcePath The folder/file to copy.
+     * @param targetPath The path to copy it to.
+     * @return The number of copied paths and the paths that couldn't be copied.
+     */
+    public static BulkOperationResult copyRecursively(Path sourcePath, Path targetPath) {
+        return copyRecursively(sourcePath, targetPath, new TreeCopyOptions());
+    }
+
+    /**
+     * Copies the specified folder/file along with all of its contents. Sibling sub directories are copied
+     * concurrently and file contents are transferred without moving them through the JVM heap. Existing files are
+     * replaced and symbolic links are copied, but not followed. Other special files (Eg: named pipes and sockets)
+     * aren't copied and are reported as failures.
+     *
+     * The copy doesn't stop at the first path that cannot be copied, the remaining paths are still copied and the
+     * failures are reported in the result.
+     *
+     * @param sourcePath The folder/file to copy.
+     * @param targetPath The path to copy it to.
+     * @param options    Parallelism, throttling, checkpointing, progress reporting and attribute preservation of the
+     *                   copy.
+     * @return The number of copied paths and the paths that couldn't be copied.
+     */
+    public static BulkOperationResult copyRecursively(Path sourcePath, Path targetPath, TreeCopyOptions options) {
+        // Input validation
+        Objects.requireNonNull(sourcePath);
+        Objects.requireNonNull(targetPath);
+        Objects.requireNonNull(options);
+        Path absoluteSourcePath = sourcePath.toAbsolutePath().normalize();
+        Path absoluteTargetPath = targetPath.toAbsolutePath().normalize();
+        if (absoluteTargetPath.startsWith(absoluteSourcePath)) {
+            throw new IllegalArgumentException(
+                I18NUtility.getFormattedString(
+                    "utilities.FileUtility.targetPathWithinSourcePath",
+                    targetPath,
+                    sourcePath
+                )
+            );
+        }
+
+        return TreeCopier.copy(absoluteSourcePath, absoluteTargetPath, options);
+    }
+
+    /**
+     * Moves the specified folder/file along with all of its contents. It's renamed if the target path doesn't exist
+     * and is on the same file store, else it's copied (refer copyRecursively) and the source is deleted once all of it
+     * has been copied, i.e. it isn't deleted if it contains special files that cannot be copied. A renamed path is
+     * reported as a single moved path with no copied bytes, a rename failing for any other reason than the file store
+     * is reported as the failure of the source path.
+     *
+     * @param sourcePath The folder/file to move.
+     * @param targetPath The path to move it to.
+     * @param options    Parallelism, throttling, checkpointing, progress reporting and attribute preservation of the
+     *                   copy, if it has to be copied.
+     * @return The number of moved paths and the paths that couldn't be copied or deleted.
+     */
+    public static BulkOperationResult moveRecursively(Path sourcePath, Path targetPath, TreeCopyOptions options) {
+        // Input validation
+        Objects.requireNonNull(sourcePath);
+        Objects.requireNonNull(targetPath);
+        Objects.requireNonNull(options);
+
+        long startTimeInNanos = System.nanoTime();
+        if (Files.notExists(targetPath, LinkOption.NOFOLLOW_LINKS)) {
+            try {
+                Files.move(sourcePath, targetPath, StandardCopyOption.ATOMIC_MOVE);
+                if (options.getProgressListener() != null)
+                    options.getProgressListener().onProgress(sourcePath, targetPath, 1, 0);
+                return new BulkOperationResult(1, Collections.emptyMap(), Duration.ofNanos(System.nanoTime() - startTimeInNanos));
+            } catch (AtomicMoveNotSupportedException e) {
+                // The target path is on another file store, or file system
+                logger.debug(e);
+            } catch (IOException e) {
+                // Eg: The source path is inaccessible or no longer exists, which copying it wouldn't fix
+                logger.warn(e);
+                return new BulkOperationResult(
+                    0,
+                    Collections.singletonMap(sourcePath, e),
+                    Duration.ofNanos(System.nanoTime() - startTimeInNanos)
+                );
+            }
+        }
+
+        BulkOperationResult copyResult = copyRecursively(sourcePath, targetPath, options);
+        if (!copyResult.isSuccessful())
+            return copyResult;
+        BulkOperationResult deleteResult = deleteRecursively(sourcePath, options.getParallelism());
+        return new BulkOperationResult(
+            copyResult.getSucceededCount(),
+            deleteResult.getFailures(),
+            Duration.ofNanos(System.nanoTime() - startTimeInNanos)
+        );
+    }
+
+    /**
+     * Deletes contents specified by the path input if the name matches the provided pattern
+     *
+     * @param path           The path to perform the matched deletion in.
+     * @param pattern        The pattern to match the file/folder name with.
+     * @param setRecursively If a directory is specified and this parameter is true, it matches recursively and deletes,
+     *                       else it checks the specified folder/file name and deletes it if it matches the specified
+     *                       pattern. This parameter is not applicable if a file path is specified.
+     */
+    public static void deleteIfMatches(Path path, String pattern, boolean setRecursively) {
+        PathMatcher fileNameMatcher = getFileNameMatcher(RegexUtility.getPattern(pattern, 0));
+        if (!setRecursively) {
+            if (isFileNameMatched(path, fileNameMatcher))
+                FileUtility.deleteRecursively(path);
+            return;
+        }
+        BulkOperationResult bulkOperationResult = deleteIfMatches(
+            path,
+            fileNameMatcher,
+            Integer.parseInt(PropertyUtility.getProperty("utilities.FileUtility.delete.parallelism"))
+        );
+        if (!bulkOperationResult.isSuccessful())
+            throw getFailedPathsException(
+                RuntimeException::new,
+                "utilities.FileUtility.failedToDeletePaths",
+                path,
+                bulkOperationResult.getFailures()
+            );
+    }
+
+    /**
+     * Recursively deletes the contents of the specified path whose name is matched, the path itself included. The walk
+     * doesn't descend into a matched directory to match its contents, they are deleted along with it. Sibling sub
+     * directories are walked concurrently, so the cost is proportional to the surviving tree and the deleted
+     * directories instead of the number of matches beneath each other.
+     *
+     * @param path            The path to perform the matched deletion in.
+     * @param fileNameMatcher The matcher to match the file/folder name with.
+     * @param parallelism     Maximum number of threads to walk and delete with.
+     * @return The number of deleted paths and the paths that couldn't be deleted or walked.
+     */
+    public static BulkOperationResult deleteIfMatches(Path path, PathMatcher fileNameMatcher, int parallelism) {
+        return new TreeOperationPipeline()
+                .addDeleteStage(fileNameMatcher)
+                .execute(path, parallelism);
+    }
+
+    /**
+     * Changes the permission of the contents specified by the path input if the name matches the provided pattern
+     *
+     * @param path           The path to perform the matched permission change in.
+     * @param permissions    The permissions to set the matched folders/files with
+     * @param pattern        The pattern to match the file/folder name with.
+     * @param setRecursively If a directory is specified and this parameter is true, it matches recursively and sets the
+     *                       specified permissions, else it checks the specified folder/file name and sets the
+     *                       permissions if it matches the specified pattern. This parameter is not applicable if a file
+     *                       path is specified.
+     */
+    public static void setPermissionsIfMatches(Path path, Set<PosixFilePermission> permissions, String pattern, boolean setRecursively) {
+        FileUtility.listMatches(path, pattern)
+                .parallelStream()
+                .forEach(content -> FileUtility.setPermissions(content, permissions, setRecursively));
+    }
+
+    /**
+     * Sets the attribute of the contents specified by the path input if the name matches the provided pattern
+     *
+     * @param path           The path to set the attribute in.
+     * @param attribute      The attribute to set the matched folders/files with
+     * @param pattern        The pattern to match the file/folder name with.
+     * @param setRecursively If a directory is specified and this parameter is true, it matches recursively and sets the
+     *                       specified attribute, else it checks the specified folder/file name and sets the
+     *                       attribute if it matches the specified pattern. This parameter is not applicable if a file
+     *                       path is specified.
+     * @throws IOException If the attribute couldn't be set on some of the matched contents, the failures are
+     *                     suppressed in it.
+     */
+    public static void setAttributeIfMatches(Path path, FileAttribute<?> attribute, String pattern, boolean setRecursively) throws IOException {
+        PathMatcher fileNameMatcher = getFileNameMatcher(RegexUtility.getPattern(pattern, 0));
+        AttributeTreeWalker treeWalker = new AttributeTreeWalker(
+            (content, attributes) -> {
+                if (isFileNameMatched(content, fileNameMatcher))
+                    Files.setAttribute(content, attribute.name(), attribute.value());
+                return true;
+            },
+            setRecursively ? Integer.MAX_VALUE : 0
+        );
+        if (!treeWalker.walk(path, ForkJoinPool.commonPool()))
+            throw getFailedPathsException(
+                IOException::new,
+                "utilities.FileUtility.failedToVisitPaths",
+                path,
+                treeWalker.getFailures()
+            );
+    }
+
+    /**
+     * Finds the regular files with identical contents within the specified path.
+     *
+     * @param path The folder to find duplicates in.
+     * @return Groups of paths of files with identical contents.
+     */
+    public static List<List<Path>> findDuplicateFiles(Path path) {
+        return findDuplicateFiles(
+            path,
+            null,
+            Integer.parseInt(PropertyUtility.getProperty("utilities.FileUtility.duplicates.parallelism"))
+        );
+    }
+
+    /**
+     * Finds the regular files with identical contents within the specified path. Files are grouped by size first, only
+     * files of the same size are hashed partially and only files whose partial hashes collide are hashed fully, both
+     * concurrently. Empty files and symbolic links aren't reported, files that can't be read are skipped with a
+     * warning.
+     *
+     * The hashes can be persisted in an index keyed by file key (Eg: device and inode), size and last modified time, so
+     * that re-runs only hash the files modified since. Only the files found in the folder are kept in the index, i.e.
+     * an index is meant to be reused for the same folder.
+     *
+     * @param path          The folder to find duplicates in.
+     * @param hashIndexPath File the hashes are persisted to and reused from, null to not persist them.
+     * @param parallelism   Maximum number of threads to walk and hash with.
+     * @return Groups of paths of files with identical contents, each group and the groups sorted by path.
+     */
+    public static List<List<Path>> findDuplicateFiles(Path path, Path hashIndexPath, int parallelism) {
+        // Input validation
+        Objects.requireNonNull(path);
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException(
+                I18NUtility.getFormattedString(
+                    "utilities.FileUtility.nonPositiveParallelism",
+                    parallelism
+                )
+            );
+        }
+
+        ContentHashIndex contentHashIndex = hashIndexPath == null
+                ? new ContentHashIndex()
+                : ContentHashIndex.load(hashIndexPath);
+        Map<Path, BasicFileAttributes> pathToAttributesMap = new ConcurrentHashMap<>();
+        Map<Long, List<Path>> sizeToPathsMap = new ConcurrentHashMap<>();
+        AttributeTreeWalker treeWalker = new AttributeTreeWalker(
+            (node, attributes) -> {
+                if (attributes.isRegularFile() && attributes.size() > 0) {
+                    contentHashIndex.markVisited(node, attributes);
+                    pathToAttributesMap.put(node, attributes);
+                    sizeToPathsMap.computeIfAbsent(attributes.size(), size -> Collections.synchronizedList(new ArrayList<>()))
+                            .add(node);
+                }
+                return true;
+            },
+            Integer.MAX_VALUE
+        );
+
+        List<List<Path>> duplicateFileGroups;
+        ForkJoinPool hashingPool = new ForkJoinPool(parallelism);
+        try {
+            treeWalker.walk(path, hashingPool);
+            treeWalker.getFailures()
+                    .forEach((failedPath, e) -> logger.warn(
+                        I18NUtility.getFormattedString(
+                            "utilities.FileUtility.skippingUnreadablePathMessage",
+                            failedPath,
+                            e
+                        )
+                    ));
+            List<List<Path>> sameSizeFileGroups = sizeToPathsMap.values()
+                    .stream()
+                    .filter(sameSizePaths -> sameSizePaths.size() > 1)
+                    .collect(Collectors.toList());
+            List<List<Path>> samePartialHashFileGroups = groupByContentHash(
+                sameSizeFileGroups,
+                pathToAttributesMap,
+                contentHashIndex,
+                false,
+                hashingPool
+            );
+            duplicateFileGroups = groupByContentHash(
+                samePartialHashFileGroups,
+                pathToAttributesMap,
+                contentHashIndex,
+                true,
+                hashingPool
+            );
+        } finally {
+            hashingPool.shutdown();
+        }
+
+        if (hashIndexPath != null) {
+            try {
+                contentHashIndex.save(hashIndexPath);
+            } catch (IOException e) {
+                logger.error(e);
+                throw new RuntimeException(e);
+            }
+        }
+        duplicateFileGroups.forEach(Collections::sort);
+        duplicateFileGroups.sort(Comparator.comparing(duplicateFileGroup -> duplicateFileGroup.get(0)));
+        return duplicateFileGroups;
+    }
+
+    /**
+     * Splits groups of files by their partial/full content hashes, the files are hashed concurrently.
+     *
+     * @param fileGroups          Groups of files to split.
+     * @param pathToAttributesMap Attributes of the files.
+     * @param contentHashIndex    Index to get the hashes from.
+     * @param isFullHash          If true the files are split by their full hashes, else by their partial hashes.
+     * @param hashingPool         Pool to hash the files on.
+     * @return Groups of more than one file with the same hash, files that couldn't be hashed are left out.
+     */
+    private static List<List<Path>> groupByContentHash(List<List<Path>> fileGroups, Map<Path, BasicFileAttributes> pathToAttributesMap,
+            ContentHashIndex contentHashIndex, boolean isFullHash, ForkJoinPool hashingPool) {
+        Map<Path, CompletableFuture<byte[]>> pathToHashFutureMap = new HashMap<>();
+        fileGroups.forEach(fileGroup -> fileGroup.forEach(filePath -> pathToHashFutureMap.put(
+            filePath,
+            CompletableFuture.supplyAsync(
+                () -> {
+                    BasicFileAttributes attributes = pathToAttributesMap.get(filePath);
+                    try {
+                        return isFullHash
+                                ? contentHashIndex.getFullHash(filePath, attributes)
+                                : contentHashIndex.getPartialHash(filePath, attributes);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                },
+                hashingPool
+            )
+        )));
+
+        List<List<Path>> sameHashFileGroups = new ArrayList<>();
+        for (List<Path> fileGroup : fileGroups) {
+            Map<ByteBuffer, List<Path>> hashToPathsMap = new HashMap<>();
+            for (Path filePath : fileGroup) {
+                try {
+                    byte[] hash = pathToHashFutureMap.get(filePath).join();
+                    hashToPathsMap.computeIfAbsent(ByteBuffer.wrap(hash), newHash -> new ArrayList<>())
+                            .add(filePath);
+                } catch (CompletionException e) {
+                    logger.warn(
+                        I18NUtility.getFormattedString(
+                            "utilities.FileUtility.skippingUnreadablePathMessage",
+                            filePath,
+                            e.getCause()
+                        )
+                    );
+                }
+            }
+            hashToPathsMap.values()
+                    .stream()
+                    .filter(sameHashPaths -> sameHashPaths.size() > 1)
+                    .forEach(sameHashFileGroups::add);
+        }
+        return sameHashFileGroups;
+    }
+
+    /**
+     * Computes the disk usage of the specified folder and all of its sub folders.
+     *
+     * @param path The folder to compute the disk usage of.
+     * @return Disk usage of the folder.
+     */
+    public static DiskUsageNode computeDiskUsage(Path path) {
+        return computeDiskUsage(
+            path,
+            Integer.parseInt(PropertyUtility.getProperty("utilities.FileUtility.diskusage.parallelism"))
+        );
+    }
+
+    /**
+     * Computes the disk usage of the specified folder and all of its sub folders, the way du does. The totals of
+     * sibling sub folders are aggregated concurrently and rolled up once all of their contents have been visited. The
+     * folders that can't be read are skipped with a warning.
+     *
+     * The returned tree can be kept up to date from the events of a watch registration of the same folder, Eg:
+     * registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(path, maxDepth,
+     * consumer.andThen(diskUsageNode::updateFromWatchEvent), ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY).
+     *
+     * @param path        The folder to compute the disk usage of.
+     * @param parallelism Maximum number of threads to walk the folder with.
+     * @return Disk usage of the folder.
+     */
+    public static DiskUsageNode computeDiskUsage(Path path, int parallelism) {
+        // Input validation
+        Objects.requireNonNull(path);
+        if (!Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+            throw new IllegalArgumentException(
+                I18NUtility.getFormattedString(
+                    "utilities.FileUtility.pathNotADirectory",
+                    path
+                )
+            );
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException(
+                I18NUtility.getFormattedString(
+                    "utilities.FileUtility.nonPositiveParallelism",
+                    parallelism
+                )
+            );
+        }
+
+        ForkJoinPool diskUsagePool = new ForkJoinPool(parallelism);
+        try {
+            return DiskUsageNode.compute(path.toAbsolutePath(), diskUsagePool);
+        } finally {
+            diskUsagePool.shutdown();
+        }
+    }
+
+    /**
+     * Checks if one path is a sub path of the other
+     * @param parentPath        Path to check for sub paths
+     * @param potentialSubPath  Path to check if it's a sub path of the parentPath path
+     * @return true if potentialSubPath is a sub path of parentPath
+     */
+    public static boolean isSubPath(Path parentPath, Path potentialSubPath) {
+        // Input validation
+        Objects.requireNonNull(parentPath);
+        Objects.requireNonNull(potentialSubPath);
+        if(!Files.isDirectory(parentPath)) {
+            throw new IllegalArgumentException(
+                I18NUtility.getFormattedString(
+                    "utilities.FileUtility.parentPathNotADirectory",
+                    parentPath
+                )
+            );
+        }
+
+        parentPath = parentPath.toAbsolutePath();
+        potentialSubPath = potentialSubPath.toAbsolutePath();
+
+        if(parentPath.equals(potentialSubPath)) {
+            return true;
         }
 
         String parentPathString = parentPath.toString() + File.separator;
@@ -444,55 +2033,207 @@ public class FileUtility {
      * Registers a specified currentPath for a specific set of events with WatchService.
      * @param currentPath       Path to register and generate events.
      * @param maxDepth          Maximum depth to register WatchService.
+     * @param consumer          The callback to invoke when a desired event is triggered.
      * @param eventTypesToWatch Type of events for which events have to be generated.
      */
-    private static void registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(Path currentPath, int maxDepth, WatchEvent.Kind<?> ... eventTypesToWatch) {
+    private static void registerDirectoryWithWatchServiceIfNotAlreadyRegistered(Path currentPath, int maxDepth, BiConsumer<Path, WatchEvent<?>> consumer, WatchEvent.Kind<?> ... eventTypesToWatch) {
         Path tempPath = currentPath.toAbsolutePath();
-        if(!pathToWatchServiceRegistrationInfoMap.containsKey(tempPath.toString()) && Files.isDirectory(tempPath)) {
-            try {
-                WatchService subPathWatchService = FileSystems.getDefault().newWatchService();
-                WatchServiceRegistrationInfo watchServiceRegistrationInfo = new WatchServiceRegistrationInfo(tempPath, subPathWatchService, maxDepth, eventTypesToWatch);
-                pathToWatchServiceRegistrationInfoMap.put(tempPath.toString(), watchServiceRegistrationInfo);
-                currentPath.register(watchServiceRegistrationInfo.getWatchService(), eventTypesToWatch);
+        // Registering a directory again with the shared watch service returns the same watch key and replaces its
+        // events, hence a directory is claimed atomically before it's registered. The claim is released only after
+        // the registration is in the trie, so a later claim sees the registration.
+        if(!watchServiceDirectoriesBeingRegistered.add(tempPath)) {
+            if(logger.isDebugEnabled()) {
                 logger.debug(
                     I18NUtility.getFormattedString(
-                        "utilities.FileUtility.registeredWatchServiceMessage",
-                        tempPath.toString()
+                        "utilities.FileUtility.skippedWatchServiceRegistrationMessage",
+                        tempPath,
+                        true,
+                        Files.isDirectory(tempPath)
                     )
                 );
-            } catch (IOException e) {
-                throw new RuntimeException(e);
             }
-        }
-        else {
-            logger.debug(
-                I18NUtility.getFormattedString(
-                    "utilities.FileUtility.skippedWatchServiceRegistrationMessage",
-                    tempPath,
-                    pathToWatchServiceRegistrationInfoMap.containsKey(tempPath.toString()),
-                    Files.isDirectory(tempPath)
-                )
-            );
+            return;
+        }
+        try {
+            registerClaimedDirectoryWithWatchServiceIfNotAlreadyRegistered(tempPath, maxDepth, consumer, eventTypesToWatch);
+        } finally {
+            watchServiceDirectoriesBeingRegistered.remove(tempPath);
+        }
+    }
+
+    /**
+     * Registers a directory claimed by the calling thread for a specific set of events with WatchService.
+     * @param tempPath          Absolute path to register and generate events.
+     * @param maxDepth          Maximum depth to register WatchService.
+     * @param consumer          The callback to invoke when a desired event is triggered.
+     * @param eventTypesToWatch Type of events for which events have to be generated.
+     */
+    private static void registerClaimedDirectoryWithWatchServiceIfNotAlreadyRegistered(Path tempPath, int maxDepth, BiConsumer<Path, WatchEvent<?>> consumer, WatchEvent.Kind<?> ... eventTypesToWatch) {
+        if(!watchServiceRegistrationInfoTrie.containsKey(tempPath) && Files.isDirectory(tempPath)) {
+            try {
+                // Each registration only adds a watch to the watch service shared by all directories of the file system
+                WatchKey watchKey = tempPath.register(
+                    getWatchServiceEventDispatcher(tempPath.getFileSystem()).getWatchService(),
+                    eventTypesToWatch
+                );
+                WatchServiceRegistrationInfo watchServiceRegistrationInfo = new WatchServiceRegistrationInfo(
+                    tempPath,
+                    watchKey,
+                    maxDepth,
+                    consumer,
+                    getWatchedRootMetricsRecorder(tempPath),
+                    eventTypesToWatch
+                );
+                watchServiceRegistrationInfoTrie.put(tempPath, watchServiceRegistrationInfo);
+                watchKeyToWatchServiceRegistrationInfoMap.put(watchKey, watchServiceRegistrationInfo);
+                watchServiceMetricsRegistry.recordRegistration();
+                // The entries are listed after registering, so that the entries created meanwhile aren't missed
+                try {
+                    watchServiceRegistrationInfo.getEntryNames().addAll(listEntryNames(tempPath));
+                } catch (IOException e) {
+                    logger.warn(e);
+                }
+                // Avoid formatting messages for each of the registered directories unless they're logged
+                if(logger.isDebugEnabled()) {
+                    logger.debug(
+                        I18NUtility.getFormattedString(
+                            "utilities.FileUtility.registeredWatchServiceMessage",
+                            tempPath.toString()
+                        )
+                    );
+                }
+            } catch (IOException e) {
+                watchServiceMetricsRegistry.recordRegistrationFailure();
+                throw new RuntimeException(e);
+            }
+        }
+        else if(logger.isDebugEnabled()) {
+            logger.debug(
+                I18NUtility.getFormattedString(
+                    "utilities.FileUtility.skippedWatchServiceRegistrationMessage",
+                    tempPath,
+                    watchServiceRegistrationInfoTrie.containsKey(tempPath),
+                    Files.isDirectory(tempPath)
+                )
+            );
+        }
+    }
+
+    /**
+     * Returns the metrics recorder of the closest watched root containing a path. The path is made a watched root if
+     * it's not within one already.
+     * @param path Absolute path whose watched root is to be returned.
+     * @return Metrics recorder of the watched root.
+     */
+    private static WatchedRootMetricsRecorder getWatchedRootMetricsRecorder(Path path) {
+        synchronized (watchedRootMetricsRecorderTrie) {
+            WatchedRootMetricsRecorder watchedRootMetricsRecorder = watchedRootMetricsRecorderTrie.getClosestAncestorValue(path);
+            if(watchedRootMetricsRecorder == null) {
+                watchedRootMetricsRecorder = new WatchedRootMetricsRecorder(path, consumerLatencySampleSize);
+                watchedRootMetricsRecorderTrie.put(path, watchedRootMetricsRecorder);
+            }
+            return watchedRootMetricsRecorder;
+        }
+    }
+
+    /**
+     * Registers a specified directory path to a WatchService to keep track of specific type of events within that path
+     *
+     * Limitations:
+     * - Actual event timestamp is not available
+     * - Large maxDepth can cause OOM and other performance issues
+     *
+     * @param path          Directory path to register with the WatchService
+     * @param maxDepth      Maximum children depth from specified path to register and trigger events
+     * @param consumer      The callback to invoke when a desired event is triggered.
+     * @param eventsToWatch Type of events to register for trigger
+     * @throws IOException Thrown if registering a WatchService or walking through a path  or modifying it fails.
+     */
+    public static void registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(
+            Path path,
+            int maxDepth,
+            BiConsumer<Path, WatchEvent<?>> consumer,
+            WatchEvent.Kind<?> ... eventsToWatch
+    ) throws IOException {
+        registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(path, maxDepth, consumer, true, eventsToWatch);
+    }
+
+    /**
+     * Registers a specified directory path to a WatchService and waits for the whole tree to be registered.
+     * @param path                    Directory path to register with the WatchService
+     * @param maxDepth                Maximum children depth from specified path to register and trigger events
+     * @param consumer                The callback to invoke when a desired event is triggered.
+     * @param isDispatcherToBeStarted false when registering from the dispatcher thread itself, which must neither
+     *                                wait on the dispatcher monitor nor restart a stopped dispatcher, else true.
+     * @param eventsToWatch           Type of events to register for trigger
+     * @throws IOException Thrown if registering a WatchService or walking through a path  or modifying it fails.
+     */
+    private static void registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(
+            Path path,
+            int maxDepth,
+            BiConsumer<Path, WatchEvent<?>> consumer,
+            boolean isDispatcherToBeStarted,
+            WatchEvent.Kind<?> ... eventsToWatch
+    ) throws IOException {
+        WatchServiceRegisteringFileVisitor watchServiceRegisteringFileVisitor
+                = registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegisteredAsync(
+                    path,
+                    maxDepth,
+                    consumer,
+                    isDispatcherToBeStarted,
+                    eventsToWatch
+                );
+        try {
+            watchServiceRegisteringFileVisitor.getRegistrationFuture().join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
         }
     }
 
     /**
-     * Registers a specified directory path to a WatchService to keep track of specific type of events within that path
+     * Registers a specified directory path to a WatchService to keep track of specific type of events within that
+     * path, without waiting for the whole tree to be registered. Sibling subtrees are registered concurrently by a
+     * bounded pool of workers (utilities.FileUtility.watchservice.registration.parallelism).
      *
-     * Limitations:
-     * - Actual event timestamp is not available
-     * - Large maxDepth can cause OOM and other performance issues
+     * The registration progress can be tracked with the counters of the returned visitor, and its registration future
+     * is completed once the tree is fully registered. Events are dispatched for the directories registered so far,
+     * while the rest of the tree is being registered.
      *
      * @param path          Directory path to register with the WatchService
      * @param maxDepth      Maximum children depth from specified path to register and trigger events
      * @param consumer      The callback to invoke when a desired event is triggered.
      * @param eventsToWatch Type of events to register for trigger
-     * @throws IOException Thrown if registering a WatchService or walking through a path  or modifying it fails.
+     * @return The visitor registering the tree.
+     * @throws IOException Thrown if the WatchService cannot be created or the attributes of the path cannot be read.
      */
-    public static void registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(
+    public static WatchServiceRegisteringFileVisitor registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegisteredAsync(
+            Path path,
+            int maxDepth,
+            BiConsumer<Path, WatchEvent<?>> consumer,
+            WatchEvent.Kind<?> ... eventsToWatch
+    ) throws IOException {
+        return registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegisteredAsync(path, maxDepth, consumer, true, eventsToWatch);
+    }
+
+    /**
+     * Registers a specified directory path to a WatchService without waiting for the whole tree to be registered.
+     * @param path                    Directory path to register with the WatchService
+     * @param maxDepth                Maximum children depth from specified path to register and trigger events
+     * @param consumer                The callback to invoke when a desired event is triggered.
+     * @param isDispatcherToBeStarted false when registering from the dispatcher thread itself, which must neither
+     *                                wait on the dispatcher monitor nor restart a stopped dispatcher, else true.
+     * @param eventsToWatch           Type of events to register for trigger
+     * @return The visitor registering the tree.
+     * @throws IOException Thrown if the WatchService cannot be created or the attributes of the path cannot be read.
+     */
+    private static WatchServiceRegisteringFileVisitor registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegisteredAsync(
             Path path,
             int maxDepth,
             BiConsumer<Path, WatchEvent<?>> consumer,
+            boolean isDispatcherToBeStarted,
             WatchEvent.Kind<?> ... eventsToWatch
     ) throws IOException {
         // Input validation
@@ -546,126 +2287,458 @@ public class FileUtility {
                 tempPath
             )
         );
+        BasicFileAttributes attributes = Files.readAttributes(tempPath, BasicFileAttributes.class);
+
+        // Create the watch service upfront, so that events are dispatched while the tree is being registered
+        getWatchServiceEventDispatcher(tempPath.getFileSystem());
+        // Starting an already running dispatcher is a no-op, so the dispatcher thread is only created once
+        if(isDispatcherToBeStarted) {
+            startWatchServiceEventDispatcher();
+        }
 
         // Register all children recursively
         WatchServiceRegisteringFileVisitor watchServiceRegisteringFileVisitor
-                = new WatchServiceRegisteringFileVisitor(tempPath, maxDepth, eventsToWatch);
-        Files.walkFileTree(
-            tempPath,
-            new HashSet<>(Collections.singletonList(FileVisitOption.FOLLOW_LINKS)),
-            maxDepth,
-            watchServiceRegisteringFileVisitor
-        );
+                = new WatchServiceRegisteringFileVisitor(tempPath, maxDepth, consumer, eventsToWatch);
+        CompletableFuture.runAsync(
+            () -> {
+                if(maxDepth == 0) {
+                    watchServiceRegisteringFileVisitor.visitFile(tempPath, attributes);
+                }
+                else {
+                    new WatchServiceRegisteringTask(
+                        watchServiceRegisteringFileVisitor,
+                        tempPath,
+                        attributes,
+                        0,
+                        maxDepth,
+                        Collections.emptySet()
+                    ).invoke();
+                }
+            },
+            watchServiceRegisteringPool
+        ).whenComplete((result, throwable) -> {
+            logger.info(
+                I18NUtility.getFormattedString(
+                    "utilities.FileUtility.successfulFolderVisits",
+                    watchServiceRegisteringFileVisitor.getSuccessfulDirectoryVisitsCount()
+                )
+            );
+            logger.info(
+                I18NUtility.getFormattedString(
+                    "utilities.FileUtility.successfulFileVisits",
+                    watchServiceRegisteringFileVisitor.getSuccessfulFileVisitsCount()
+                )
+            );
+            logger.info(
+                I18NUtility.getFormattedString(
+                    "utilities.FileUtility.failedVisits",
+                    watchServiceRegisteringFileVisitor.getFailedVisitsCount()
+                )
+            );
+            if(throwable != null) {
+                watchServiceRegisteringFileVisitor.getRegistrationFuture().completeExceptionally(throwable);
+            }
+            else {
+                watchServiceRegisteringFileVisitor.getRegistrationFuture().complete(watchServiceRegisteringFileVisitor);
+            }
+        });
+        return watchServiceRegisteringFileVisitor;
+    }
 
-        logger.info(
-            I18NUtility.getFormattedString(
-                "utilities.FileUtility.successfulFolderVisits",
-                watchServiceRegisteringFileVisitor.getSuccessfulDirectoryVisitsCount()
-            )
+    /**
+     * Starts the background threads that dispatch WatchService events to the registered consumers, if they're not
+     * already running. A dispatcher is started automatically when a path is registered, this only needs to be called
+     * to resume dispatching after stopWatchServiceEventDispatcher() has been called.
+     */
+    public static void startWatchServiceEventDispatcher() {
+        fileSystemToWatchServiceEventDispatcherMap.values()
+                .forEach(WatchServiceEventDispatcher::start);
+    }
+
+    /**
+     * Stops the background threads that dispatch WatchService events to the registered consumers. Registered paths
+     * remain registered and the events generated meanwhile are dispatched once the dispatchers are started again.
+     */
+    public static void stopWatchServiceEventDispatcher() {
+        fileSystemToWatchServiceEventDispatcherMap.values()
+                .forEach(WatchServiceEventDispatcher::stop);
+    }
+
+    /**
+     * Checks if the background threads that dispatch WatchService events are running.
+     * @return true if at least one path has been registered and all the dispatchers are running, else false.
+     */
+    public static boolean isWatchServiceEventDispatcherRunning() {
+        return !fileSystemToWatchServiceEventDispatcherMap.isEmpty()
+                && fileSystemToWatchServiceEventDispatcherMap.values()
+                    .stream()
+                    .allMatch(WatchServiceEventDispatcher::isRunning);
+    }
+
+    /**
+     * Returns the WatchService event dispatcher of a file system, creating it and its WatchService if needed.
+     * @param fileSystem File system whose dispatcher is to be returned.
+     * @return The WatchService event dispatcher of the file system.
+     * @throws IOException Thrown if the WatchService cannot be created.
+     */
+    private static WatchServiceEventDispatcher getWatchServiceEventDispatcher(FileSystem fileSystem) throws IOException {
+        try {
+            return fileSystemToWatchServiceEventDispatcherMap.computeIfAbsent(fileSystem, newFileSystem -> {
+                try {
+                    return new WatchServiceEventDispatcher(newFileSystem);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Removes a registration from the registration indexes.
+     * @param watchServiceRegistrationInfo Registration to remove.
+     */
+    private static void removeWatchServiceRegistration(WatchServiceRegistrationInfo watchServiceRegistrationInfo) {
+        if(watchServiceRegistrationInfoTrie.remove(watchServiceRegistrationInfo.getPath(), watchServiceRegistrationInfo)) {
+            watchServiceMetricsRegistry.recordDeregistration();
+        }
+        releaseWatchServiceRegistration(watchServiceRegistrationInfo);
+    }
+
+    /**
+     * Removes a registration that's no longer in the registration trie from the rest of the registration indexes.
+     * @param watchServiceRegistrationInfo Registration to release.
+     */
+    private static void releaseWatchServiceRegistration(WatchServiceRegistrationInfo watchServiceRegistrationInfo) {
+        watchKeyToWatchServiceRegistrationInfoMap.remove(
+            watchServiceRegistrationInfo.getWatchKey(),
+            watchServiceRegistrationInfo
         );
-        logger.info(
-            I18NUtility.getFormattedString(
-                "utilities.FileUtility.successfulFileVisits",
-                watchServiceRegisteringFileVisitor.getSuccessfulFileVisitsCount()
-            )
+        // Queues with events still waiting to be consumed are removed once cleared
+        watchServiceEventsMap.computeIfPresent(
+            watchServiceRegistrationInfo.getPath().toString(),
+            (registeredPathString, watchServiceEventsQueue) -> watchServiceEventsQueue.isEmpty() ? null : watchServiceEventsQueue
         );
+        WatchEventConsumerExecutor currentWatchEventConsumerExecutor = watchEventConsumerExecutor;
+        if(currentWatchEventConsumerExecutor != null) {
+            currentWatchEventConsumerExecutor.removeLaneIfIdle(watchServiceRegistrationInfo.getPath().toString());
+        }
+    }
+
+    /**
+     * Dispatches the events retrieved from the watch key of a registered path to the registration's consumer. Folders
+     * created within the registered max depth are registered as well. If the events overflowed, the creations and
+     * deletions missed are recovered by rescanning the registered path.
+     * @param watchServiceRegistrationInfo  Registration of the path whose watch key was signalled.
+     * @param watchEvents                   Events retrieved from the watch key.
+     */
+    private static void dispatchWatchEvents(WatchServiceRegistrationInfo watchServiceRegistrationInfo, List<WatchEvent<?>> watchEvents) {
+        Path registeredPath = watchServiceRegistrationInfo.getPath();
+
+        for (WatchEvent<?> event : watchEvents) {
+            // OVERFLOW events don't have a context, they're attributed to the registered path itself
+            Path changePath = event.context() == null ? registeredPath : registeredPath.resolve((Path) event.context());
+            updateWatchServiceRegistrations(watchServiceRegistrationInfo, changePath, event);
+            submitWatchEvent(watchServiceRegistrationInfo, changePath, event);
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                rescanRegisteredDirectory(watchServiceRegistrationInfo);
+            }
+        }
+    }
+
+    /**
+     * Keeps the registrations in sync with an event of a registered path, i.e. registers the folders created within the
+     * registered max depth and deregisters the deleted ones. The known entries of the registered path are updated too.
+     * @param watchServiceRegistrationInfo  Registration of the path whose watch key generated the event.
+     * @param changePath                    Path affected by the event.
+     * @param event                         The event to process.
+     */
+    private static void updateWatchServiceRegistrations(WatchServiceRegistrationInfo watchServiceRegistrationInfo, Path changePath, WatchEvent<?> event) {
+        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+            watchServiceRegistrationInfo.getEntryNames().add(changePath.getFileName());
+            if(Files.isDirectory(changePath)) {
+                WatchServiceRegistrationInfo baseWatchServiceRegistrationInfo
+                        = watchServiceRegistrationInfoTrie.getClosestAncestorValue(changePath);
+                if (baseWatchServiceRegistrationInfo != null) {
+                    Path basePath = baseWatchServiceRegistrationInfo.getPath();
+                    int maxDepthForBasePath = baseWatchServiceRegistrationInfo.getMaxDepth();
+
+                    if (basePath.relativize(changePath).getNameCount() <= maxDepthForBasePath) {
+                        try {
+                            // Runs on the dispatcher thread, which must not start the dispatchers again
+                            registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(
+                                changePath,
+                                maxDepthForBasePath - 1,
+                                watchServiceRegistrationInfo.getConsumer(),
+                                false,
+                                watchServiceRegistrationInfo.getEventsToWatch()
+                            );
+                        } catch (IOException | RuntimeException e) {
+                            logger.warn(e);
+                        }
+                    } else if(logger.isDebugEnabled()) {
+                        logger.debug(
+                            I18NUtility.getFormattedString(
+                                "utilities.FileUtility.skippingRegistrationForPathBeyondMaxDepth",
+                                changePath,
+                                maxDepthForBasePath
+                            )
+                        );
+                    }
+                }
+            }
+            else if(logger.isDebugEnabled()) {
+                logger.debug(
+                    I18NUtility.getFormattedString(
+                        "utilities.FileUtility.skippingRegistrationAsPathIsADirectory",
+                        changePath
+                    )
+                );
+            }
+        } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+            watchServiceRegistrationInfo.getEntryNames().remove(changePath.getFileName());
+            /* If a directory is deleted, deregister it if it has previously been
+            registered to a watch service. The path doesn't exist anymore, so it cannot be checked whether it was
+            a directory, instead the registrations beneath it are looked up. */
+            removeWatchServiceRegistrations(changePath);
+        }
+    }
+
+    /**
+     * Hands over an event to the consumer, through the debouncer if debouncing has been enabled.
+     * @param watchServiceRegistrationInfo  Registration of the path whose watch key generated the event.
+     * @param changePath                    Path affected by the event.
+     * @param event                         The event to hand over.
+     */
+    private static void submitWatchEvent(WatchServiceRegistrationInfo watchServiceRegistrationInfo, Path changePath, WatchEvent<?> event) {
+        // Folders are (de)registered right away, only the events handed over to the consumer are debounced
+        WatchEventDebouncer currentWatchEventDebouncer = watchEventDebouncer;
+        if(currentWatchEventDebouncer == null) {
+            publishWatchEvent(watchServiceRegistrationInfo, changePath, event);
+        }
+        else {
+            currentWatchEventDebouncer.submit(
+                watchServiceRegistrationInfo.getPath().toString(),
+                changePath,
+                event,
+                watchServiceRegistrationInfo.getEventsToWatch(),
+                (netChangePath, netEvent) -> publishWatchEvent(watchServiceRegistrationInfo, netChangePath, netEvent)
+            );
+        }
+    }
+
+    /**
+     * Recovers the creations and deletions missed in a registered directory when its events overflowed. Only the
+     * directory itself is listed and compared against the entries known from its previous events, the ENTRY_CREATE
+     * and ENTRY_DELETE events for the differences are synthesized. Folders created meanwhile are registered, just like
+     * for actual ENTRY_CREATE events, even if ENTRY_CREATE events aren't handed over to the consumer.
+     * @param watchServiceRegistrationInfo Registration of the directory whose events overflowed.
+     */
+    private static void rescanRegisteredDirectory(WatchServiceRegistrationInfo watchServiceRegistrationInfo) {
+        Path registeredPath = watchServiceRegistrationInfo.getPath();
+        Set<Path> currentEntryNames;
+        try {
+            currentEntryNames = listEntryNames(registeredPath);
+        } catch (IOException e) {
+            // Eg: The directory has been deleted, its registration is removed once its watch key is invalidated
+            logger.warn(e);
+            return;
+        }
         logger.info(
             I18NUtility.getFormattedString(
-                "utilities.FileUtility.failedVisits",
-                watchServiceRegisteringFileVisitor.getFailedVisitsCount()
+                "utilities.FileUtility.rescanningDirectoryAfterOverflowMessage",
+                registeredPath
             )
         );
 
-        // Invoke bg thread only once, not repeatedly when the function is called multiple times
-        if(backgroundWatchServiceRegisteringThread == null) {
-            backgroundWatchServiceRegisteringThread = new Thread(() -> {
-                boolean threadSwitch = Boolean.parseBoolean(
-                    PropertyUtility.getProperty("utilities.FileUtility.bgthread.watchservice.switch")
-                );
-                while (threadSwitch) {
-                    HashMap<String, WatchServiceRegistrationInfo> pathToWatchServiceRegistrationInfoMapCopy = new HashMap<>(pathToWatchServiceRegistrationInfoMap);
-
-                    // Iterate through all registered watch services and check if any events are generated
-                    pathToWatchServiceRegistrationInfoMapCopy.keySet()
-                        .stream()
-                        .sorted()
-                        .forEach(subPath -> {
-                            WatchService subPathWatchService = pathToWatchServiceRegistrationInfoMapCopy
-                                    .get(subPath)
-                                    .getWatchService();
-                            watchServiceEventsMap.putIfAbsent(subPath, new LinkedBlockingQueue<>());
-                            Queue<WatchEvent<?>> watchServiceEventsQueue = watchServiceEventsMap.get(subPath);
-                            try {
-                                WatchKey watchKey = subPathWatchService.poll();
-
-                                if (watchKey != null) {
-                                    List<WatchEvent<?>> watchEvents = watchKey.pollEvents();
-                                    /* Iterate through all watch events and add another watch service for folders
-                                    created within the maxDepth level. */
-                                    for (WatchEvent<?> event : watchEvents) {
-                                        watchServiceEventsQueue.add(event);
-
-                                        Path changePath = Paths.get(subPath)
-                                                .resolve((Path) event.context());
-                                        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
-
-                                            if(Files.isDirectory(changePath.toAbsolutePath())) {
-                                                Path basePath = changePath.toAbsolutePath();
-                                                @SuppressWarnings("UnusedAssignment")
-                                                int maxDepthForBasePath = -1;
-
-                                                while (basePath != null && !pathToWatchServiceRegistrationInfoMapCopy.containsKey(basePath.toString())) {
-                                                    basePath = basePath.getParent();
-                                                }
-                                                if (basePath != null) {
-                                                    maxDepthForBasePath = pathToWatchServiceRegistrationInfoMapCopy.get(basePath.toString())
-                                                            .getMaxDepth();
-
-                                                    if (basePath.relativize(changePath).getNameCount() <= maxDepthForBasePath) {
-                                                        registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(changePath, maxDepthForBasePath - 1, consumer,
-                                                                eventsToWatch);
-                                                    } else {
-                                                        logger.debug(
-                                                            I18NUtility.getFormattedString(
-                                                                "utilities.FileUtility.skippingRegistrationForPathBeyondMaxDepth",
-                                                                changePath,
-                                                                maxDepth
-                                                            )
-                                                        );
-                                                    }
-                                                }
-                                            }
-                                            else {
-                                                logger.debug(
-                                                    I18NUtility.getFormattedString(
-                                                        "utilities.FileUtility.skippingRegistrationAsPathIsADirectory",
-                                                        changePath
-                                                    )
-                                                );
-                                            }
-                                        } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
-                                            /* If a directory is deleted, deregister it if it has previously been
-                                            registered to a watch service */
-                                            if (Files.isDirectory(changePath)) {
-                                                deRegisterWatchServiceForDirectory(changePath);
-                                            }
-                                        }
-                                        consumer.accept(changePath, event);
-                                        watchServiceEventsQueue.remove();
-                                    }
-                                    watchKey.reset();
-                                }
-                            }
-                            catch (ClosedWatchServiceException | IOException e) {
-                                logger.warn(e);
-                            }
-                        });
-                    threadSwitch = Boolean.parseBoolean(
-                            PropertyUtility.getProperty("utilities.FileUtility.bgthread.watchservice.switch")
-                    );
-                }
-            });
-            backgroundWatchServiceRegisteringThread.start();
+        List<WatchEvent.Kind<?>> watchedEventKinds = Arrays.asList(watchServiceRegistrationInfo.getEventsToWatch());
+        List<WatchEvent<Path>> synthesizedEvents = new ArrayList<>();
+        watchServiceRegistrationInfo.getEntryNames()
+                .stream()
+                .filter(entryName -> !currentEntryNames.contains(entryName))
+                .forEach(entryName -> synthesizedEvents.add(
+                    new SyntheticWatchEvent<>(StandardWatchEventKinds.ENTRY_DELETE, 1, entryName)
+                ));
+        currentEntryNames.stream()
+                .filter(entryName -> !watchServiceRegistrationInfo.getEntryNames().contains(entryName))
+                .forEach(entryName -> synthesizedEvents.add(
+                    new SyntheticWatchEvent<>(StandardWatchEventKinds.ENTRY_CREATE, 1, entryName)
+                ));
+
+        for (WatchEvent<Path> synthesizedEvent : synthesizedEvents) {
+            Path changePath = registeredPath.resolve(synthesizedEvent.context());
+            updateWatchServiceRegistrations(watchServiceRegistrationInfo, changePath, synthesizedEvent);
+            if(watchedEventKinds.contains(synthesizedEvent.kind())) {
+                submitWatchEvent(watchServiceRegistrationInfo, changePath, synthesizedEvent);
+            }
+        }
+    }
+
+    /**
+     * Lists the names of the entries in a directory.
+     * @param directory Directory whose entries are to be listed.
+     * @return Names of the entries in the directory.
+     * @throws IOException Thrown if the directory cannot be listed.
+     */
+    private static Set<Path> listEntryNames(Path directory) throws IOException {
+        Set<Path> entryNames = new HashSet<>();
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory)) {
+            for (Path entry : directoryStream) {
+                entryNames.add(entry.getFileName());
+            }
+        }
+        return entryNames;
+    }
+
+    /**
+     * Queues an event as unprocessed for the registered path and hands it over to the registration's consumer.
+     * @param watchServiceRegistrationInfo  Registration of the path whose watch key generated the event.
+     * @param changePath                    Path affected by the event.
+     * @param event                         The event to publish.
+     */
+    private static void publishWatchEvent(WatchServiceRegistrationInfo watchServiceRegistrationInfo, Path changePath, WatchEvent<?> event) {
+        WatchedRootMetricsRecorder watchedRootMetricsRecorder = watchServiceRegistrationInfo.getMetricsRecorder();
+        watchedRootMetricsRecorder.recordEvent();
+        Queue<WatchEvent<?>> watchServiceEventsQueue = watchServiceEventsMap.computeIfAbsent(
+            watchServiceRegistrationInfo.getPath().toString(),
+            registeredPathString -> new LinkedBlockingQueue<>(watchServiceEventsQueueCapacity)
+        );
+        // The queue only fills up if the consumer can't keep up, the new events are dropped until it catches up
+        if(!watchServiceEventsQueue.offer(event)) {
+            watchedRootMetricsRecorder.recordDroppedEvent();
+            logger.warn(
+                I18NUtility.getFormattedString(
+                    "utilities.FileUtility.droppedWatchServiceEventMessage",
+                    event.kind(),
+                    changePath,
+                    watchServiceEventsQueueCapacity
+                )
+            );
+            return;
+        }
+        deliverWatchEvent(watchServiceRegistrationInfo, changePath, event, watchServiceEventsQueue);
+    }
+
+
+    /**
+     * Hands over an event to the consumer of a registration, either inline or through the asynchronous consumer
+     * executor if it has been enabled.
+     * @param watchServiceRegistrationInfo  Registration whose consumer is to be invoked.
+     * @param changePath                    Path affected by the event.
+     * @param event                         The event to deliver.
+     * @param watchServiceEventsQueue       Queue of unprocessed events of the registered path.
+     */
+    private static void deliverWatchEvent(WatchServiceRegistrationInfo watchServiceRegistrationInfo, Path changePath, WatchEvent<?> event, Queue<WatchEvent<?>> watchServiceEventsQueue) {
+        long queuedTimeInNanos = System.nanoTime();
+        Runnable deliveryAction = () -> {
+            long consumerStartTimeInNanos = System.nanoTime();
+            try {
+                watchServiceRegistrationInfo.getConsumer().accept(changePath, event);
+            } catch (RuntimeException e) {
+                // A failing consumer must not stop the thread invoking it
+                logger.error(e);
+            }
+            watchServiceMetricsRegistry.recordDeliveredEvent(event.kind(), System.nanoTime() - consumerStartTimeInNanos);
+            watchServiceRegistrationInfo.getMetricsRecorder()
+                    .recordConsumerLatency(System.nanoTime() - queuedTimeInNanos);
+            watchServiceEventsQueue.remove(event);
+        };
+
+        WatchEventConsumerExecutor currentWatchEventConsumerExecutor = watchEventConsumerExecutor;
+        if(currentWatchEventConsumerExecutor == null) {
+            deliveryAction.run();
+            return;
+        }
+        try {
+            currentWatchEventConsumerExecutor.submit(
+                watchServiceRegistrationInfo.getPath().toString(),
+                new WatchEventConsumerExecutor.WatchEventDelivery(
+                    changePath,
+                    event,
+                    deliveryAction,
+                    () -> watchServiceEventsQueue.remove(event)
+                )
+            );
+        } catch (InterruptedException e) {
+            // The dispatcher is being stopped while waiting for the consumer to catch up
+            watchServiceEventsQueue.remove(event);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Hands over WatchService events to the consumers through an executor instead of invoking them on the dispatcher
+     * thread, so that a slow consumer doesn't delay the events of other registered paths. Any executor can be used,
+     * Eg: a thread pool or a virtual thread per task executor on JDKs supporting them.
+     *
+     * The events of a registered directory are consumed in the order in which they were generated. At most
+     * queueCapacity events of a registered directory wait to be consumed, the backpressure policy decides what happens
+     * to new events once that limit is reached.
+     * @param executor           Executor on which the consumers are invoked.
+     * @param queueCapacity      Maximum number of events waiting to be consumed per registered directory.
+     * @param backpressurePolicy Policy to apply when events are generated faster than they're consumed.
+     */
+    public static void enableAsynchronousWatchEventConsumerExecution(Executor executor, int queueCapacity, WatchEventBackpressurePolicy backpressurePolicy) {
+        // Input validation
+        Objects.requireNonNull(executor);
+        Objects.requireNonNull(backpressurePolicy);
+        if(queueCapacity <= 0) {
+            throw new IllegalArgumentException(
+                I18NUtility.getFormattedString(
+                    "utilities.FileUtility.nonPositiveQueueCapacity",
+                    queueCapacity
+                )
+            );
+        }
+
+        watchEventConsumerExecutor = new WatchEventConsumerExecutor(executor, queueCapacity, backpressurePolicy);
+    }
+
+    /**
+     * Invokes the WatchService event consumers on the dispatcher thread again. Events already handed over to the
+     * executor are still consumed by it.
+     */
+    public static void disableAsynchronousWatchEventConsumerExecution() {
+        watchEventConsumerExecutor = null;
+    }
+
+    /**
+     * Merges the WatchService events generated for a path in quick succession into their net change before handing
+     * them over to the consumer, Eg: An ENTRY_CREATE followed by an ENTRY_MODIFY results in a single ENTRY_CREATE, and an
+     * ENTRY_CREATE followed by an ENTRY_DELETE results in no event at all. The events of a path are handed over once no
+     * new event has been generated for it within the window. Folders created within the registered max depth are still
+     * registered right away.
+     * @param window Time for which no new event has to be generated for a path before its net change is handed over.
+     */
+    public static synchronized void enableWatchEventDebouncing(Duration window) {
+        // Input validation
+        Objects.requireNonNull(window);
+        if(window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException(
+                I18NUtility.getFormattedString(
+                    "utilities.FileUtility.nonPositiveDebounceWindow",
+                    window
+                )
+            );
+        }
+
+        WatchEventDebouncer previousWatchEventDebouncer = watchEventDebouncer;
+        watchEventDebouncer = new WatchEventDebouncer(window);
+        if(previousWatchEventDebouncer != null) {
+            previousWatchEventDebouncer.close();
+        }
+    }
+
+    /**
+     * Hands over WatchService events to the consumer as soon as they're retrieved again. Events held back until now
+     * are handed over right away.
+     */
+    public static synchronized void disableWatchEventDebouncing() {
+        WatchEventDebouncer previousWatchEventDebouncer = watchEventDebouncer;
+        watchEventDebouncer = null;
+        if(previousWatchEventDebouncer != null) {
+            previousWatchEventDebouncer.close();
         }
     }
 
@@ -685,33 +2758,72 @@ public class FileUtility {
             );
         }
 
-        Set<String> registeredPaths = new HashSet<>(pathToWatchServiceRegistrationInfoMap.keySet());
-
-        registeredPaths.stream()
-                .map(Paths::get)
-                .map(Path::toAbsolutePath)
-                .map(Path::toString)
-                .filter(registeredPath -> isSubPath(path, Paths.get(registeredPath)))
-                .forEach(registeredPath -> {
-                    logger.debug(
-                        I18NUtility.getFormattedString(
-                            "utilities.FileUtility.deRegisteringPathMessage",
-                            registeredPath
-                        )
-                    );
-
-                    // Remove watch service
-                    WatchService watchServiceToRemove = pathToWatchServiceRegistrationInfoMap.remove(registeredPath)
-                            .getWatchService();
+        removeWatchServiceRegistrations(path.toAbsolutePath());
+    }
 
-                    // Close watch service
-                    try {
-                        watchServiceToRemove.close();
-                    } catch (IOException e) {
-                        logger.error(e);
-                        throw new RuntimeException(e);
+    /**
+     * Removes the registrations of a path and all the paths beneath it, along with their watched roots. Unlike
+     * deRegisterWatchServiceForDirectory(), the path doesn't have to exist anymore.
+     * @param path Absolute path whose registrations are to be removed.
+     */
+    private static void removeWatchServiceRegistrations(Path path) {
+        watchServiceRegistrationInfoTrie.removeSubtree(path)
+                .forEach(watchServiceRegistrationInfoToRemove -> {
+                    if(logger.isDebugEnabled()) {
+                        logger.debug(
+                            I18NUtility.getFormattedString(
+                                "utilities.FileUtility.deRegisteringPathMessage",
+                                watchServiceRegistrationInfoToRemove.getPath()
+                            )
+                        );
                     }
+                    watchServiceMetricsRegistry.recordDeregistration();
+
+                    // Cancel the watch key, the shared watch service remains open for other registrations
+                    releaseWatchServiceRegistration(watchServiceRegistrationInfoToRemove);
+                    watchServiceRegistrationInfoToRemove.getWatchKey().cancel();
                 });
+        watchedRootMetricsRecorderTrie.removeSubtree(path);
+    }
+
+    /**
+     * Returns a snapshot of the metrics of the WatchService machinery as a whole, the same metrics are exposed through
+     * JMX as utilities:type=FileUtility,name=WatchService.
+     * @return Snapshot of the WatchService metrics.
+     */
+    public static WatchServiceMetrics getWatchServiceMetrics() {
+        return new WatchServiceMetrics(watchServiceMetricsRegistry);
+    }
+
+    /**
+     * Returns a snapshot of the metrics of each watched root, i.e. each path registered with the WatchService along
+     * with all the directories registered beneath it.
+     * @return Metrics of the watched roots, mapped by their paths.
+     */
+    public static Map<Path, WatchedRootMetrics> getWatchedRootMetrics() {
+        Map<WatchedRootMetricsRecorder, Long> watchedRootToQueueDepthMap = watchServiceRegistrationInfoTrie.values()
+                .stream()
+                .collect(
+                    Collectors.groupingBy(
+                        WatchServiceRegistrationInfo::getMetricsRecorder,
+                        Collectors.summingLong(watchServiceRegistrationInfo -> Optional.ofNullable(
+                                watchServiceEventsMap.get(watchServiceRegistrationInfo.getPath().toString())
+                            )
+                            .map(Queue::size)
+                            .orElse(0)
+                        )
+                    )
+                );
+        return watchedRootMetricsRecorderTrie.values()
+                .stream()
+                .collect(
+                    Collectors.toMap(
+                        WatchedRootMetricsRecorder::getRootPath,
+                        watchedRootMetricsRecorder -> watchedRootMetricsRecorder.getMetrics(
+                            watchedRootToQueueDepthMap.getOrDefault(watchedRootMetricsRecorder, 0L)
+                        )
+                    )
+                );
     }
 
     /**
@@ -720,4 +2832,68 @@ public class FileUtility {
     public static void clearAllWatchServiceEvents() {
         watchServiceEventsMap.clear();
     }
+
+    /**
+     * Persists a snapshot of a directory tree (relative path, size, last modified time and file key of each entry) to
+     * a file. The snapshot can later be compared against the tree with replayChangesSinceDirectorySnapshot(), Eg: To
+     * find out what changed while the tree wasn't being watched.
+     * Symbolic links are recorded, but not followed.
+     * @param path         Directory whose tree is to be snapshot.
+     * @param snapshotPath File to persist the snapshot to, it's replaced if it already exists.
+     * @return Number of entries in the snapshot.
+     * @throws IOException Thrown if the tree cannot be walked or the snapshot cannot be written.
+     */
+    public static long writeDirectorySnapshot(Path path, Path snapshotPath) throws IOException {
+        // Input validation
+        Objects.requireNonNull(path);
+        Objects.requireNonNull(snapshotPath);
+        if(!Files.isDirectory(path)) {
+            throw new IllegalArgumentException(
+                I18NUtility.getFormattedString(
+                    "utilities.FileUtility.pathNotADirectory",
+                    path
+                )
+            );
+        }
+
+        return DirectorySnapshot.write(path.toAbsolutePath().normalize(), snapshotPath.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Compares a snapshot persisted with writeDirectorySnapshot() against the current state of the directory tree and
+     * invokes the consumer with an ENTRY_CREATE, ENTRY_MODIFY or ENTRY_DELETE event for each path that has changed
+     * since. The snapshot and a fresh walk of the tree are streamed in the same order and merged, so neither of them
+     * is loaded into memory as a whole.
+     *
+     * A path whose type has changed (Eg: A file replaced by a directory) is reported as deleted and then created.
+     * Directories are only reported as modified if they've been replaced.
+     * @param path         Directory whose tree is to be compared.
+     * @param snapshotPath Snapshot of the tree.
+     * @param consumer     The callback to invoke with the absolute path and the event of each change.
+     * @throws IOException Thrown if the tree cannot be walked or the snapshot cannot be read.
+     */
+    public static void replayChangesSinceDirectorySnapshot(Path path, Path snapshotPath, BiConsumer<Path, WatchEvent<?>> consumer) throws IOException {
+        // Input validation
+        Objects.requireNonNull(path);
+        Objects.requireNonNull(snapshotPath);
+        Objects.requireNonNull(consumer);
+        if(!Files.isDirectory(path)) {
+            throw new IllegalArgumentException(
+                I18NUtility.getFormattedString(
+                    "utilities.FileUtility.pathNotADirectory",
+                    path
+                )
+            );
+        }
+        if(!Files.isRegularFile(snapshotPath)) {
+            throw new IllegalArgumentException(
+                I18NUtility.getFormattedString(
+                    "utilities.FileUtility.pathDoesNotExist",
+                    snapshotPath
+                )
+            );
+        }
+
+        DirectorySnapshot.replayChanges(path.toAbsolutePath().normalize(), snapshotPath.toAbsolutePath().normalize(), consumer);
+    }
 }
@@ -0,0 +1,106 @@
+package utilities;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Reads the characters of a file through memory mapped regions of its channel, from the position of the channel up to
+ * its size as of creating the reader. Malformed input is replaced, the way InputStreamReader does.
+ *
+ * A character split across two regions is decoded by mapping the next region from its first byte. The channel is closed
+ * along with the reader.
+ */
+class MappedFileReader extends Reader {
+
+    private static final long MAPPED_REGION_SIZE = 64L * 1024 * 1024;
+    // Longer than any encoded character, so that a region with fewer bytes left may end in a partial character
+    private static final int MAX_PARTIAL_CHARACTER_SIZE = 16;
+    private final FileChannel fileChannel;
+    private final CharsetDecoder charsetDecoder;
+    private final long size;
+    private MappedByteBuffer region;
+    private long regionPosition;
+    private long regionEndPosition;
+    private boolean isFlushed;
+    // Second half of a surrogate pair that didn't fit in the buffer being read into
+    private int pendingChar = -1;
+
+    /**
+     * Creates a reader.
+     * @param fileChannel Channel of the file to read, opened for reading.
+     * @param charset     Charset of the file.
+     * @throws IOException If the channel couldn't be read.
+     */
+    MappedFileReader(FileChannel fileChannel, Charset charset) throws IOException {
+        this.fileChannel = fileChannel;
+        charsetDecoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        size = fileChannel.size();
+        regionPosition = Math.min(fileChannel.position(), size);
+        regionEndPosition = regionPosition;
+    }
+
+    @Override
+    public int read(char[] chars, int offset, int length) throws IOException {
+        if(length == 0) {
+            return 0;
+        }
+        if(pendingChar != -1) {
+            chars[offset] = (char) pendingChar;
+            pendingChar = -1;
+            return 1;
+        }
+        CharBuffer charBuffer = CharBuffer.wrap(chars, offset, length);
+        while (charBuffer.position() == offset) {
+            if(isFlushed) {
+                return -1;
+            }
+            if(region == null || (region.remaining() < MAX_PARTIAL_CHARACTER_SIZE && regionEndPosition < size)) {
+                regionPosition = region == null ? regionPosition : regionPosition + region.position();
+                regionEndPosition = Math.min(size, regionPosition + MAPPED_REGION_SIZE);
+                region = fileChannel.map(FileChannel.MapMode.READ_ONLY, regionPosition, regionEndPosition - regionPosition);
+            }
+            boolean isEndOfInput = regionEndPosition == size;
+            CoderResult coderResult = charsetDecoder.decode(region, charBuffer, isEndOfInput);
+            if(coderResult.isOverflow() && charBuffer.position() == offset) {
+                // A surrogate pair doesn't fit in a single char
+                readSurrogatePair(charBuffer, isEndOfInput);
+            }
+            if(isEndOfInput && !region.hasRemaining() && charsetDecoder.flush(charBuffer).isUnderflow()) {
+                isFlushed = true;
+            }
+        }
+        return charBuffer.position() - offset;
+    }
+
+    /**
+     * Decodes a surrogate pair, the first half into the buffer and the second half into pendingChar.
+     * @param charBuffer   Buffer with room for a single char.
+     * @param isEndOfInput true if the current region ends the input, else false.
+     */
+    private void readSurrogatePair(CharBuffer charBuffer, boolean isEndOfInput) {
+        CharBuffer surrogatePairBuffer = CharBuffer.allocate(2);
+        charsetDecoder.decode(region, surrogatePairBuffer, isEndOfInput);
+        surrogatePairBuffer.flip();
+        charBuffer.put(surrogatePairBuffer.get());
+        if(surrogatePairBuffer.hasRemaining()) {
+            pendingChar = surrogatePairBuffer.get();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        region = null;
+        isFlushed = true;
+        pendingChar = -1;
+        fileChannel.close();
+    }
+}
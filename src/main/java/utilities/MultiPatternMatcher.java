@@ -0,0 +1,120 @@
+package utilities;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Matches an input against many named patterns in a single scan. The patterns are combined into one pattern made of
+ * an optional lookahead per pattern, Eg: (?:(?=(?:(regex0))\z)|)(?:(?=(?:(regex1))\z)|)... Each lookahead captures
+ * its group only if its pattern matches the whole input, so the captured groups identify all the matching patterns
+ * at once.
+ *
+ * Patterns with numbered or named backreferences would refer to the wrong groups once combined, named groups could
+ * clash with the named groups of other patterns, and a quotation (\Q) or a comment of an inline COMMENTS flag (?x)
+ * could swallow the rest of the combined pattern, hence such patterns are matched on their own instead.
+ */
+class MultiPatternMatcher {
+
+    private static final Logger logger = LogManager.getLogger(MultiPatternMatcher.class);
+    private static final Pattern UNCOMBINABLE_PATTERN = Pattern.compile(
+        "(?<!\\\\)(?:\\\\\\\\)*(?:\\\\(?:[1-9]|k<|Q)|\\(\\?(?:[idmsuxU-]*x|<[a-zA-Z]))"
+    );
+    private final List<String> names;
+    private final Pattern combinedPattern;
+    // Group of each pattern within the combined pattern, -1 for the patterns matched on their own
+    private final int[] combinedGroupIndices;
+    private final Pattern[] separatePatterns;
+
+    /**
+     * Creates a matcher.
+     * @param nameToRegexMap Patterns to match, keyed by their names. Matches are reported in the iteration order.
+     * @throws PatternSyntaxException If a pattern is invalid.
+     */
+    MultiPatternMatcher(Map<String, String> nameToRegexMap) {
+        names = List.copyOf(nameToRegexMap.keySet());
+        combinedGroupIndices = new int[names.size()];
+        separatePatterns = new Pattern[names.size()];
+        StringBuilder combinedRegex = new StringBuilder();
+        int groupIndex = 1;
+        int index = 0;
+        for (String regex : nameToRegexMap.values()) {
+            Pattern pattern = RegexUtility.getPattern(regex, 0);
+            if(UNCOMBINABLE_PATTERN.matcher(regex).find()) {
+                combinedGroupIndices[index] = -1;
+                separatePatterns[index] = pattern;
+            }
+            else {
+                combinedRegex.append("(?:(?=(?:(")
+                        .append(regex)
+                        .append("))\\z)|)");
+                combinedGroupIndices[index] = groupIndex;
+                // The group of the pattern is followed by the groups within the pattern
+                groupIndex += 1 + pattern.matcher("").groupCount();
+            }
+            index++;
+        }
+        combinedPattern = Pattern.compile(combinedRegex.toString());
+        logger.debug(
+            I18NUtility.getFormattedString(
+                "utilities.RegexUtility.combinedRegexFields",
+                names.size(),
+                combinedPattern.matcher("").groupCount()
+            )
+        );
+    }
+
+    /**
+     * Returns the names of the patterns, in the order matches are reported.
+     * @return Names of the patterns.
+     */
+    List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Finds the patterns that match a whole input.
+     * @param input Input to match.
+     * @return Indices (within getNames()) of the matching patterns.
+     */
+    BitSet getMatchingIndices(CharSequence input) {
+        BitSet matchingIndices = new BitSet(names.size());
+        Matcher combinedMatcher = combinedPattern.matcher(input);
+        // Every lookahead is optional, hence the combined pattern always matches
+        combinedMatcher.lookingAt();
+        for (int i = 0; i < combinedGroupIndices.length; i++) {
+            boolean isMatched = combinedGroupIndices[i] == -1
+                    ? separatePatterns[i].matcher(input).matches()
+                    : combinedMatcher.start(combinedGroupIndices[i]) != -1;
+            if(isMatched) {
+                matchingIndices.set(i);
+            }
+        }
+        return matchingIndices;
+    }
+
+    /**
+     * Finds the patterns that match a whole input.
+     * @param input Input to match.
+     * @return Names of the matching patterns.
+     */
+    List<String> getMatchingNames(CharSequence input) {
+        BitSet matchingIndices = getMatchingIndices(input);
+        if(matchingIndices.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> matchingNames = new ArrayList<>(matchingIndices.cardinality());
+        matchingIndices.stream()
+                .mapToObj(names::get)
+                .forEach(matchingNames::add);
+        return matchingNames;
+    }
+}
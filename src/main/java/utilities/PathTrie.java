@@ -0,0 +1,213 @@
+package utilities;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A thread safe map of paths to values, indexed by the segments of the paths. Looking up the closest ancestor of a
+ * path or removing all the paths beneath it costs time proportional to the depth of the path (and the size of the
+ * removed subtree), instead of the number of paths in the map.
+ * @param <V> Type of the values mapped to the paths.
+ */
+class PathTrie<V> {
+
+    private static class Node<V> {
+
+        private final Node<V> parent;
+        private final Path segment;
+        private final Map<Path, Node<V>> children = new HashMap<>();
+        private V value;
+
+        /**
+         * A Node abstracts a path segment along with the value mapped to the path ending with it, if any.
+         * @param parent  Node of the parent path, null for the node of the trie root.
+         * @param segment Path segment of the node, null for the node of the trie root.
+         */
+        public Node(Node<V> parent, Path segment) {
+            this.parent = parent;
+            this.segment = segment;
+        }
+    }
+
+    private final Node<V> rootNode = new Node<>(null, null);
+    private int size = 0;
+
+    /**
+     * Splits a path into its root component (if any) followed by its name elements.
+     * @param path Path to split.
+     * @return Segments of the path.
+     */
+    private static List<Path> getSegments(Path path) {
+        List<Path> segments = new ArrayList<>(path.getNameCount() + 1);
+        if(path.getRoot() != null) {
+            segments.add(path.getRoot());
+        }
+        path.forEach(segments::add);
+        return segments;
+    }
+
+    /**
+     * Finds the node of a path.
+     * @param path Path whose node is to be found.
+     * @return Node of the path, null if no path in the trie starts with it.
+     */
+    private Node<V> getNode(Path path) {
+        Node<V> currentNode = rootNode;
+        for (Path segment : getSegments(path)) {
+            currentNode = currentNode.children.get(segment);
+            if(currentNode == null) {
+                return null;
+            }
+        }
+        return currentNode;
+    }
+
+    /**
+     * Removes a node and its ancestors that neither have a value nor any other children.
+     * @param node Node to prune.
+     */
+    private void prune(Node<V> node) {
+        Node<V> currentNode = node;
+        while (currentNode.parent != null && currentNode.value == null && currentNode.children.isEmpty()) {
+            currentNode.parent.children.remove(currentNode.segment);
+            currentNode = currentNode.parent;
+        }
+    }
+
+    /**
+     * Returns the value mapped to a path.
+     * @param path Path whose value is to be returned.
+     * @return Value mapped to the path, null if there isn't any.
+     */
+    synchronized V get(Path path) {
+        Node<V> node = getNode(path);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Checks if a value is mapped to a path.
+     * @param path Path to check.
+     * @return true if a value is mapped to the path, else false.
+     */
+    synchronized boolean containsKey(Path path) {
+        return get(path) != null;
+    }
+
+    /**
+     * Maps a value to a path.
+     * @param path  Path to map the value to.
+     * @param value Value to map.
+     * @return The value previously mapped to the path, null if there wasn't any.
+     */
+    synchronized V put(Path path, V value) {
+        Node<V> currentNode = rootNode;
+        for (Path segment : getSegments(path)) {
+            Node<V> parentNode = currentNode;
+            currentNode = parentNode.children.computeIfAbsent(segment, newSegment -> new Node<>(parentNode, newSegment));
+        }
+        V previousValue = currentNode.value;
+        currentNode.value = value;
+        if(previousValue == null) {
+            size++;
+        }
+        return previousValue;
+    }
+
+    /**
+     * Removes the mapping of a path if it's mapped to the specified value.
+     * @param path  Path whose mapping is to be removed.
+     * @param value Value the path is expected to be mapped to.
+     * @return true if the mapping was removed, else false.
+     */
+    synchronized boolean remove(Path path, V value) {
+        Node<V> node = getNode(path);
+        if(node == null || node.value == null || !node.value.equals(value)) {
+            return false;
+        }
+        node.value = null;
+        size--;
+        prune(node);
+        return true;
+    }
+
+    /**
+     * Returns the value mapped to the closest ancestor of a path, the path itself included.
+     * @param path Path whose closest ancestor is to be looked up.
+     * @return Value of the closest ancestor, null if no ancestor of the path has a value.
+     */
+    synchronized V getClosestAncestorValue(Path path) {
+        V closestAncestorValue = null;
+        Node<V> currentNode = rootNode;
+        for (Path segment : getSegments(path)) {
+            currentNode = currentNode.children.get(segment);
+            if(currentNode == null) {
+                break;
+            }
+            if(currentNode.value != null) {
+                closestAncestorValue = currentNode.value;
+            }
+        }
+        return closestAncestorValue;
+    }
+
+    /**
+     * Removes the mappings of a path and of all the paths beneath it.
+     * @param path Path whose subtree is to be removed.
+     * @return The values of the removed mappings, ancestors before descendants.
+     */
+    synchronized List<V> removeSubtree(Path path) {
+        List<V> removedValues = new ArrayList<>();
+        Node<V> subtreeRootNode = getNode(path);
+        if(subtreeRootNode == null) {
+            return removedValues;
+        }
+
+        Deque<Node<V>> nodesToVisit = new ArrayDeque<>();
+        nodesToVisit.push(subtreeRootNode);
+        while (!nodesToVisit.isEmpty()) {
+            Node<V> currentNode = nodesToVisit.pop();
+            if(currentNode.value != null) {
+                removedValues.add(currentNode.value);
+            }
+            currentNode.children.values().forEach(nodesToVisit::push);
+        }
+        size -= removedValues.size();
+
+        // Detaching the subtree removes all of its mappings at once
+        subtreeRootNode.value = null;
+        subtreeRootNode.children.clear();
+        prune(subtreeRootNode);
+        return removedValues;
+    }
+
+    /**
+     * Returns all the values in the trie.
+     * @return Values of all the mapped paths.
+     */
+    synchronized List<V> values() {
+        List<V> values = new ArrayList<>(size);
+        Deque<Node<V>> nodesToVisit = new ArrayDeque<>();
+        nodesToVisit.push(rootNode);
+        while (!nodesToVisit.isEmpty()) {
+            Node<V> currentNode = nodesToVisit.pop();
+            if(currentNode.value != null) {
+                values.add(currentNode.value);
+            }
+            currentNode.children.values().forEach(nodesToVisit::push);
+        }
+        return values;
+    }
+
+    /**
+     * Returns the number of mapped paths.
+     * @return Number of mapped paths.
+     */
+    synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,167 @@
+package utilities;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * A bounded, thread safe cache of compiled patterns keyed by the pattern string and flags. Lookups don't lock, the
+ * least recently used patterns are evicted once the cache grows beyond its capacity. Patterns that fail to compile
+ * aren't cached.
+ *
+ * Recency is tracked with a logical clock that advances on every miss, which is when patterns are evicted. A hit only
+ * stamps its pattern if the clock has advanced since the pattern was last looked up, so that a pattern looked up over
+ * and over doesn't write its stamp on every hit. Patterns looked up between the same two misses are equally recent.
+ */
+class PatternCache {
+
+    private static class Key {
+
+        private final String patternString;
+        private final int flags;
+
+        /**
+         * A Key abstracts the inputs a pattern is compiled from.
+         * @param patternString Pattern string.
+         * @param flags         Pattern flags.
+         */
+        public Key(String patternString, int flags) {
+            this.patternString = patternString;
+            this.flags = flags;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return flags == key.flags && patternString.equals(key.patternString);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * patternString.hashCode() + flags;
+        }
+    }
+
+    private static class Entry {
+
+        private final Pattern pattern;
+        private volatile long lastAccessTick;
+
+        /**
+         * An Entry abstracts a cached pattern along with the tick of the clock it was last looked up at.
+         * @param pattern        Compiled pattern.
+         * @param lastAccessTick Tick of the clock the pattern was compiled at.
+         */
+        public Entry(Pattern pattern, long lastAccessTick) {
+            this.pattern = pattern;
+            this.lastAccessTick = lastAccessTick;
+        }
+    }
+
+    private final int capacity;
+    private final ConcurrentHashMap<Key, Entry> keyToEntryMap = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Creates a pattern cache.
+     * @param capacity Maximum number of patterns to cache.
+     */
+    PatternCache(int capacity) {
+        if(capacity <= 0) {
+            throw new IllegalArgumentException(
+                I18NUtility.getFormattedString(
+                    "utilities.RegexUtility.nonPositivePatternCacheCapacity",
+                    capacity
+                )
+            );
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the compiled pattern of a pattern string and flags, compiling and caching it if it isn't cached.
+     * @param patternString Pattern string.
+     * @param flags         Pattern flags.
+     * @return The compiled pattern.
+     * @throws java.util.regex.PatternSyntaxException If the pattern string is invalid.
+     */
+    Pattern get(String patternString, int flags) {
+        Key key = new Key(Objects.requireNonNull(patternString), flags);
+        Entry entry = keyToEntryMap.get(key);
+        if(entry != null) {
+            hitCount.increment();
+            long tick = clock.get();
+            if(entry.lastAccessTick != tick) {
+                entry.lastAccessTick = tick;
+            }
+            return entry.pattern;
+        }
+
+        missCount.increment();
+        // Compiled outside of the map, so that a slow compilation doesn't block other lookups
+        Pattern pattern = Pattern.compile(patternString, flags);
+        Entry compiledEntry = new Entry(pattern, clock.incrementAndGet());
+        entry = keyToEntryMap.putIfAbsent(key, compiledEntry);
+        if(entry != null) {
+            return entry.pattern;
+        }
+        if(keyToEntryMap.size() > capacity) {
+            evict();
+        }
+        return compiledEntry.pattern;
+    }
+
+    /**
+     * Evicts the least recently used patterns until the cache is within its capacity.
+     */
+    private synchronized void evict() {
+        while (keyToEntryMap.size() > capacity) {
+            Map.Entry<Key, Entry> leastRecentlyUsedEntry = null;
+            for (Map.Entry<Key, Entry> keyAndEntry : keyToEntryMap.entrySet()) {
+                if(leastRecentlyUsedEntry == null
+                        || keyAndEntry.getValue().lastAccessTick < leastRecentlyUsedEntry.getValue().lastAccessTick) {
+                    leastRecentlyUsedEntry = keyAndEntry;
+                }
+            }
+            if(leastRecentlyUsedEntry == null) {
+                return;
+            }
+            if(keyToEntryMap.remove(leastRecentlyUsedEntry.getKey(), leastRecentlyUsedEntry.getValue())) {
+                evictionCount.increment();
+            }
+        }
+    }
+
+    /**
+     * Removes all the cached patterns, the statistics are retained.
+     */
+    void clear() {
+        keyToEntryMap.clear();
+    }
+
+    /**
+     * Returns a snapshot of the statistics of the cache.
+     * @return Statistics of the cache.
+     */
+    RegexUtility.PatternCacheStats getStats() {
+        return new RegexUtility.PatternCacheStats(
+            hitCount.sum(),
+            missCount.sum(),
+            evictionCount.sum(),
+            keyToEntryMap.size(),
+            capacity
+        );
+    }
+}
@@ -1,11 +1,22 @@
 package utilities;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.time.Duration;
 import java.util.*;
+import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import misc.Comparison;
 import org.apache.logging.log4j.LogManager;
@@ -53,16 +64,47 @@ public class RegexUtility {
         WHOLE_NUMBER("regex.number.whole"),
         XML("regex.xml");
 
-        private String regex;
-        RegexField(String regex) {
-            this.regex = regex;
+        private String propertyName;
+        RegexField(String propertyName) {
+            this.propertyName = propertyName;
         }
 
+        /**
+         * Returns the name of the property holding the regex of the field.
+         *
+         * @return Property name.
+         */
+        public String getPropertyName() {
+            return propertyName;
+        }
+
+        /**
+         * Returns the regex of the field.
+         *
+         * @return Regex of the field, empty if it isn't defined yet.
+         */
         public String getRegex() {
-            return regex;
+            return PropertyUtility.getProperty(propertyName);
         }
     }
 
+    /**
+     * Visitor of the matches of a regex, which reads them as offsets into the input rather than as substrings.
+     */
+    @FunctionalInterface
+    public interface MatchVisitor {
+
+        /**
+         * Visits a match.
+         *
+         * @param input       Input the match was found in.
+         * @param matchResult Offsets of the match and its groups (-1 for groups that didn't participate). It's valid
+         *                    only during the call, use matchResult.toMatchResult() to retain it.
+         * @return true to visit the next match, false to stop.
+         */
+        boolean visit(CharSequence input, MatchResult matchResult);
+    }
+
     public static class InvalidRegexException extends Exception {
 
         private String regex;
@@ -77,6 +119,382 @@ public class RegexUtility {
         }
     }
 
+    public static class PatternCacheStats {
+
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final int size;
+        private final int capacity;
+
+        /**
+         * A snapshot of the statistics of the compiled pattern cache.
+         * @param hitCount      Number of lookups that found a cached pattern.
+         * @param missCount     Number of lookups that had to compile the pattern.
+         * @param evictionCount Number of patterns evicted to stay within the capacity.
+         * @param size          Number of cached patterns.
+         * @param capacity      Maximum number of cached patterns.
+         */
+        public PatternCacheStats(long hitCount, long missCount, long evictionCount, int size, int capacity) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.size = size;
+            this.capacity = capacity;
+        }
+
+        /**
+         * Returns the number of lookups that found a cached pattern.
+         * @return Number of hits.
+         */
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        /**
+         * Returns the number of lookups that had to compile the pattern.
+         * @return Number of misses.
+         */
+        public long getMissCount() {
+            return missCount;
+        }
+
+        /**
+         * Returns the number of patterns evicted to stay within the capacity.
+         * @return Number of evictions.
+         */
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        /**
+         * Returns the number of cached patterns.
+         * @return Number of cached patterns.
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Returns the maximum number of cached patterns.
+         * @return Capacity of the cache.
+         */
+        public int getCapacity() {
+            return capacity;
+        }
+
+        /**
+         * Returns the fraction of lookups that found a cached pattern.
+         * @return Hit rate between 0 and 1, 0 if there were no lookups.
+         */
+        public double getHitRate() {
+            long lookupCount = hitCount + missCount;
+            return lookupCount == 0 ? 0 : (double) hitCount / lookupCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "%d hits, %d misses, %d evictions, %d/%d patterns cached",
+                hitCount,
+                missCount,
+                evictionCount,
+                size,
+                capacity
+            );
+        }
+    }
+
+    /**
+     * Options of classifying values in batches, Eg: new BatchClassificationOptions().setChunkSize(...).setEarlyStop(...).
+     */
+    public static class BatchClassificationOptions {
+
+        private int parallelism = Integer.parseInt(PropertyUtility.getProperty("utilities.RegexUtility.classify.parallelism"));
+        private int chunkSize = Integer.parseInt(PropertyUtility.getProperty("utilities.RegexUtility.classify.chunk.size"));
+        private boolean keepValueMatches = true;
+        private double earlyStopConfidence = 0;
+        private long earlyStopMinimumValueCount = 0;
+
+        /**
+         * Returns the maximum number of threads to classify with.
+         * @return Maximum number of threads.
+         */
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        /**
+         * Sets the maximum number of threads to classify with, the utilities.RegexUtility.classify.parallelism property
+         * by default.
+         * @param parallelism Maximum number of threads.
+         * @return These options.
+         */
+        public BatchClassificationOptions setParallelism(int parallelism) {
+            if(parallelism <= 0) {
+                throw new IllegalArgumentException(
+                    I18NUtility.getFormattedString(
+                        "utilities.RegexUtility.nonPositiveParallelism",
+                        parallelism
+                    )
+                );
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Returns the number of values classified by a thread at a time.
+         * @return Number of values per chunk.
+         */
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        /**
+         * Sets the number of values classified by a thread at a time, the utilities.RegexUtility.classify.chunk.size
+         * property by default. Larger chunks have less overhead, smaller chunks allow stopping earlier.
+         * @param chunkSize Number of values per chunk.
+         * @return These options.
+         */
+        public BatchClassificationOptions setChunkSize(int chunkSize) {
+            if(chunkSize <= 0) {
+                throw new IllegalArgumentException(
+                    I18NUtility.getFormattedString(
+                        "input.validation.invalidActionOrArgumentMessage",
+                        "chunkSize",
+                        chunkSize
+                    )
+                );
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Checks if the matching fields of each value are kept.
+         * @return true if the matches of each value are kept, else false.
+         */
+        public boolean isKeepValueMatches() {
+            return keepValueMatches;
+        }
+
+        /**
+         * Sets whether the matching fields of each value are kept, true by default. Only the histograms are computed
+         * otherwise, which doesn't hold on to memory per value.
+         * @param keepValueMatches true to keep the matches of each value, else false.
+         * @return These options.
+         */
+        public BatchClassificationOptions setKeepValueMatches(boolean keepValueMatches) {
+            this.keepValueMatches = keepValueMatches;
+            return this;
+        }
+
+        /**
+         * Returns the fraction of the classified values that a field has to match to stop early.
+         * @return Fraction between 0 and 1, 0 if the classification doesn't stop early.
+         */
+        public double getEarlyStopConfidence() {
+            return earlyStopConfidence;
+        }
+
+        /**
+         * Returns the minimum number of values to classify before stopping early.
+         * @return Minimum number of values.
+         */
+        public long getEarlyStopMinimumValueCount() {
+            return earlyStopMinimumValueCount;
+        }
+
+        /**
+         * Sets the classification to stop once the field of the values is settled, Eg: A column whose first 10000
+         * values are 99% integers is taken to be an integer column. The classification doesn't stop early by default.
+         * @param confidence        Fraction of the classified values that a field has to match, between 0
+         *                          (exclusive) and 1 (inclusive).
+         * @param minimumValueCount Minimum number of values to classify before stopping.
+         * @return These options.
+         */
+        public BatchClassificationOptions setEarlyStop(double confidence, long minimumValueCount) {
+            if(!(confidence > 0 && confidence <= 1)) {
+                throw new IllegalArgumentException(
+                    I18NUtility.getFormattedString(
+                        "input.validation.invalidActionOrArgumentMessage",
+                        "confidence",
+                        confidence
+                    )
+                );
+            }
+            if(minimumValueCount < 0) {
+                throw new IllegalArgumentException(
+                    I18NUtility.getFormattedString(
+                        "input.validation.invalidActionOrArgumentMessage",
+                        "minimumValueCount",
+                        minimumValueCount
+                    )
+                );
+            }
+            earlyStopConfidence = confidence;
+            earlyStopMinimumValueCount = minimumValueCount;
+            return this;
+        }
+    }
+
+    public static class BatchClassificationResult {
+
+        private final List<List<String>> matchingFieldNames;
+        private final Map<String, Long> fieldHistogram;
+        private final Map<List<String>, Long> fieldCombinationHistogram;
+        private final long valueCount;
+        private final long unmatchedCount;
+        private final boolean isStoppedEarly;
+        private final Duration duration;
+
+        /**
+         * The result of classifying values against the regex fields.
+         * @param matchingFieldNames        Matching field names of each value, null if they weren't kept.
+         * @param fieldHistogram            Number of values matching each field.
+         * @param fieldCombinationHistogram Number of values matching each distinct combination of fields.
+         * @param valueCount                Number of classified values.
+         * @param unmatchedCount            Number of values that didn't match any field.
+         * @param isStoppedEarly            true if the classification stopped early, else false.
+         * @param duration                  Time taken by the classification.
+         */
+        public BatchClassificationResult(
+                List<List<String>> matchingFieldNames,
+                Map<String, Long> fieldHistogram,
+                Map<List<String>, Long> fieldCombinationHistogram,
+                long valueCount,
+                long unmatchedCount,
+                boolean isStoppedEarly,
+                Duration duration
+        ) {
+            this.matchingFieldNames = matchingFieldNames == null ? null : Collections.unmodifiableList(matchingFieldNames);
+            this.fieldHistogram = Collections.unmodifiableMap(fieldHistogram);
+            this.fieldCombinationHistogram = Collections.unmodifiableMap(fieldCombinationHistogram);
+            this.valueCount = valueCount;
+            this.unmatchedCount = unmatchedCount;
+            this.isStoppedEarly = isStoppedEarly;
+            this.duration = duration;
+        }
+
+        /**
+         * Returns the matching field names of each classified value.
+         * @return Matching field names, in the order of the values. null if they weren't kept.
+         */
+        public List<List<String>> getMatchingFieldNames() {
+            return matchingFieldNames;
+        }
+
+        /**
+         * Returns the number of values matching each registered field.
+         * @return Number of matching values, keyed by the field names in the order they were registered.
+         */
+        public Map<String, Long> getFieldHistogram() {
+            return fieldHistogram;
+        }
+
+        /**
+         * Returns the number of values matching each distinct combination of fields, Eg: [INTEGER, WHOLE_NUMBER].
+         * @return Number of matching values, keyed by the field names. Unmatched values are keyed by an empty list.
+         */
+        public Map<List<String>, Long> getFieldCombinationHistogram() {
+            return fieldCombinationHistogram;
+        }
+
+        /**
+         * Returns the number of classified values.
+         * @return Number of classified values.
+         */
+        public long getValueCount() {
+            return valueCount;
+        }
+
+        /**
+         * Returns the number of values that didn't match any field.
+         * @return Number of unmatched values.
+         */
+        public long getUnmatchedCount() {
+            return unmatchedCount;
+        }
+
+        /**
+         * Returns the field matched by the most values.
+         * @return Name of the field, null if no value matched any field.
+         */
+        public String getMostFrequentField() {
+            return fieldHistogram.entrySet()
+                    .stream()
+                    .filter(fieldNameAndCount -> fieldNameAndCount.getValue() > 0)
+                    .max(Map.Entry.comparingByValue())
+                    .map(Map.Entry::getKey)
+                    .orElse(null);
+        }
+
+        /**
+         * Checks if the classification stopped before all the values were classified.
+         * @return true if it stopped early, else false.
+         */
+        public boolean isStoppedEarly() {
+            return isStoppedEarly;
+        }
+
+        /**
+         * Returns the time taken by the classification.
+         * @return Time taken by the classification.
+         */
+        public Duration getDuration() {
+            return duration;
+        }
+    }
+
+    public static class StreamMatch {
+
+        private final long start;
+        private final long end;
+        private final List<String> groups;
+
+        /**
+         * A match found in a stream of characters.
+         * @param start  Offset of the first character of the match within the stream.
+         * @param end    Offset after the last character of the match within the stream.
+         * @param groups The match followed by its groups, null for the groups that didn't participate in the match.
+         */
+        public StreamMatch(long start, long end, List<String> groups) {
+            this.start = start;
+            this.end = end;
+            this.groups = Collections.unmodifiableList(groups);
+        }
+
+        /**
+         * Returns the offset of the first character of the match within the stream.
+         * @return Start offset in characters.
+         */
+        public long getStart() {
+            return start;
+        }
+
+        /**
+         * Returns the offset after the last character of the match within the stream.
+         * @return End offset in characters.
+         */
+        public long getEnd() {
+            return end;
+        }
+
+        /**
+         * Returns the match followed by its groups, like the matches of getFirstNMatches().
+         * @return The match and its groups.
+         */
+        public List<String> getGroups() {
+            return groups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("[%d, %d) %s", start, end, groups);
+        }
+    }
+
     private static String wCharacters = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ1234567890_";
     private static String dCharacters = "1234567890";
     /*
@@ -84,6 +502,66 @@ public class RegexUtility {
      */
     private static String dotCharacters = wCharacters;
     private static Random randomObj = new Random();
+    private static final PatternCache patternCache = new PatternCache(
+        Integer.parseInt(PropertyUtility.getProperty("utilities.RegexUtility.pattern.cache.capacity"))
+    );
+
+    private static final Map<String, String> regexFieldNameToRegexMap = new LinkedHashMap<>();
+    private static volatile MultiPatternMatcher regexFieldMatcher;
+    private static final Map<String, RegexField> regexFieldNameToRegexFieldMap = Arrays.stream(RegexField.values())
+            .collect(Collectors.toMap(RegexField::name, regexField -> regexField));
+
+    static {
+        // Fields without a regex aren't defined yet, hence they can't be matched
+        for (RegexField regexField : RegexField.values()) {
+            String regex = regexField.getRegex();
+            if(regex.isEmpty()) {
+                continue;
+            }
+            if(isValidRegex(regex)) {
+                regexFieldNameToRegexMap.put(regexField.name(), regex);
+            }
+            else {
+                logger.warn(
+                    I18NUtility.getFormattedString(
+                        "utilities.RegexUtility.skippingInvalidRegexField",
+                        regexField,
+                        regex
+                    )
+                );
+            }
+        }
+        regexFieldMatcher = new MultiPatternMatcher(regexFieldNameToRegexMap);
+    }
+
+    /**
+     * Returns the compiled pattern of the specified pattern string and flags. Compiled patterns are cached, so that
+     * patterns used repeatedly are compiled once.
+     *
+     * @param patternString  Pattern to compile.
+     * @param patternOptions Pattern match flags.
+     * @return The compiled pattern.
+     * @throws PatternSyntaxException If the pattern is invalid.
+     */
+    public static Pattern getPattern(String patternString, int patternOptions) {
+        return patternCache.get(patternString, patternOptions);
+    }
+
+    /**
+     * Returns a snapshot of the statistics of the compiled pattern cache.
+     *
+     * @return Statistics of the cache.
+     */
+    public static PatternCacheStats getPatternCacheStats() {
+        return patternCache.getStats();
+    }
+
+    /**
+     * Removes all the compiled patterns from the cache. The statistics are retained.
+     */
+    public static void clearPatternCache() {
+        patternCache.clear();
+    }
 
     /**
      * Checks if the specified pattern matches the given input.
@@ -94,11 +572,47 @@ public class RegexUtility {
      * @return Returns true if the pattern matches the input, else false
      */
     public static boolean matches(String patternString, int patternOptions, String input) {
-        return Pattern.compile(patternString, patternOptions)
+        return getPattern(patternString, patternOptions)
                 .matcher(input)
                 .matches();
     }
 
+    /**
+     * Visit the occurrences of the regex in the input, without creating any substrings. The visitor reads the offsets
+     * of each match and its groups from the match result, Eg: input.charAt(matchResult.start(1)).
+     *
+     * @param patternString  Pattern to match.
+     * @param patternOptions Regex flags.
+     * @param input          Input to find matches in.
+     * @param visitor        Visitor of the matches.
+     * @return Number of visited matches.
+     */
+    public static int visitMatches(String patternString, int patternOptions, CharSequence input, MatchVisitor visitor) throws InvalidRegexException {
+        return visitMatches(getValidPattern(patternString, patternOptions), input, visitor);
+    }
+
+    /**
+     * Visit the occurrences of a compiled pattern in the input.
+     *
+     * @param pattern Pattern to match.
+     * @param input   Input to find matches in.
+     * @param visitor Visitor of the matches.
+     * @return Number of visited matches.
+     */
+    private static int visitMatches(Pattern pattern, CharSequence input, MatchVisitor visitor) {
+        Objects.requireNonNull(visitor);
+        Matcher matcher = pattern.matcher(input);
+        int visitedCount = 0;
+        while (matcher.find()) {
+            visitedCount++;
+            // The matcher is its own match result, which spares a copy per match
+            if(!visitor.visit(input, matcher)) {
+                break;
+            }
+        }
+        return visitedCount;
+    }
+
     /**
      * Get the first N occurrences of the regex in the input string.
      *
@@ -110,30 +624,138 @@ public class RegexUtility {
      */
     public static List<List<String>> getFirstNMatches(String patternString, int patternOptions, int N, String input) throws InvalidRegexException {
 
-        // Ensure that the input regex is valid
-        if(!isValidRegex(patternString)) {
-            throw new InvalidRegexException(patternString);
-        }
-
-        Pattern patternObj = Pattern.compile(patternString, patternOptions);
-        Matcher matcher = patternObj.matcher(input);
+        Pattern patternObj = getValidPattern(patternString, patternOptions);
         List<List<String>> matches = new ArrayList<>();
         // If no matches are to be found. return empty list.
         if (N == 0)
             return matches;
-        int i = 0;
-        while (matcher.find()) {
-            matches.add(IntStream.range(0, matcher.groupCount() + 1)
-                    .boxed()
-                    .map(matcher::group)
-                    .collect(Collectors.toList()));
-            i++;
-            if (i == N)
-                break;
-        }
+        visitMatches(patternObj, input, (matchedInput, matchResult) -> {
+            List<String> groups = new ArrayList<>(matchResult.groupCount() + 1);
+            for (int i = 0; i <= matchResult.groupCount(); i++) {
+                groups.add(matchResult.group(i));
+            }
+            matches.add(groups);
+            return matches.size() != N;
+        });
         return matches;
     }
 
+    /**
+     * Count the occurrences of the regex in the input string.
+     *
+     * @param patternString Pattern to match.
+     * @param input         Input string to find matches in.
+     * @return Number of matches.
+     */
+    private static int countMatches(String patternString, String input) throws InvalidRegexException {
+        return visitMatches(patternString, 0, input, (matchedInput, matchResult) -> true);
+    }
+
+    /**
+     * Returns the compiled pattern of the specified pattern string and flags from the cache.
+     *
+     * @param patternString  Pattern to compile.
+     * @param patternOptions Pattern match flags.
+     * @return The compiled pattern.
+     * @throws InvalidRegexException If the pattern is invalid.
+     */
+    private static Pattern getValidPattern(String patternString, int patternOptions) throws InvalidRegexException {
+        try {
+            return getPattern(patternString, patternOptions);
+        }
+        catch (PatternSyntaxException e) {
+            logger.debug(I18NUtility.getFormattedString("utilities.RegexUtility.invalidRegexMessage", patternString));
+            throw new InvalidRegexException(patternString);
+        }
+    }
+
+    /**
+     * Lazily find the occurrences of the regex in the characters of a reader, without reading all of them into
+     * memory. Matches of up to half the utilities.RegexUtility.stream.window.size property (in characters) are found
+     * as they would be in the whole input, longer matches may be truncated or missed.
+     *
+     * @param patternString  Pattern to match.
+     * @param patternOptions Regex flags.
+     * @param reader         Reader of the input, closed when the returned stream is closed.
+     * @return Stream of matches, which throws an UncheckedIOException if the input can't be read.
+     */
+    public static Stream<StreamMatch> streamMatches(String patternString, int patternOptions, Reader reader) throws InvalidRegexException {
+        return streamMatches(
+                patternString,
+                patternOptions,
+                reader,
+                Integer.parseInt(PropertyUtility.getProperty("utilities.RegexUtility.stream.window.size"))
+        );
+    }
+
+    /**
+     * Lazily find the occurrences of the regex in the characters of a reader, without reading all of them into
+     * memory. Matches of up to half the window size are found as they would be in the whole input, longer matches
+     * may be truncated or missed.
+     *
+     * @param patternString  Pattern to match.
+     * @param patternOptions Regex flags.
+     * @param reader         Reader of the input, closed when the returned stream is closed.
+     * @param windowSize     Maximum number of characters of the input held in memory.
+     * @return Stream of matches, which throws an UncheckedIOException if the input can't be read.
+     */
+    public static Stream<StreamMatch> streamMatches(String patternString, int patternOptions, Reader reader, int windowSize) throws InvalidRegexException {
+        Objects.requireNonNull(reader);
+        if(windowSize <= 1) {
+            throw new IllegalArgumentException(
+                I18NUtility.getFormattedString(
+                    "input.validation.invalidActionOrArgumentMessage",
+                    "windowSize",
+                    windowSize
+                )
+            );
+        }
+        Pattern patternObj = getValidPattern(patternString, patternOptions);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(
+                        new StreamingMatchIterator(patternObj, reader, windowSize),
+                        Spliterator.ORDERED | Spliterator.NONNULL
+                ),
+                false
+        ).onClose(() -> {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Lazily find the occurrences of the regex in the characters of an input stream, without reading all of them
+     * into memory. See streamMatches(String, int, Reader).
+     *
+     * @param patternString  Pattern to match.
+     * @param patternOptions Regex flags.
+     * @param inputStream    Input stream, closed when the returned stream is closed.
+     * @param charset        Charset of the input stream.
+     * @return Stream of matches, which throws an UncheckedIOException if the input can't be read.
+     */
+    public static Stream<StreamMatch> streamMatches(String patternString, int patternOptions, InputStream inputStream, Charset charset) throws InvalidRegexException {
+        return streamMatches(patternString, patternOptions, new InputStreamReader(inputStream, charset));
+    }
+
+    /**
+     * Lazily find the occurrences of the regex in the characters of a file, from the position of its channel. The
+     * file is read through memory mapped regions, which spares copying it into the heap. See
+     * streamMatches(String, int, Reader).
+     *
+     * @param patternString  Pattern to match.
+     * @param patternOptions Regex flags.
+     * @param fileChannel    Channel of the file opened for reading, closed when the returned stream is closed.
+     * @param charset        Charset of the file.
+     * @return Stream of matches, which throws an UncheckedIOException if the file can't be read.
+     * @throws IOException If the channel can't be read.
+     */
+    public static Stream<StreamMatch> streamMatches(String patternString, int patternOptions, FileChannel fileChannel, Charset charset) throws InvalidRegexException, IOException {
+        return streamMatches(patternString, patternOptions, new MappedFileReader(fileChannel, charset));
+    }
+
     /**
      * Get all the occurrences of the regex in the input string.
      *
@@ -157,24 +779,145 @@ public class RegexUtility {
 //    }
 
     /**
-     * Get the regex fields that the provided input match.
+     * Registers a regex field, which is matched by probeRegexFieldNames() along with the fields already registered.
+     * The fields of RegexField that have a regex are registered by their names. Registering a field that is already
+     * registered replaces its regex.
+     *
+     * @param fieldName Name of the field.
+     * @param regex     Regex that the whole value of the field matches.
+     * @throws InvalidRegexException If the regex is invalid.
+     */
+    public static void registerRegexField(String fieldName, String regex) throws InvalidRegexException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(regex);
+        if(fieldName.isEmpty()) {
+            throw new IllegalArgumentException(
+                I18NUtility.getFormattedString(
+                    "input.validation.invalidActionOrArgumentMessage",
+                    "fieldName",
+                    fieldName
+                )
+            );
+        }
+        if(!isValidRegex(regex)) {
+            throw new InvalidRegexException(regex);
+        }
+        synchronized (regexFieldNameToRegexMap) {
+            // The registered fields are updated only once the matcher of the updated fields has been built
+            Map<String, String> updatedRegexFieldNameToRegexMap = new LinkedHashMap<>(regexFieldNameToRegexMap);
+            updatedRegexFieldNameToRegexMap.put(fieldName, regex);
+            MultiPatternMatcher updatedRegexFieldMatcher;
+            try {
+                updatedRegexFieldMatcher = new MultiPatternMatcher(updatedRegexFieldNameToRegexMap);
+            } catch (PatternSyntaxException e) {
+                logger.error(e);
+                throw new InvalidRegexException(regex);
+            }
+            regexFieldNameToRegexMap.put(fieldName, regex);
+            regexFieldMatcher = updatedRegexFieldMatcher;
+        }
+    }
+
+    /**
+     * Unregisters a regex field.
+     *
+     * @param fieldName Name of the field.
+     * @return true if the field was registered, else false.
+     */
+    public static boolean unregisterRegexField(String fieldName) {
+        synchronized (regexFieldNameToRegexMap) {
+            if(regexFieldNameToRegexMap.remove(Objects.requireNonNull(fieldName)) == null) {
+                return false;
+            }
+            regexFieldMatcher = new MultiPatternMatcher(regexFieldNameToRegexMap);
+            return true;
+        }
+    }
+
+    /**
+     * Get the registered regex fields.
+     *
+     * @return Regexs of the registered fields, keyed by the field names in the order they were registered.
+     */
+    public static Map<String, String> getRegisteredRegexFields() {
+        synchronized (regexFieldNameToRegexMap) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(regexFieldNameToRegexMap));
+        }
+    }
+
+    /**
+     * Get the names of the registered regex fields that the provided input match. All the fields are matched in a
+     * single scan of the input.
      *
      * @param data Input string.
-     * @return List of matching field names.
+     * @return List of matching field names, in the order the fields were registered.
      */
-    public static List<RegexField> probeRegexField(String data) {
-        List<RegexField> regexFields = Arrays.stream(RegexField.values())
-                .parallel()
-                .filter(regexField -> RegexUtility.matches(regexField.getRegex(), 0, data))
-                .collect(Collectors.toList());
+    public static List<String> probeRegexFieldNames(String data) {
+        List<String> regexFieldNames = regexFieldMatcher.getMatchingNames(data);
         logger.debug(
                     I18NUtility.getFormattedString(
                             "utilities.RegexUtility.possibleRegexFieldsForData",
                             data,
-                            Arrays.toString(regexFields.toArray())
+                            regexFieldNames
                     )
         );
-        return regexFields;
+        return regexFieldNames;
+    }
+
+    /**
+     * Get the regex fields that the provided input match.
+     *
+     * @param data Input string.
+     * @return List of matching field names.
+     */
+    public static List<RegexField> probeRegexField(String data) {
+        return probeRegexFieldNames(data)
+                .stream()
+                .map(regexFieldNameToRegexFieldMap::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Classifies values against the registered regex fields, Eg: The values of a CSV column.
+     *
+     * @param values Values to classify, null values match no field.
+     * @return The matching fields of each value, along with histograms of the matches.
+     */
+    public static BatchClassificationResult classifyRegexFields(Iterable<String> values) {
+        return classifyRegexFields(values, new BatchClassificationOptions());
+    }
+
+    /**
+     * Classifies values against the registered regex fields, Eg: The values of a CSV column. The values are read
+     * in chunks, which are classified concurrently.
+     *
+     * @param values  Values to classify, null values match no field.
+     * @param options Options of the classification.
+     * @return The matching fields of each value, along with histograms of the matches.
+     */
+    public static BatchClassificationResult classifyRegexFields(Iterable<String> values, BatchClassificationOptions options) {
+        return BatchClassifier.classify(
+            Objects.requireNonNull(values).iterator(),
+            regexFieldMatcher,
+            Objects.requireNonNull(options)
+        );
+    }
+
+    /**
+     * Classifies values against the registered regex fields, Eg: The values of a CSV column. The values are read
+     * in chunks, which are classified concurrently. The stream isn't closed.
+     *
+     * @param values  Values to classify, null values match no field.
+     * @param options Options of the classification.
+     * @return The matching fields of each value, along with histograms of the matches.
+     */
+    public static BatchClassificationResult classifyRegexFields(Stream<String> values, BatchClassificationOptions options) {
+        return BatchClassifier.classify(
+            Objects.requireNonNull(values).iterator(),
+            regexFieldMatcher,
+            Objects.requireNonNull(options)
+        );
     }
 
     private static String generateString(int length, String characterSet) {
@@ -199,12 +942,12 @@ public class RegexUtility {
     public static boolean isValidRegex(String regex) {
         boolean result;
         try {
-            Pattern.compile(regex);
+            getPattern(regex, 0);
             result = true;
         }
         catch (PatternSyntaxException e) {
             result = false;
-            logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), "Invalid", regex));
+            logger.debug(I18NUtility.getFormattedString("utilities.RegexUtility.invalidRegexMessage", regex));
         }
         return result;
     }
@@ -273,41 +1016,41 @@ public class RegexUtility {
             );
         }
 
-        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), ".*", RegexUtility.getAllMatches("\\.\\*", 0, result).size()));
-        result = result.replaceAll("\\.\\*", generateString(randomObj.nextInt(randomValueLength + 1), dotCharacters));
+        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), ".*", countMatches("\\.\\*", result)));
+        result = getPattern("\\.\\*", 0).matcher(result).replaceAll(generateString(randomObj.nextInt(randomValueLength + 1), dotCharacters));
 
-        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), ".+", RegexUtility.getAllMatches("\\.\\+", 0, result).size()));
-        result = result.replaceAll("\\.\\+", generateString(randomValueLength, dotCharacters));
+        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), ".+", countMatches("\\.\\+", result)));
+        result = getPattern("\\.\\+", 0).matcher(result).replaceAll(generateString(randomValueLength, dotCharacters));
 
-        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), ".", RegexUtility.getAllMatches("\\.", 0, result).size()));
-        result = result.replaceAll("\\.", generateString(1, dotCharacters));
+        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), ".", countMatches("\\.", result)));
+        result = getPattern("\\.", 0).matcher(result).replaceAll(generateString(1, dotCharacters));
 
-        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), "\\w*", RegexUtility.getAllMatches("\\\\w\\*", 0, result).size()));
-        result = result.replaceAll("\\\\w\\*", generateString(randomObj.nextInt(randomValueLength + 1), wCharacters));
+        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), "\\w*", countMatches("\\\\w\\*", result)));
+        result = getPattern("\\\\w\\*", 0).matcher(result).replaceAll(generateString(randomObj.nextInt(randomValueLength + 1), wCharacters));
 
-        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), "\\w+", RegexUtility.getAllMatches("\\\\w\\+", 0, result).size()));
-        result = result.replaceAll("\\\\w\\+", generateString(randomValueLength, wCharacters));
+        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), "\\w+", countMatches("\\\\w\\+", result)));
+        result = getPattern("\\\\w\\+", 0).matcher(result).replaceAll(generateString(randomValueLength, wCharacters));
 
-        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), "\\w", RegexUtility.getAllMatches("\\\\w", 0, result).size()));
-        result = result.replaceAll("\\\\w", generateString(1, wCharacters));
+        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), "\\w", countMatches("\\\\w", result)));
+        result = getPattern("\\\\w", 0).matcher(result).replaceAll(generateString(1, wCharacters));
 
-        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), "\\d*", RegexUtility.getAllMatches("\\\\d\\*", 0, result).size()));
-        result = result.replaceAll("\\\\d\\*", generateString(randomObj.nextInt(randomValueLength + 1), dCharacters));
+        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), "\\d*", countMatches("\\\\d\\*", result)));
+        result = getPattern("\\\\d\\*", 0).matcher(result).replaceAll(generateString(randomObj.nextInt(randomValueLength + 1), dCharacters));
 
-        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), "\\d+", RegexUtility.getAllMatches("\\\\d\\+", 0, result).size()));
-        result = result.replaceAll("\\\\d\\+", generateString(randomValueLength, dCharacters));
+        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), "\\d+", countMatches("\\\\d\\+", result)));
+        result = getPattern("\\\\d\\+", 0).matcher(result).replaceAll(generateString(randomValueLength, dCharacters));
 
-        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), "\\d", RegexUtility.getAllMatches("\\\\d", 0, result).size()));
-        result = result.replaceAll("\\\\d", generateString(1, dCharacters));
+        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), "\\d", countMatches("\\\\d", result)));
+        result = getPattern("\\\\d", 0).matcher(result).replaceAll(generateString(1, dCharacters));
 
-        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), "\\s*", RegexUtility.getAllMatches("\\\\s\\*", 0, result).size()));
-        result = result.replaceAll("\\\\s\\*", String.join("", Collections.nCopies(randomObj.nextInt(randomValueLength + 1), " ")));
+        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), "\\s*", countMatches("\\\\s\\*", result)));
+        result = getPattern("\\\\s\\*", 0).matcher(result).replaceAll(String.join("", Collections.nCopies(randomObj.nextInt(randomValueLength + 1), " ")));
 
-        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), "\\s+", RegexUtility.getAllMatches("\\\\s\\+", 0, result).size()));
-        result = result.replaceAll("\\\\s\\+", String.join("", Collections.nCopies(randomValueLength, " ")));
+        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), "\\s+", countMatches("\\\\s\\+", result)));
+        result = getPattern("\\\\s\\+", 0).matcher(result).replaceAll(String.join("", Collections.nCopies(randomValueLength, " ")));
 
-        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), "\\s", RegexUtility.getAllMatches("\\\\s", 0, result).size()));
-        result = result.replaceAll("\\\\s", " ");
+        logger.debug(String.format(I18NUtility.getString("utilities.RegexUtility.pattern.count"), "\\s", countMatches("\\\\s", result)));
+        result = getPattern("\\\\s", 0).matcher(result).replaceAll(" ");
 
         return result;
     }
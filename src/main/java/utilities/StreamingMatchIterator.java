@@ -0,0 +1,162 @@
+package utilities;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the matches of a pattern in the characters of a reader through a bounded window, so that the input doesn't
+ * have to fit in memory. The window is searched the way Matcher.find() searches a string. Whenever the matcher hits
+ * the end of the window before the end of the input (i.e. more input could change the result), the characters
+ * before the search position are discarded and the window is filled again before searching again.
+ *
+ * A few characters before the search position are retained as context for lookbehinds and boundaries. Matches are
+ * found as they would be in the whole input as long as they're at most half the size of the window, longer matches
+ * may be truncated or missed.
+ */
+class StreamingMatchIterator implements Iterator<RegexUtility.StreamMatch> {
+
+    private static final int MAX_CONTEXT_SIZE = 256;
+    private final Matcher matcher;
+    private final Reader reader;
+    private final char[] window;
+    private final int contextSize;
+    // Offset of the first character of the window within the input
+    private long windowOffset;
+    private int windowLength;
+    private int searchPosition;
+    private boolean isEndOfInput;
+    private boolean isExhausted;
+    private RegexUtility.StreamMatch nextMatch;
+
+    /**
+     * Creates an iterator.
+     * @param pattern    Pattern to find.
+     * @param reader     Reader of the input.
+     * @param windowSize Maximum number of characters held in memory.
+     */
+    StreamingMatchIterator(Pattern pattern, Reader reader, int windowSize) {
+        this.reader = reader;
+        window = new char[windowSize];
+        contextSize = Math.min(MAX_CONTEXT_SIZE, windowSize / 4);
+        // The bounds are retained when the matcher is reset to the refilled window
+        matcher = pattern.matcher(CharBuffer.wrap(window, 0, 0))
+                .useTransparentBounds(true)
+                .useAnchoringBounds(false);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if(nextMatch == null && !isExhausted) {
+            try {
+                nextMatch = findNext();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            isExhausted = nextMatch == null;
+        }
+        return nextMatch != null;
+    }
+
+    @Override
+    public RegexUtility.StreamMatch next() {
+        if(!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        RegexUtility.StreamMatch match = nextMatch;
+        nextMatch = null;
+        return match;
+    }
+
+    /**
+     * Finds the next match, reading more of the input as needed.
+     * @return The next match, null if there are no more matches.
+     * @throws IOException If the input couldn't be read.
+     */
+    private RegexUtility.StreamMatch findNext() throws IOException {
+        boolean isWindowFull = false;
+        while (true) {
+            if(searchPosition > windowLength) {
+                if(isEndOfInput) {
+                    return null;
+                }
+                fillWindow();
+                continue;
+            }
+            matcher.region(searchPosition, windowLength);
+            boolean isFound = matcher.find();
+            if(!isEndOfInput && !isWindowFull && matcher.hitEnd()) {
+                // Matches longer than half the window aren't supported, hence only the positions from the last half
+                // of the window (or from the match found there) have to be searched again
+                int lastHalfPosition = windowLength - window.length / 2;
+                searchPosition = Math.max(
+                    searchPosition,
+                    isFound ? Math.min(matcher.start(), lastHalfPosition) : lastHalfPosition
+                );
+                // The window has been refilled (or compacted), so it has to be searched again either way
+                isWindowFull = !fillWindow();
+                continue;
+            }
+            isWindowFull = false;
+            if(!isFound) {
+                if(isEndOfInput) {
+                    return null;
+                }
+                searchPosition = windowLength;
+                fillWindow();
+                continue;
+            }
+
+            List<String> groups = new ArrayList<>(matcher.groupCount() + 1);
+            for (int i = 0; i <= matcher.groupCount(); i++) {
+                groups.add(matcher.group(i));
+            }
+            RegexUtility.StreamMatch match = new RegexUtility.StreamMatch(
+                windowOffset + matcher.start(),
+                windowOffset + matcher.end(),
+                groups
+            );
+            // An empty match is followed by a search from the next character, as Matcher.find() does
+            searchPosition = matcher.end() == matcher.start() ? matcher.end() + 1 : matcher.end();
+            return match;
+        }
+    }
+
+    /**
+     * Discards the characters before the search position (except for the context) and reads more of the input into
+     * the window.
+     * @return true if the window could take more of the input, false if it's full.
+     * @throws IOException If the input couldn't be read.
+     */
+    private boolean fillWindow() throws IOException {
+        int discardedLength = Math.max(0, Math.min(searchPosition, windowLength) - contextSize);
+        if(discardedLength > 0) {
+            System.arraycopy(window, discardedLength, window, 0, windowLength - discardedLength);
+            windowOffset += discardedLength;
+            windowLength -= discardedLength;
+            searchPosition -= discardedLength;
+        }
+        boolean isFull = windowLength == window.length;
+        if(!isFull) {
+            int readLength;
+            do {
+                readLength = reader.read(window, windowLength, window.length - windowLength);
+            } while (readLength == 0);
+            if(readLength < 0) {
+                isEndOfInput = true;
+            }
+            else {
+                windowLength += readLength;
+            }
+        }
+        matcher.reset(CharBuffer.wrap(window, 0, windowLength));
+        return !isFull;
+    }
+}
@@ -0,0 +1,47 @@
+package utilities;
+
+import java.nio.file.WatchEvent;
+
+/**
+ * A WatchEvent that isn't retrieved from a WatchService, but derived from other events or from changes detected by
+ * FileUtility itself. Eg: The net change of a burst of events for a path.
+ * @param <T> Type of the context of the event.
+ */
+class SyntheticWatchEvent<T> implements WatchEvent<T> {
+
+    private final Kind<T> kind;
+    private final int count;
+    private final T context;
+
+    /**
+     * Creates a synthetic WatchEvent.
+     * @param kind    Kind of the event.
+     * @param count   Number of times the event has been observed.
+     * @param context Context of the event, the path relative to the registered directory for entry events.
+     */
+    SyntheticWatchEvent(Kind<T> kind, int count, T context) {
+        this.kind = kind;
+        this.count = count;
+        this.context = context;
+    }
+
+    @Override
+    public Kind<T> kind() {
+        return kind;
+    }
+
+    @Override
+    public int count() {
+        return count;
+    }
+
+    @Override
+    public T context() {
+        return context;
+    }
+
+    @Override
+    public String toString() {
+        return "SyntheticWatchEvent{kind=" + kind + ", count=" + count + ", context=" + context + "}";
+    }
+}
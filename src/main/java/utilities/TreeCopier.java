@@ -0,0 +1,261 @@
+package utilities;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Copies a tree on a fork join pool, sibling sub directories are copied concurrently. File contents are transferred
+ * with FileChannel.transferTo(), which lets the operating system copy the bytes without moving them through the
+ * JVM heap.
+ *
+ * A checkpoint file records the size, last modified time and relative path of every copied file, so that a copy
+ * interrupted midway skips them when resumed with the same checkpoint file, unless they have been modified since. The
+ * checkpoint file is deleted once the whole tree has been copied.
+ *
+ * Special files (Eg: named pipes and sockets) aren't copied, they're reported as failures so that a move doesn't
+ * delete them along with the source tree.
+ */
+class TreeCopier implements AttributeTreeWalker.Visitor {
+
+    private static final long TRANSFER_CHUNK_SIZE = 1024 * 1024;
+    private final Path sourceRoot;
+    private final Path targetRoot;
+    private final FileUtility.TreeCopyOptions options;
+    private final ByteRateLimiter byteRateLimiter;
+    private final long transferChunkSize;
+    private final boolean isPosixSupported;
+    // Lines of the checkpoint file, each made of the size, last modified time and relative path of a copied file
+    private final Set<String> checkpointEntries = new HashSet<>();
+    private BufferedWriter checkpointWriter;
+    private final Map<Path, BasicFileAttributes> directoryToAttributesMap = new ConcurrentHashMap<>();
+    private final LongAdder copiedPathCount = new LongAdder();
+    private final LongAdder copiedByteCount = new LongAdder();
+
+    /**
+     * Creates a copier.
+     * @param sourceRoot Root of the tree to copy.
+     * @param targetRoot Path to copy the root to.
+     * @param options    Options of the copy.
+     */
+    private TreeCopier(Path sourceRoot, Path targetRoot, FileUtility.TreeCopyOptions options) {
+        this.sourceRoot = sourceRoot;
+        this.targetRoot = targetRoot;
+        this.options = options;
+        if(options.getMaxBytesPerSecond() > 0) {
+            byteRateLimiter = new ByteRateLimiter(options.getMaxBytesPerSecond());
+            // Smaller chunks keep the pacing smooth for low rates
+            transferChunkSize = Math.min(TRANSFER_CHUNK_SIZE, options.getMaxBytesPerSecond());
+        }
+        else {
+            byteRateLimiter = null;
+            transferChunkSize = TRANSFER_CHUNK_SIZE;
+        }
+        isPosixSupported = sourceRoot.getFileSystem().supportedFileAttributeViews().contains("posix")
+                && targetRoot.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+
+    /**
+     * Copies a tree.
+     * @param sourceRoot Root of the tree to copy, a file or a directory.
+     * @param targetRoot Path to copy the root to.
+     * @param options    Options of the copy.
+     * @return The number of copied paths and the paths that couldn't be copied.
+     */
+    static FileUtility.BulkOperationResult copy(Path sourceRoot, Path targetRoot, FileUtility.TreeCopyOptions options) {
+        long startTimeInNanos = System.nanoTime();
+        TreeCopier treeCopier = new TreeCopier(sourceRoot, targetRoot, options);
+        AttributeTreeWalker treeWalker = new AttributeTreeWalker(
+            treeCopier,
+            Integer.MAX_VALUE,
+            treeCopier.isPosixSupported && options.isPreserveAttributes()
+        );
+        Path checkpointPath = options.getCheckpointPath();
+        try {
+            if(checkpointPath != null) {
+                if(Files.exists(checkpointPath)) {
+                    treeCopier.checkpointEntries.addAll(Files.readAllLines(checkpointPath, StandardCharsets.UTF_8));
+                }
+                treeCopier.checkpointWriter = Files.newBufferedWriter(
+                    checkpointPath,
+                    StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND
+                );
+            }
+
+            ForkJoinPool copyingPool = new ForkJoinPool(options.getParallelism());
+            try {
+                treeWalker.walk(sourceRoot, copyingPool);
+            } finally {
+                copyingPool.shutdown();
+            }
+
+            if(checkpointPath != null) {
+                treeCopier.checkpointWriter.close();
+                // A complete copy doesn't have to be resumed
+                if(treeWalker.getFailures().isEmpty()) {
+                    Files.delete(checkpointPath);
+                }
+            }
+        } catch (IOException e) {
+            treeWalker.getFailures().put(checkpointPath, e);
+        }
+        return new FileUtility.BulkOperationResult(
+            treeCopier.copiedPathCount.sum(),
+            treeWalker.getFailures(),
+            Duration.ofNanos(System.nanoTime() - startTimeInNanos)
+        );
+    }
+
+    /**
+     * Returns the path a source path is copied to.
+     * @param sourcePath Path within the source tree.
+     * @return Path within the target tree.
+     */
+    private Path getTargetPath(Path sourcePath) {
+        return targetRoot.resolve(sourceRoot.relativize(sourcePath).toString());
+    }
+
+    @Override
+    public boolean visit(Path sourcePath, BasicFileAttributes attributes) throws IOException {
+        Path targetPath = getTargetPath(sourcePath);
+        if(attributes.isDirectory()) {
+            try {
+                Files.createDirectory(targetPath);
+            } catch (FileAlreadyExistsException e) {
+                if(!Files.isDirectory(targetPath, LinkOption.NOFOLLOW_LINKS)) {
+                    throw e;
+                }
+            }
+            // The attributes are copied after the contents, which would update the last modified time otherwise
+            directoryToAttributesMap.put(sourcePath, attributes);
+            return true;
+        }
+
+        if(attributes.isSymbolicLink()) {
+            Files.deleteIfExists(targetPath);
+            Files.createSymbolicLink(targetPath, Files.readSymbolicLink(sourcePath));
+            recordCopiedPath(sourcePath, targetPath);
+        }
+        else if(attributes.isRegularFile()) {
+            // The attributes are read before the file is copied, so a file modified while being copied is copied again
+            String checkpointEntry = attributes.size()
+                    + "\t" + attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS)
+                    + "\t" + sourceRoot.relativize(sourcePath);
+            if(checkpointEntries.contains(checkpointEntry)) {
+                return false;
+            }
+            copyFile(sourcePath, targetPath);
+            copyAttributes(sourcePath, attributes, targetPath);
+            if(checkpointWriter != null) {
+                synchronized (checkpointWriter) {
+                    checkpointWriter.write(checkpointEntry);
+                    checkpointWriter.newLine();
+                    checkpointWriter.flush();
+                }
+            }
+            recordCopiedPath(sourcePath, targetPath);
+        }
+        else {
+            throw new IOException(
+                I18NUtility.getFormattedString("utilities.FileUtility.unsupportedFileType", sourcePath)
+            );
+        }
+        return false;
+    }
+
+    @Override
+    public void postVisitDirectory(Path sourceDirectory, boolean isSubtreeVisited) throws IOException {
+        BasicFileAttributes attributes = directoryToAttributesMap.remove(sourceDirectory);
+        // A partially copied directory keeps its default permissions, a read only one couldn't be resumed otherwise
+        if(!isSubtreeVisited) {
+            return;
+        }
+        Path targetDirectory = getTargetPath(sourceDirectory);
+        copyAttributes(sourceDirectory, attributes, targetDirectory);
+        recordCopiedPath(sourceDirectory, targetDirectory);
+    }
+
+    /**
+     * Counts a copied path and reports the progress.
+     * @param sourcePath Copied path.
+     * @param targetPath Path it has been copied to.
+     */
+    private void recordCopiedPath(Path sourcePath, Path targetPath) {
+        copiedPathCount.increment();
+        if(options.getProgressListener() != null) {
+            options.getProgressListener()
+                    .onProgress(sourcePath, targetPath, copiedPathCount.sum(), copiedByteCount.sum());
+        }
+    }
+
+    /**
+     * Transfers the contents of a file in chunks, each of them throttled if needed.
+     * @param sourceFile File to copy.
+     * @param targetFile File to copy to, replaced if it exists.
+     * @throws IOException If the file couldn't be copied.
+     */
+    private void copyFile(Path sourceFile, Path targetFile) throws IOException {
+        try (FileChannel sourceChannel = FileChannel.open(sourceFile, StandardOpenOption.READ);
+             FileChannel targetChannel = FileChannel.open(
+                 targetFile,
+                 StandardOpenOption.CREATE,
+                 StandardOpenOption.TRUNCATE_EXISTING,
+                 StandardOpenOption.WRITE
+             )) {
+            long size = sourceChannel.size();
+            long position = 0;
+            while (position < size) {
+                long chunkSize = Math.min(transferChunkSize, size - position);
+                if(byteRateLimiter != null) {
+                    byteRateLimiter.acquire(chunkSize);
+                }
+                long transferredByteCount = sourceChannel.transferTo(position, chunkSize, targetChannel);
+                // The file has been truncated since its size was read
+                if(transferredByteCount == 0) {
+                    break;
+                }
+                position += transferredByteCount;
+                copiedByteCount.add(transferredByteCount);
+            }
+        }
+    }
+
+    /**
+     * Copies the POSIX permissions (if supported) and the times of a path, unless attributes aren't to be preserved.
+     * @param sourcePath Path to copy the attributes of.
+     * @param attributes Attributes of the path.
+     * @param targetPath Path to copy the attributes to.
+     * @throws IOException If the attributes couldn't be copied.
+     */
+    private void copyAttributes(Path sourcePath, BasicFileAttributes attributes, Path targetPath) throws IOException {
+        if(!options.isPreserveAttributes()) {
+            return;
+        }
+        if(isPosixSupported) {
+            Files.setPosixFilePermissions(
+                targetPath,
+                AttributeTreeWalker.getPosixFileAttributes(sourcePath, attributes).permissions()
+            );
+        }
+        Files.getFileAttributeView(targetPath, BasicFileAttributeView.class)
+                .setTimes(attributes.lastModifiedTime(), attributes.lastAccessTime(), attributes.creationTime());
+    }
+}
@@ -0,0 +1,256 @@
+package utilities;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Executes WatchService event consumers on an executor instead of the dispatcher thread.
+ *
+ * Events are queued in a bounded lane per registered directory. Only one task per lane is submitted to the executor
+ * at a time, so the events of a directory are consumed in the order in which they were generated, while the events of
+ * different directories are consumed concurrently.
+ */
+class WatchEventConsumerExecutor {
+
+    static class WatchEventDelivery {
+
+        private final Path changePath;
+        private final WatchEvent<?> watchEvent;
+        private final Runnable deliveryAction;
+        private final Runnable discardAction;
+
+        /**
+         * A WatchEventDelivery abstracts an event waiting to be handed over to its consumer.
+         * @param changePath     Path affected by the event.
+         * @param watchEvent     The event to deliver.
+         * @param deliveryAction Invokes the consumer with the event.
+         * @param discardAction  Invoked instead of the delivery action if the event is dropped or coalesced.
+         */
+        public WatchEventDelivery(Path changePath, WatchEvent<?> watchEvent, Runnable deliveryAction, Runnable discardAction) {
+            this.changePath = changePath;
+            this.watchEvent = watchEvent;
+            this.deliveryAction = deliveryAction;
+            this.discardAction = discardAction;
+        }
+
+        /**
+         * Returns the path affected by the event.
+         * @return Path affected by the event.
+         */
+        public Path getChangePath() {
+            return changePath;
+        }
+
+        /**
+         * Returns the event to deliver.
+         * @return The event to deliver.
+         */
+        public WatchEvent<?> getWatchEvent() {
+            return watchEvent;
+        }
+
+        /**
+         * Invokes the consumer with the event.
+         */
+        public void deliver() {
+            deliveryAction.run();
+        }
+
+        /**
+         * Discards the event without invoking the consumer.
+         */
+        public void discard() {
+            discardAction.run();
+        }
+    }
+
+    private class WatchEventConsumerLane implements Runnable {
+
+        private final ArrayDeque<WatchEventDelivery> pendingDeliveries = new ArrayDeque<>();
+        private boolean scheduled = false;
+        private boolean retired = false;
+
+        /**
+         * Queues a delivery, applying the backpressure policy if the lane is full, and schedules the lane with the
+         * executor if it's not already scheduled.
+         * @param watchEventDelivery Delivery to queue.
+         * @return false if the lane has been retired, in which case the delivery isn't queued, else true.
+         * @throws InterruptedException Thrown if the calling thread is interrupted while waiting for space.
+         */
+        public boolean enqueue(WatchEventDelivery watchEventDelivery) throws InterruptedException {
+            WatchEventDelivery discardedDelivery = null;
+            boolean schedule;
+            synchronized (this) {
+                if(retired) {
+                    return false;
+                }
+                if(backpressurePolicy == FileUtility.WatchEventBackpressurePolicy.COALESCE
+                        && isSameAsLastPendingDeliveryOfPath(watchEventDelivery)) {
+                    discardedDelivery = watchEventDelivery;
+                }
+                else {
+                    while (pendingDeliveries.size() >= queueCapacity) {
+                        if(backpressurePolicy == FileUtility.WatchEventBackpressurePolicy.DROP_OLDEST) {
+                            discardedDelivery = pendingDeliveries.pollFirst();
+                        }
+                        else {
+                            wait();
+                            // The lane may have been drained and retired meanwhile
+                            if(retired) {
+                                return false;
+                            }
+                        }
+                    }
+                    pendingDeliveries.addLast(watchEventDelivery);
+                }
+                schedule = !scheduled && !pendingDeliveries.isEmpty();
+                scheduled |= schedule;
+            }
+
+            if(discardedDelivery != null) {
+                discardedDelivery.discard();
+            }
+            if(schedule) {
+                schedule();
+            }
+            return true;
+        }
+
+        /**
+         * Submits the lane to the executor. If the executor rejects it, the pending events are consumed on the calling
+         * thread until the lane is empty instead.
+         */
+        private void schedule() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                logger.warn(e);
+                boolean hasPendingDeliveries = true;
+                while (hasPendingDeliveries) {
+                    hasPendingDeliveries = deliverPendingDeliveries();
+                }
+            }
+        }
+
+        /**
+         * Checks if the last pending delivery of the same path is of the same kind, in which case delivering both is
+         * redundant. Only the last pending delivery of the path is compared, so that the order of different kinds of
+         * events of a path is retained.
+         * @param watchEventDelivery Delivery to check.
+         * @return true if the delivery can be coalesced with a pending one, else false.
+         */
+        private boolean isSameAsLastPendingDeliveryOfPath(WatchEventDelivery watchEventDelivery) {
+            Iterator<WatchEventDelivery> pendingDeliveriesIterator = pendingDeliveries.descendingIterator();
+            while (pendingDeliveriesIterator.hasNext()) {
+                WatchEventDelivery pendingDelivery = pendingDeliveriesIterator.next();
+                if(Objects.equals(pendingDelivery.getChangePath(), watchEventDelivery.getChangePath())) {
+                    return pendingDelivery.getWatchEvent().kind() == watchEventDelivery.getWatchEvent().kind();
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Retires the lane if there aren't any pending or running deliveries in it, so that it doesn't accept any more
+         * deliveries once it's removed.
+         * @return true if the lane has been retired, else false.
+         */
+        public synchronized boolean retireIfIdle() {
+            retired |= !scheduled && pendingDeliveries.isEmpty();
+            return retired;
+        }
+
+        /**
+         * Delivers at most a lane capacity worth of pending events and then yields the executor thread by
+         * rescheduling the lane, if there are still pending events.
+         */
+        @Override
+        public void run() {
+            if(deliverPendingDeliveries()) {
+                schedule();
+            }
+        }
+
+        /**
+         * Delivers at most a lane capacity worth of pending events. The lane is marked as not scheduled once it's
+         * empty.
+         * @return true if there are still pending events, else false.
+         */
+        private boolean deliverPendingDeliveries() {
+            for (int deliveredCount = 0; deliveredCount < queueCapacity; deliveredCount++) {
+                WatchEventDelivery watchEventDelivery;
+                synchronized (this) {
+                    watchEventDelivery = pendingDeliveries.pollFirst();
+                    // Wake up the producers waiting for space
+                    notifyAll();
+                    if(watchEventDelivery == null) {
+                        scheduled = false;
+                        return false;
+                    }
+                }
+                watchEventDelivery.deliver();
+            }
+            return true;
+        }
+    }
+
+    private static final Logger logger = LogManager.getLogger(WatchEventConsumerExecutor.class);
+    private final Executor executor;
+    private final int queueCapacity;
+    private final FileUtility.WatchEventBackpressurePolicy backpressurePolicy;
+    private final ConcurrentHashMap<String, WatchEventConsumerLane> laneKeyToWatchEventConsumerLaneMap = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an executor for WatchService event consumers.
+     * @param executor           Executor on which the consumers are invoked.
+     * @param queueCapacity      Maximum number of events waiting to be consumed per registered directory.
+     * @param backpressurePolicy Policy to apply when the events of a registered directory are generated faster than
+     *                           they're consumed.
+     */
+    WatchEventConsumerExecutor(Executor executor, int queueCapacity, FileUtility.WatchEventBackpressurePolicy backpressurePolicy) {
+        this.executor = executor;
+        this.queueCapacity = queueCapacity;
+        this.backpressurePolicy = backpressurePolicy;
+    }
+
+    /**
+     * Queues a delivery in the lane of a registered directory.
+     * @param laneKey            Registered directory whose events are to be consumed in order.
+     * @param watchEventDelivery Delivery to queue.
+     * @throws InterruptedException Thrown if the calling thread is interrupted while waiting for space in the lane.
+     */
+    void submit(String laneKey, WatchEventDelivery watchEventDelivery) throws InterruptedException {
+        while (true) {
+            WatchEventConsumerLane watchEventConsumerLane = laneKeyToWatchEventConsumerLaneMap.computeIfAbsent(
+                laneKey,
+                newLaneKey -> new WatchEventConsumerLane()
+            );
+            if(watchEventConsumerLane.enqueue(watchEventDelivery)) {
+                return;
+            }
+            // The lane has been retired after it was looked up, the delivery is queued in a new lane instead
+            laneKeyToWatchEventConsumerLaneMap.remove(laneKey, watchEventConsumerLane);
+        }
+    }
+
+    /**
+     * Removes the lane of a registered directory if it doesn't have any pending events. The lane is retired before
+     * it's removed, so that a delivery submitted to it concurrently is queued in a new lane instead of being orphaned.
+     * @param laneKey Registered directory whose lane is to be removed.
+     */
+    void removeLaneIfIdle(String laneKey) {
+        laneKeyToWatchEventConsumerLaneMap.computeIfPresent(
+            laneKey,
+            (existingLaneKey, watchEventConsumerLane) -> watchEventConsumerLane.retireIfIdle() ? null : watchEventConsumerLane
+        );
+    }
+}
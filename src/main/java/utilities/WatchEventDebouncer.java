@@ -0,0 +1,248 @@
+package utilities;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Merges the WatchService events of a path that are generated in quick succession into their net change.
+ *
+ * The events of a path are held back until no new event has been generated for it within the debounce window. They're
+ * then merged based on whether the path existed before the first event and after the last event. Eg:
+ * ENTRY_CREATE + ENTRY_MODIFY results in ENTRY_CREATE, ENTRY_MODIFY + ENTRY_DELETE results in ENTRY_DELETE and
+ * ENTRY_CREATE + ENTRY_MODIFY + ENTRY_DELETE results in no event at all.
+ */
+class WatchEventDebouncer {
+
+    private static class PendingWatchEvent {
+
+        private final WatchEvent<?> firstWatchEvent;
+        private final WatchEvent.Kind<?>[] eventsToWatch;
+        private final BiConsumer<Path, WatchEvent<?>> flushAction;
+        private WatchEvent<?> lastWatchEvent;
+        private int count;
+        private long deadlineInNanos;
+
+        /**
+         * A PendingWatchEvent abstracts the events of a path that are yet to be merged and flushed.
+         * @param watchEvent      First event of the path.
+         * @param eventsToWatch   Events the path's directory is registered for.
+         * @param flushAction     Invoked with each net event of the path once it's flushed.
+         * @param deadlineInNanos Time (as per System.nanoTime()) after which the events can be flushed.
+         */
+        public PendingWatchEvent(WatchEvent<?> watchEvent, WatchEvent.Kind<?>[] eventsToWatch, BiConsumer<Path, WatchEvent<?>> flushAction, long deadlineInNanos) {
+            this.firstWatchEvent = watchEvent;
+            this.eventsToWatch = eventsToWatch;
+            this.flushAction = flushAction;
+            this.lastWatchEvent = watchEvent;
+            this.count = watchEvent.count();
+            this.deadlineInNanos = deadlineInNanos;
+        }
+
+        /**
+         * Merges a subsequent event of the path.
+         * @param watchEvent      Event to merge.
+         * @param deadlineInNanos Time (as per System.nanoTime()) after which the events can be flushed.
+         */
+        public void merge(WatchEvent<?> watchEvent, long deadlineInNanos) {
+            this.lastWatchEvent = watchEvent;
+            this.count += watchEvent.count();
+            this.deadlineInNanos = deadlineInNanos;
+        }
+
+        /**
+         * Returns the time (as per System.nanoTime()) after which the events can be flushed.
+         * @return Time after which the events can be flushed.
+         */
+        public long getDeadlineInNanos() {
+            return deadlineInNanos;
+        }
+
+        /**
+         * Computes the net change of the merged events.
+         * @return Events representing the net change, empty if the path neither existed before nor after the events.
+         */
+        public List<WatchEvent<?>> getNetWatchEvents() {
+            if(firstWatchEvent == lastWatchEvent) {
+                return Collections.singletonList(firstWatchEvent);
+            }
+            if(firstWatchEvent.kind() == StandardWatchEventKinds.OVERFLOW) {
+                return Collections.singletonList(createNetWatchEvent(StandardWatchEventKinds.OVERFLOW));
+            }
+
+            boolean existedBefore = firstWatchEvent.kind() != StandardWatchEventKinds.ENTRY_CREATE;
+            boolean existsAfter = lastWatchEvent.kind() != StandardWatchEventKinds.ENTRY_DELETE;
+            if(!existedBefore && existsAfter) {
+                return Collections.singletonList(createNetWatchEvent(StandardWatchEventKinds.ENTRY_CREATE));
+            }
+            else if(existedBefore && !existsAfter) {
+                return Collections.singletonList(createNetWatchEvent(StandardWatchEventKinds.ENTRY_DELETE));
+            }
+            else if(existedBefore) {
+                // The path has been replaced, Eg: By an editor saving a file through a rename.
+                if(Arrays.asList(eventsToWatch).contains(StandardWatchEventKinds.ENTRY_MODIFY)) {
+                    return Collections.singletonList(createNetWatchEvent(StandardWatchEventKinds.ENTRY_MODIFY));
+                }
+                return Arrays.asList(
+                    createNetWatchEvent(StandardWatchEventKinds.ENTRY_DELETE),
+                    createNetWatchEvent(StandardWatchEventKinds.ENTRY_CREATE)
+                );
+            }
+            return Collections.emptyList();
+        }
+
+        /**
+         * Creates an event of the specified kind for the path, carrying the count of the merged events.
+         * @param kind Kind of the event to create.
+         * @return The created event.
+         */
+        @SuppressWarnings("unchecked")
+        private WatchEvent<?> createNetWatchEvent(WatchEvent.Kind<?> kind) {
+            return new SyntheticWatchEvent<>((WatchEvent.Kind<Object>) kind, count, lastWatchEvent.context());
+        }
+
+        /**
+         * Invokes the flush action with each net event of the path.
+         * @param changePath Path affected by the events.
+         */
+        public void flush(Path changePath) {
+            try {
+                getNetWatchEvents().forEach(netWatchEvent -> flushAction.accept(changePath, netWatchEvent));
+            } catch (RuntimeException e) {
+                // A failing flush must not stop the thread flushing the events of other paths
+                logger.error(e);
+            }
+        }
+    }
+
+    private static final Logger logger = LogManager.getLogger(WatchEventDebouncer.class);
+    private final long windowInNanos;
+    private final ScheduledExecutorService flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread flushThread = new Thread(runnable, "FileUtility-WatchEventDebouncer");
+        flushThread.setDaemon(true);
+        return flushThread;
+    });
+    private final Map<String, Map<Path, PendingWatchEvent>> registeredPathToPendingWatchEventsMap = new HashMap<>();
+    private boolean closed = false;
+
+    /**
+     * Creates a debouncer for WatchService events.
+     * @param window Time for which no new event has to be generated for a path before its events are flushed.
+     */
+    WatchEventDebouncer(Duration window) {
+        this.windowInNanos = window.toNanos();
+    }
+
+    /**
+     * Holds back an event until the debounce window of its path elapses.
+     * @param registeredPathKey Registered directory whose WatchKey generated the event.
+     * @param changePath        Path affected by the event.
+     * @param watchEvent        The event to hold back.
+     * @param eventsToWatch     Events the registered directory is registered for.
+     * @param flushAction       Invoked with each net event of the path once it's flushed.
+     */
+    void submit(String registeredPathKey, Path changePath, WatchEvent<?> watchEvent, WatchEvent.Kind<?>[] eventsToWatch, BiConsumer<Path, WatchEvent<?>> flushAction) {
+        PendingWatchEvent pendingWatchEventToFlush = null;
+        synchronized (this) {
+            long deadlineInNanos = System.nanoTime() + windowInNanos;
+            if(closed) {
+                // Events retrieved while debouncing is being disabled are flushed right away
+                pendingWatchEventToFlush = new PendingWatchEvent(watchEvent, eventsToWatch, flushAction, deadlineInNanos);
+            }
+            else {
+                Map<Path, PendingWatchEvent> pendingWatchEvents = registeredPathToPendingWatchEventsMap.computeIfAbsent(
+                    registeredPathKey,
+                    newRegisteredPathKey -> new LinkedHashMap<>()
+                );
+                PendingWatchEvent pendingWatchEvent = pendingWatchEvents.get(changePath);
+                if(pendingWatchEvent == null) {
+                    PendingWatchEvent newPendingWatchEvent = new PendingWatchEvent(watchEvent, eventsToWatch, flushAction, deadlineInNanos);
+                    pendingWatchEvents.put(changePath, newPendingWatchEvent);
+                    scheduleFlush(registeredPathKey, changePath, newPendingWatchEvent, windowInNanos);
+                }
+                else {
+                    pendingWatchEvent.merge(watchEvent, deadlineInNanos);
+                }
+            }
+        }
+
+        if(pendingWatchEventToFlush != null) {
+            pendingWatchEventToFlush.flush(changePath);
+        }
+    }
+
+    /**
+     * Schedules a check for whether the debounce window of a path has elapsed.
+     * @param registeredPathKey Registered directory whose WatchKey generated the events.
+     * @param changePath        Path affected by the events.
+     * @param pendingWatchEvent Events of the path that are yet to be flushed.
+     * @param delayInNanos      Delay after which the check is to be done.
+     */
+    private void scheduleFlush(String registeredPathKey, Path changePath, PendingWatchEvent pendingWatchEvent, long delayInNanos) {
+        flushScheduler.schedule(
+            () -> flushIfWindowElapsed(registeredPathKey, changePath, pendingWatchEvent),
+            delayInNanos,
+            TimeUnit.NANOSECONDS
+        );
+    }
+
+    /**
+     * Flushes the events of a path if no new event has been generated for it within the debounce window, else
+     * reschedules the check for when the window would elapse.
+     * @param registeredPathKey Registered directory whose WatchKey generated the events.
+     * @param changePath        Path affected by the events.
+     * @param pendingWatchEvent Events of the path that are yet to be flushed.
+     */
+    private void flushIfWindowElapsed(String registeredPathKey, Path changePath, PendingWatchEvent pendingWatchEvent) {
+        synchronized (this) {
+            Map<Path, PendingWatchEvent> pendingWatchEvents = registeredPathToPendingWatchEventsMap.get(registeredPathKey);
+            // The events have already been flushed while closing
+            if(pendingWatchEvents == null || pendingWatchEvents.get(changePath) != pendingWatchEvent) {
+                return;
+            }
+            long remainingWindowInNanos = pendingWatchEvent.getDeadlineInNanos() - System.nanoTime();
+            if(remainingWindowInNanos > 0) {
+                scheduleFlush(registeredPathKey, changePath, pendingWatchEvent, remainingWindowInNanos);
+                return;
+            }
+            pendingWatchEvents.remove(changePath);
+            if(pendingWatchEvents.isEmpty()) {
+                registeredPathToPendingWatchEventsMap.remove(registeredPathKey);
+            }
+        }
+        pendingWatchEvent.flush(changePath);
+    }
+
+    /**
+     * Flushes all the pending events without waiting for their debounce windows to elapse and stops the flush thread.
+     */
+    void close() {
+        List<Map<Path, PendingWatchEvent>> pendingWatchEventsToFlush;
+        synchronized (this) {
+            closed = true;
+            pendingWatchEventsToFlush = new ArrayList<>(registeredPathToPendingWatchEventsMap.values());
+            registeredPathToPendingWatchEventsMap.clear();
+        }
+        flushScheduler.shutdownNow();
+        pendingWatchEventsToFlush.forEach(
+            pendingWatchEvents -> pendingWatchEvents.forEach(
+                (changePath, pendingWatchEvent) -> pendingWatchEvent.flush(changePath)
+            )
+        );
+    }
+}
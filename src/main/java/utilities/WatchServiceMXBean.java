@@ -0,0 +1,65 @@
+package utilities;
+
+import java.util.Map;
+
+/**
+ * Management interface of the FileUtility WatchService machinery, registered with the platform MBean server as
+ * utilities:type=FileUtility,name=WatchService. FileUtility.getWatchServiceMetrics() returns a snapshot of the same
+ * metrics.
+ */
+public interface WatchServiceMXBean {
+
+    /**
+     * Returns the number of directories currently registered with a WatchService.
+     * @return Number of registered directories.
+     */
+    long getRegisteredDirectoryCount();
+
+    /**
+     * Returns the number of WatchService instances, one per file system with registered directories.
+     * @return Number of WatchService instances.
+     */
+    int getWatchServiceCount();
+
+    /**
+     * Returns the number of watch keys retrieved by the dispatcher loops.
+     * @return Number of dispatcher loop iterations.
+     */
+    long getDispatchLoopIterationCount();
+
+    /**
+     * Returns the number of events handed over to consumers, mapped by the names of their kinds.
+     * @return Number of delivered events per kind.
+     */
+    Map<String, Long> getDeliveredEventCounts();
+
+    /**
+     * Returns the number of directories registered with a WatchService so far.
+     * @return Number of registrations.
+     */
+    long getRegistrationCount();
+
+    /**
+     * Returns the number of directories that couldn't be registered with a WatchService.
+     * @return Number of failed registrations.
+     */
+    long getRegistrationFailureCount();
+
+    /**
+     * Returns the number of directories deregistered so far, either explicitly or because they became inaccessible.
+     * @return Number of deregistrations.
+     */
+    long getDeregistrationCount();
+
+    /**
+     * Returns the number of times consumers have been invoked.
+     * @return Number of consumer invocations.
+     */
+    long getConsumerInvocationCount();
+
+    /**
+     * Returns the total time spent in consumers.
+     * @return Time spent in consumers in nanoseconds.
+     */
+    long getConsumerTimeInNanos();
+}
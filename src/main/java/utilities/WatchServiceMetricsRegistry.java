@@ -0,0 +1,146 @@
+package utilities;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.WatchEvent;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Live metrics of the FileUtility WatchService machinery. The counters are updated from the registration, dispatch
+ * and deregistration paths and are exposed through JMX.
+ */
+class WatchServiceMetricsRegistry implements WatchServiceMXBean {
+
+    private static final Logger logger = LogManager.getLogger(WatchServiceMetricsRegistry.class);
+    static final String OBJECT_NAME = "utilities:type=FileUtility,name=WatchService";
+    private final LongSupplier registeredDirectoryCountSupplier;
+    private final IntSupplier watchServiceCountSupplier;
+    private final LongAdder dispatchLoopIterationCount = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> eventKindToDeliveredEventCountMap = new ConcurrentHashMap<>();
+    private final LongAdder registrationCount = new LongAdder();
+    private final LongAdder registrationFailureCount = new LongAdder();
+    private final LongAdder deregistrationCount = new LongAdder();
+    private final LongAdder consumerInvocationCount = new LongAdder();
+    private final LongAdder consumerTimeInNanos = new LongAdder();
+
+    /**
+     * Creates a metrics registry.
+     * @param registeredDirectoryCountSupplier Supplies the number of currently registered directories.
+     * @param watchServiceCountSupplier        Supplies the number of WatchService instances.
+     */
+    WatchServiceMetricsRegistry(LongSupplier registeredDirectoryCountSupplier, IntSupplier watchServiceCountSupplier) {
+        this.registeredDirectoryCountSupplier = registeredDirectoryCountSupplier;
+        this.watchServiceCountSupplier = watchServiceCountSupplier;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server. Failing to do so doesn't affect the WatchService machinery,
+     * Eg: If the MBean has already been registered by another class loader.
+     */
+    void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            logger.warn(e);
+        }
+    }
+
+    /**
+     * Records an iteration of a dispatcher loop.
+     */
+    void recordDispatchLoopIteration() {
+        dispatchLoopIterationCount.increment();
+    }
+
+    /**
+     * Records an event handed over to a consumer and the time the consumer took.
+     * @param eventKind             Kind of the event.
+     * @param consumerTimeInNanos   Time taken by the consumer.
+     */
+    void recordDeliveredEvent(WatchEvent.Kind<?> eventKind, long consumerTimeInNanos) {
+        eventKindToDeliveredEventCountMap.computeIfAbsent(eventKind.name(), eventKindName -> new LongAdder())
+                .increment();
+        consumerInvocationCount.increment();
+        this.consumerTimeInNanos.add(consumerTimeInNanos);
+    }
+
+    /**
+     * Records a directory registered with a WatchService.
+     */
+    void recordRegistration() {
+        registrationCount.increment();
+    }
+
+    /**
+     * Records a directory that couldn't be registered with a WatchService.
+     */
+    void recordRegistrationFailure() {
+        registrationFailureCount.increment();
+    }
+
+    /**
+     * Records a deregistered directory.
+     */
+    void recordDeregistration() {
+        deregistrationCount.increment();
+    }
+
+    @Override
+    public long getRegisteredDirectoryCount() {
+        return registeredDirectoryCountSupplier.getAsLong();
+    }
+
+    @Override
+    public int getWatchServiceCount() {
+        return watchServiceCountSupplier.getAsInt();
+    }
+
+    @Override
+    public long getDispatchLoopIterationCount() {
+        return dispatchLoopIterationCount.sum();
+    }
+
+    @Override
+    public Map<String, Long> getDeliveredEventCounts() {
+        Map<String, Long> deliveredEventCounts = new TreeMap<>();
+        eventKindToDeliveredEventCountMap.forEach(
+            (eventKindName, deliveredEventCount) -> deliveredEventCounts.put(eventKindName, deliveredEventCount.sum())
+        );
+        return deliveredEventCounts;
+    }
+
+    @Override
+    public long getRegistrationCount() {
+        return registrationCount.sum();
+    }
+
+    @Override
+    public long getRegistrationFailureCount() {
+        return registrationFailureCount.sum();
+    }
+
+    @Override
+    public long getDeregistrationCount() {
+        return deregistrationCount.sum();
+    }
+
+    @Override
+    public long getConsumerInvocationCount() {
+        return consumerInvocationCount.sum();
+    }
+
+    @Override
+    public long getConsumerTimeInNanos() {
+        return consumerTimeInNanos.sum();
+    }
+}
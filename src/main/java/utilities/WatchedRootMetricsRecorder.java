@@ -0,0 +1,95 @@
+package utilities;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the metrics of the WatchService events generated for a watched root, i.e. a path registered through
+ * FileUtility along with all the directories registered beneath it.
+ */
+class WatchedRootMetricsRecorder {
+
+    private static final int eventRateWindowInSeconds = 10;
+    private final Path rootPath;
+    private final LongAdder droppedEventsCount = new LongAdder();
+    private final long[] eventCountPerSecond = new long[eventRateWindowInSeconds];
+    private final long[] eventCountSecond = new long[eventRateWindowInSeconds];
+    private final long[] consumerLatencySamplesInNanos;
+    private int nextConsumerLatencySampleIndex = 0;
+    private int consumerLatencySamplesCount = 0;
+
+    /**
+     * Creates a metrics recorder for a watched root.
+     * @param rootPath                   Path of the watched root.
+     * @param consumerLatencySampleSize  Number of most recent consumer latencies to compute the percentiles from.
+     */
+    WatchedRootMetricsRecorder(Path rootPath, int consumerLatencySampleSize) {
+        this.rootPath = rootPath;
+        this.consumerLatencySamplesInNanos = new long[consumerLatencySampleSize];
+    }
+
+    /**
+     * Returns the path of the watched root.
+     * @return Path of the watched root.
+     */
+    Path getRootPath() {
+        return rootPath;
+    }
+
+    /**
+     * Records an event that has been retrieved for the watched root.
+     */
+    synchronized void recordEvent() {
+        long currentSecond = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        int bucketIndex = (int) Math.floorMod(currentSecond, (long) eventRateWindowInSeconds);
+        if(eventCountSecond[bucketIndex] != currentSecond) {
+            eventCountSecond[bucketIndex] = currentSecond;
+            eventCountPerSecond[bucketIndex] = 0;
+        }
+        eventCountPerSecond[bucketIndex]++;
+    }
+
+    /**
+     * Records an event that has been dropped as its queue was full.
+     */
+    void recordDroppedEvent() {
+        droppedEventsCount.increment();
+    }
+
+    /**
+     * Records the time taken from queueing an event till its consumer returned.
+     * @param consumerLatencyInNanos Time taken to consume the event.
+     */
+    synchronized void recordConsumerLatency(long consumerLatencyInNanos) {
+        consumerLatencySamplesInNanos[nextConsumerLatencySampleIndex] = consumerLatencyInNanos;
+        nextConsumerLatencySampleIndex = (nextConsumerLatencySampleIndex + 1) % consumerLatencySamplesInNanos.length;
+        consumerLatencySamplesCount = Math.min(consumerLatencySamplesCount + 1, consumerLatencySamplesInNanos.length);
+    }
+
+    /**
+     * Takes a snapshot of the metrics recorded so far.
+     * @param queueDepth Number of events of the watched root currently waiting to be consumed.
+     * @return Snapshot of the metrics of the watched root.
+     */
+    synchronized FileUtility.WatchedRootMetrics getMetrics(long queueDepth) {
+        long currentSecond = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        long eventsCount = 0;
+        for (int bucketIndex = 0; bucketIndex < eventRateWindowInSeconds; bucketIndex++) {
+            if(currentSecond - eventCountSecond[bucketIndex] < eventRateWindowInSeconds) {
+                eventsCount += eventCountPerSecond[bucketIndex];
+            }
+        }
+        long[] sortedConsumerLatenciesInNanos = Arrays.copyOf(consumerLatencySamplesInNanos, consumerLatencySamplesCount);
+        Arrays.sort(sortedConsumerLatenciesInNanos);
+
+        return new FileUtility.WatchedRootMetrics(
+            rootPath,
+            queueDepth,
+            (double) eventsCount / eventRateWindowInSeconds,
+            droppedEventsCount.sum(),
+            sortedConsumerLatenciesInNanos
+        );
+    }
+}
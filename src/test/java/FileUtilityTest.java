@@ -6,31 +6,53 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import utilities.DiskUsageNode;
 import utilities.FileUtility;
 import utilities.I18NUtility;
 import utilities.OS;
 import utilities.PropertyUtility;
 import utilities.ShellUtility;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.nio.file.AccessDeniedException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
+import java.nio.file.attribute.FileAttribute;
 import java.nio.file.attribute.FileTime;
 import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
@@ -155,6 +177,9 @@ class FileUtilityTest {
         try {
             createTestBed();
             FileUtility.createFolders(testBedPath, baseName, false, 100);
+            // A non-positive count doesn't create anything
+            FileUtility.createFolders(testBedPath.resolve("noFolders"), baseName, false, -1);
+            Assertions.assertTrue(Files.notExists(testBedPath.resolve("noFolders")));
             // Verify that all 100 folders have been created
             IntStream.range(1, 101)
                     .forEach(i -> {
@@ -180,6 +205,71 @@ class FileUtilityTest {
         }
     }
 
+    @ParameterizedTest
+    @CsvSource({"1", "4"})
+    public void testBulkCreateFolders(int parallelism) {
+        try {
+            clearTestBed();
+            // The test bed itself is created along with the folders
+            FileUtility.BulkOperationResult bulkOperationResult = FileUtility.createFolders(
+                testBedPath,
+                "shard-%03d/data",
+                0,
+                50,
+                parallelism
+            );
+            Assertions.assertTrue(bulkOperationResult.isSuccessful());
+            Assertions.assertEquals(100, bulkOperationResult.getSucceededCount());
+            Assertions.assertTrue(bulkOperationResult.getThroughputPerSecond() > 0);
+            IntStream.range(0, 50)
+                    .forEach(i -> Assertions.assertTrue(
+                        Files.isDirectory(testBedPath.resolve(String.format("shard-%03d", i)).resolve("data"))
+                    ));
+
+            // Shared and existing parents are created once and counted as created
+            bulkOperationResult = FileUtility.createFolders(
+                testBedPath,
+                Arrays.asList("shard-000/data/a", "shard-000/data/b", "new/a/b", "new/a/c"),
+                parallelism
+            );
+            Assertions.assertTrue(bulkOperationResult.isSuccessful());
+            Assertions.assertEquals(8, bulkOperationResult.getSucceededCount());
+            Assertions.assertTrue(Files.isDirectory(testBedPath.resolve("new").resolve("a").resolve("c")));
+
+            // Sub folders of a folder that can't be created aren't attempted
+            Files.createFile(testBedPath.resolve("file"));
+            bulkOperationResult = FileUtility.createFolders(
+                testBedPath,
+                Arrays.asList("file/a", "file/b", "valid"),
+                parallelism
+            );
+            Assertions.assertEquals(1, bulkOperationResult.getSucceededCount());
+            Assertions.assertEquals(
+                Collections.singleton(testBedPath.resolve("file")),
+                bulkOperationResult.getFailures().keySet()
+            );
+
+            Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> FileUtility.createFolders(testBedPath, Collections.singletonList("../outside"), parallelism)
+            );
+            Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> FileUtility.createFolders(testBedPath, "%d", 5, 4, parallelism)
+            );
+            Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> FileUtility.createFolders(testBedPath, "%d", 0, 1, 0)
+            );
+        } catch (IOException e) {
+            logger.error(e);
+            throw new RuntimeException(e);
+        }
+        finally {
+            clearTestBed();
+        }
+    }
+
     @Test
     @Disabled
     public void testDeleteRecursively() {
@@ -200,6 +290,48 @@ class FileUtilityTest {
         Assertions.assertTrue(folderDeleted);
     }
 
+    /**
+     * Test deleting a tree in parallel and collecting the failures instead of aborting.
+     * @param parallelism Maximum number of threads to delete with
+     * @throws IOException Thrown if walking through a path fails
+     */
+    @ParameterizedTest
+    @CsvSource(
+        {
+            "1",
+            "4"
+        }
+    )
+    public void testParallelDeleteRecursively(int parallelism) throws IOException {
+        createTestBed();
+        try {
+            long pathsCount;
+            try (Stream<Path> testBedPaths = Files.walk(testBedPath)) {
+                pathsCount = testBedPaths.count();
+            }
+            FileUtility.BulkOperationResult bulkOperationResult = FileUtility.deleteRecursively(testBedPath, parallelism);
+            Assertions.assertTrue(bulkOperationResult.isSuccessful());
+            Assertions.assertEquals(pathsCount, bulkOperationResult.getSucceededCount());
+            Assertions.assertFalse(Files.exists(testBedPath));
+
+            // Paths that cannot be deleted are reported instead of aborting
+            Path nonExistentPath = testBedPath.resolve("nonExistent");
+            bulkOperationResult = FileUtility.deleteRecursively(nonExistentPath, parallelism);
+            Assertions.assertEquals(0, bulkOperationResult.getSucceededCount());
+            Assertions.assertEquals(Collections.singleton(nonExistentPath), bulkOperationResult.getFailures().keySet());
+            RuntimeException runtimeException = Assertions.assertThrows(
+                RuntimeException.class,
+                () -> FileUtility.deleteRecursively(nonExistentPath)
+            );
+            Assertions.assertEquals(1, runtimeException.getSuppressed().length);
+
+            Assertions.assertThrows(IllegalArgumentException.class, () -> FileUtility.deleteRecursively(testBedPath, 0));
+        }
+        finally {
+            clearTestBed();
+        }
+    }
+
     @Test
     @Disabled
     public void testListMatches() {
@@ -246,6 +378,84 @@ class FileUtilityTest {
         }
     }
 
+    @Test
+    public void testPrecompiledMatches() {
+        try {
+            createTestBed();
+
+            // A regex string, its compiled pattern and an equivalent glob must all yield the same matches
+            Set<Path> expectedTreeMatches = new TreeSet<>(FileUtility.treeMatches(testBedPath, ".*\\.txt"));
+            Assertions.assertFalse(expectedTreeMatches.isEmpty());
+            Assertions.assertEquals(
+                expectedTreeMatches,
+                new TreeSet<>(FileUtility.treeMatches(testBedPath, Pattern.compile(".*\\.txt")))
+            );
+            PathMatcher txtGlobMatcher = testBedPath.getFileSystem().getPathMatcher("glob:*.txt");
+            Assertions.assertEquals(
+                expectedTreeMatches,
+                new TreeSet<>(FileUtility.treeMatches(testBedPath, txtGlobMatcher))
+            );
+
+            List<String> actualListMatches = FileUtility.listMatches(
+                    testBedPath,
+                    testBedPath.getFileSystem().getPathMatcher("glob:fold?")
+                )
+                .stream()
+                .map(path -> path.getFileName().toString())
+                .collect(Collectors.toList());
+            Assertions.assertEquals(
+                new TreeSet<>(Arrays.asList("fold3", "fold4", "fold5")),
+                new TreeSet<>(actualListMatches)
+            );
+
+            // A file path is matched by its own name
+            Path filePath = testBedPath.resolve("folder1").resolve("folder1.txt");
+            Assertions.assertEquals(
+                Collections.singletonList(filePath),
+                FileUtility.listMatches(filePath, txtGlobMatcher)
+            );
+            Assertions.assertTrue(FileUtility.listMatches(filePath, Pattern.compile("abc.*")).isEmpty());
+        }
+        finally {
+            clearTestBed();
+        }
+    }
+
+    @Test
+    public void testStreamMatches() {
+        try {
+            createTestBed();
+            PathMatcher txtGlobMatcher = testBedPath.getFileSystem().getPathMatcher("glob:*.txt");
+
+            try (Stream<Path> treeMatches = FileUtility.streamTreeMatches(testBedPath, txtGlobMatcher)) {
+                Assertions.assertEquals(
+                    new TreeSet<>(FileUtility.treeMatches(testBedPath, txtGlobMatcher)),
+                    treeMatches.collect(Collectors.toCollection(TreeSet::new))
+                );
+            }
+
+            // Short-circuiting stops the walk once enough matches are found
+            try (Stream<Path> treeMatches = FileUtility.streamTreeMatches(testBedPath, Pattern.compile("fold.*"))) {
+                Assertions.assertEquals(2, treeMatches.limit(2).count());
+            }
+
+            try (Stream<Path> listMatches = FileUtility.streamListMatches(testBedPath, Pattern.compile("folder\\d+"))) {
+                Assertions.assertEquals(
+                    new TreeSet<>(Arrays.asList("folder1", "folder2")),
+                    listMatches.map(path -> path.getFileName().toString())
+                        .collect(Collectors.toCollection(TreeSet::new))
+                );
+            }
+
+            try (Stream<Path> listMatches = FileUtility.streamListMatches(testBedPath, txtGlobMatcher)) {
+                Assertions.assertEquals(0, listMatches.count());
+            }
+        }
+        finally {
+            clearTestBed();
+        }
+    }
+
     /**
         TODO: Try to listMatch with the following regexs
             folder.*
@@ -261,20 +471,48 @@ class FileUtilityTest {
 
     }
 
-    /**
-     TODO: Try to DeleteIfMatch with the following regexs, between each regex delete all remnant and recreate all folders/
-         files
-         abc
-         abc.*
-         folder.*
-         folder\d+
-         fold.*\d+
-         fold\d+
-         fold.*[3-5]
-    */
-    @SuppressWarnings("unused")
+    @Test
     public void testDeleteIfMatches() {
+        List<String> regexps = Arrays.asList("abc", "abc.*", "folder.*", "folder\\d+", "fold.*\\d+", "fold\\d+",
+                "fold.*[3-5]", "fold.*", ".*child");
+        try {
+            for (String regex : regexps) {
+                createTestBed();
+                // Matches nested within other matches are deleted along with them
+                List<Path> expectedDeletedPaths = FileUtility.treeMatches(testBedPath, regex);
+                Set<Path> expectedRemainingPaths = new TreeSet<>(FileUtility.treeMatches(testBedPath, ".*"));
+                expectedRemainingPaths.removeIf(
+                    remainingPath -> expectedDeletedPaths.stream().anyMatch(remainingPath::startsWith)
+                );
 
+                FileUtility.deleteIfMatches(testBedPath, regex, true);
+                Assertions.assertEquals(
+                    expectedRemainingPaths,
+                    new TreeSet<>(FileUtility.treeMatches(testBedPath, ".*")),
+                    regex
+                );
+            }
+
+            createTestBed();
+            long expectedDeletedCount = FileUtility.treeMatches(testBedPath, "fold\\d+.*").size();
+            FileUtility.BulkOperationResult bulkOperationResult = FileUtility.deleteIfMatches(
+                testBedPath,
+                testBedPath.getFileSystem().getPathMatcher("glob:fold[0-9]"),
+                4
+            );
+            Assertions.assertTrue(bulkOperationResult.isSuccessful());
+            Assertions.assertEquals(expectedDeletedCount, bulkOperationResult.getSucceededCount());
+
+            // The contents aren't matched unless the deletion is recursive
+            FileUtility.deleteIfMatches(testBedPath, "folder1", false);
+            Assertions.assertTrue(Files.exists(testBedPath.resolve("folder1")));
+            Path folderPath = testBedPath.resolve("folder2");
+            FileUtility.deleteIfMatches(folderPath, "folder\\d+", false);
+            Assertions.assertTrue(Files.notExists(folderPath));
+        }
+        finally {
+            clearTestBed();
+        }
     }
 
     /**
@@ -293,20 +531,476 @@ class FileUtilityTest {
 
     }
 
+    @ParameterizedTest
+    @CsvSource({"1", "4"})
+    public void testTreeOperationPipeline(int parallelism) throws IOException {
+        try {
+            createTestBed();
+            FileTime lastModifiedTime = FileTime.from(Instant.parse("2000-01-01T00:00:00Z"));
+            PathMatcher txtGlobMatcher = testBedPath.getFileSystem().getPathMatcher("glob:*.txt");
+            PathMatcher childGlobMatcher = testBedPath.getFileSystem().getPathMatcher("glob:fold?_child");
+            List<Path> txtFiles = FileUtility.treeMatches(testBedPath, txtGlobMatcher);
+            List<Path> childFolders = FileUtility.treeMatches(testBedPath, childGlobMatcher);
+            long childFolderContentsCount = FileUtility.treeMatches(testBedPath, "fold\\d+_(child|grandchild)").size();
+            ConcurrentLinkedQueue<Path> visitedFolders = new ConcurrentLinkedQueue<>();
+
+            FileUtility.BulkOperationResult bulkOperationResult = new FileUtility.TreeOperationPipeline()
+                .addStage(
+                    testBedPath.getFileSystem().getPathMatcher("glob:folder?"),
+                    (path, attributes) -> {
+                        Assertions.assertTrue(attributes.isDirectory());
+                        visitedFolders.add(path);
+                    }
+                )
+                .addSetAttributeStage(
+                    txtGlobMatcher,
+                    new FileAttribute<FileTime>() {
+                        @Override
+                        public String name() {
+                            return "lastModifiedTime";
+                        }
+
+                        @Override
+                        public FileTime value() {
+                            return lastModifiedTime;
+                        }
+                    }
+                )
+                .addDeleteStage(childGlobMatcher)
+                // Contents of deleted folders aren't matched against other stages
+                .addStage(childGlobMatcher, (path, attributes) -> Assertions.fail(path.toString()))
+                .execute(testBedPath, parallelism);
+
+            Assertions.assertTrue(bulkOperationResult.isSuccessful(), bulkOperationResult.getFailures().toString());
+            Assertions.assertEquals(
+                2 + txtFiles.size() + childFolderContentsCount,
+                bulkOperationResult.getSucceededCount()
+            );
+            Assertions.assertEquals(2, visitedFolders.size());
+            for (Path txtFile : txtFiles) {
+                Assertions.assertEquals(lastModifiedTime, Files.getLastModifiedTime(txtFile));
+            }
+            Assertions.assertEquals(3, childFolders.size());
+            for (Path childFolder : childFolders) {
+                Assertions.assertTrue(Files.notExists(childFolder));
+            }
+
+            Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> new FileUtility.TreeOperationPipeline().execute(testBedPath, 0)
+            );
+        }
+        finally {
+            clearTestBed();
+        }
+    }
+
+    @Test
+    public void testFindDuplicateFiles() throws IOException {
+        Path hashIndexPath = Files.createTempFile("FUT", ".index");
+        try {
+            createTestBed();
+            // Files larger than the partial hash size that only differ at their end
+            byte[] contents = new byte[100 * 1024];
+            Arrays.fill(contents, (byte) 'a');
+            Path largeFilePath1 = Files.write(testBedPath.resolve("folder1").resolve("large1.bin"), contents);
+            Path largeFilePath2 = Files.write(testBedPath.resolve("fold3").resolve("large2.bin"), contents);
+            contents[contents.length - 1] = 'b';
+            Files.write(testBedPath.resolve("folder2").resolve("large3.bin"), contents);
+            Path smallFilePath1 = Files.writeString(testBedPath.resolve("folder1").resolve("small1.txt"), "hello");
+            Path smallFilePath2 = Files.writeString(testBedPath.resolve("folder2").resolve("small2.txt"), "hello");
+            Files.writeString(testBedPath.resolve("fold4").resolve("small3.txt"), "hellp");
+
+            List<List<Path>> expectedDuplicateFileGroups = Arrays.asList(
+                Arrays.asList(largeFilePath2, largeFilePath1),
+                Arrays.asList(smallFilePath1, smallFilePath2)
+            );
+            // Empty files aren't reported
+            Assertions.assertEquals(expectedDuplicateFileGroups, FileUtility.findDuplicateFiles(testBedPath));
+            Assertions.assertEquals(
+                expectedDuplicateFileGroups,
+                FileUtility.findDuplicateFiles(testBedPath, hashIndexPath, 4)
+            );
+
+            // Hashes of files with the same size and last modified time are reused from the index
+            FileTime lastModifiedTime = Files.getLastModifiedTime(smallFilePath2);
+            Files.writeString(smallFilePath2, "hellq");
+            Files.setLastModifiedTime(smallFilePath2, lastModifiedTime);
+            Assertions.assertEquals(
+                expectedDuplicateFileGroups,
+                FileUtility.findDuplicateFiles(testBedPath, hashIndexPath, 4)
+            );
+            Assertions.assertEquals(
+                expectedDuplicateFileGroups.subList(0, 1),
+                FileUtility.findDuplicateFiles(testBedPath, null, 4)
+            );
+            Files.setLastModifiedTime(smallFilePath2, FileTime.from(lastModifiedTime.toInstant().plusSeconds(1)));
+            Assertions.assertEquals(
+                expectedDuplicateFileGroups.subList(0, 1),
+                FileUtility.findDuplicateFiles(testBedPath, hashIndexPath, 4)
+            );
+
+            // An invalid index is ignored
+            Files.writeString(hashIndexPath, "invalid");
+            Assertions.assertEquals(
+                expectedDuplicateFileGroups.subList(0, 1),
+                FileUtility.findDuplicateFiles(testBedPath, hashIndexPath, 1)
+            );
+
+            // Truncated indexes and corrupted hash lengths are ignored as well
+            byte[] hashIndexContents = Files.readAllBytes(hashIndexPath);
+            Files.write(hashIndexPath, Arrays.copyOf(hashIndexContents, hashIndexContents.length / 2));
+            Assertions.assertEquals(
+                expectedDuplicateFileGroups.subList(0, 1),
+                FileUtility.findDuplicateFiles(testBedPath, hashIndexPath, 4)
+            );
+            for (int hashLength : new int[]{-1, 33, Integer.MAX_VALUE}) {
+                try (DataOutputStream dataOutputStream = new DataOutputStream(Files.newOutputStream(hashIndexPath))) {
+                    dataOutputStream.writeInt(0x4A434849);
+                    dataOutputStream.writeInt(1);
+                    dataOutputStream.writeInt(1);
+                    dataOutputStream.writeUTF("key");
+                    dataOutputStream.writeLong(0);
+                    dataOutputStream.writeLong(0);
+                    dataOutputStream.writeInt(hashLength);
+                }
+                Assertions.assertEquals(
+                    expectedDuplicateFileGroups.subList(0, 1),
+                    FileUtility.findDuplicateFiles(testBedPath, hashIndexPath, 4)
+                );
+            }
+
+            // The entries of files that no longer exist are pruned from the index
+            long hashIndexSize = Files.size(hashIndexPath);
+            Files.delete(largeFilePath1);
+            Assertions.assertEquals(List.of(), FileUtility.findDuplicateFiles(testBedPath, hashIndexPath, 4));
+            Assertions.assertTrue(Files.size(hashIndexPath) < hashIndexSize);
+            Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> FileUtility.findDuplicateFiles(testBedPath, null, 0)
+            );
+        }
+        finally {
+            Files.deleteIfExists(hashIndexPath);
+            clearTestBed();
+        }
+    }
+
+    @Test
+    public void testCopyAndMoveRecursively() throws IOException {
+        boolean isPosixSupported = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        Path targetPath = testBedPath.resolveSibling("FUT_copy");
+        Path movedPath = testBedPath.resolveSibling("FUT_moved");
+        Path checkpointPath = testBedPath.resolveSibling("FUT_copy.checkpoint");
+        try {
+            createTestBed();
+            Path filePath = testBedPath.resolve("folder1").resolve("folder1.txt");
+            Files.write(filePath, new byte[50 * 1024]);
+            if (isPosixSupported) {
+                Files.setPosixFilePermissions(filePath, PosixFilePermissions.fromString("rw-------"));
+            }
+            FileTime lastModifiedTime = FileTime.from(Instant.parse("2000-01-01T00:00:00Z"));
+            Files.setLastModifiedTime(filePath, lastModifiedTime);
+            List<Path> sourcePaths = FileUtility.treeMatches(testBedPath, ".*");
+
+            ConcurrentLinkedQueue<Long> copiedByteCounts = new ConcurrentLinkedQueue<>();
+            FileUtility.BulkOperationResult bulkOperationResult = FileUtility.copyRecursively(
+                testBedPath,
+                targetPath,
+                new FileUtility.TreeCopyOptions()
+                    .setParallelism(4)
+                    .setProgressListener(
+                        (sourcePath, copiedPath, copiedPathCount, copiedByteCount) -> copiedByteCounts.add(copiedByteCount)
+                    )
+            );
+            Assertions.assertTrue(bulkOperationResult.isSuccessful(), bulkOperationResult.getFailures().toString());
+            Assertions.assertEquals(sourcePaths.size(), bulkOperationResult.getSucceededCount());
+            Assertions.assertEquals(sourcePaths.size(), copiedByteCounts.size());
+            Assertions.assertEquals(50 * 1024, Collections.max(copiedByteCounts));
+            for (Path sourcePath : sourcePaths) {
+                Path copiedPath = targetPath.resolve(testBedPath.relativize(sourcePath));
+                Assertions.assertEquals(Files.isDirectory(sourcePath), Files.isDirectory(copiedPath), copiedPath.toString());
+                Assertions.assertEquals(Files.getLastModifiedTime(sourcePath), Files.getLastModifiedTime(copiedPath));
+                if (isPosixSupported) {
+                    Assertions.assertEquals(
+                        Files.getPosixFilePermissions(sourcePath),
+                        Files.getPosixFilePermissions(copiedPath)
+                    );
+                }
+            }
+            Path copiedFilePath = targetPath.resolve("folder1").resolve("folder1.txt");
+            Assertions.assertEquals(50 * 1024, Files.size(copiedFilePath));
+            Assertions.assertEquals(lastModifiedTime, Files.getLastModifiedTime(copiedFilePath));
+
+            // Files recorded in the checkpoint aren't copied again unless they have been modified since, the checkpoint
+            // is deleted on success
+            FileUtility.deleteRecursively(targetPath);
+            Path modifiedFilePath = testBedPath.resolve("folder2").resolve("folder2.txt");
+            Files.writeString(
+                checkpointPath,
+                50 * 1024 + "\t" + lastModifiedTime.to(TimeUnit.NANOSECONDS) + "\t" + testBedPath.relativize(filePath)
+                        + System.lineSeparator()
+                        + (Files.size(modifiedFilePath) + 1) + "\t" + Files.getLastModifiedTime(modifiedFilePath).to(TimeUnit.NANOSECONDS)
+                        + "\t" + testBedPath.relativize(modifiedFilePath) + System.lineSeparator()
+            );
+            bulkOperationResult = FileUtility.copyRecursively(
+                testBedPath,
+                targetPath,
+                new FileUtility.TreeCopyOptions().setCheckpointPath(checkpointPath)
+            );
+            Assertions.assertTrue(bulkOperationResult.isSuccessful());
+            Assertions.assertEquals(sourcePaths.size() - 1, bulkOperationResult.getSucceededCount());
+            Assertions.assertTrue(Files.notExists(copiedFilePath));
+            Assertions.assertTrue(Files.exists(targetPath.resolve("folder2").resolve("folder2.txt")));
+            Assertions.assertTrue(Files.notExists(checkpointPath));
+
+            // 4 chunks of 50KiB at 100KiB/s
+            FileUtility.deleteRecursively(targetPath);
+            for (int i = 2; i <= 4; i++) {
+                Files.write(testBedPath.resolve("fold" + i + ".bin"), new byte[50 * 1024]);
+            }
+            bulkOperationResult = FileUtility.copyRecursively(
+                testBedPath,
+                targetPath,
+                new FileUtility.TreeCopyOptions().setMaxBytesPerSecond(100 * 1024)
+            );
+            Assertions.assertTrue(bulkOperationResult.isSuccessful());
+            Assertions.assertTrue(bulkOperationResult.getDuration().compareTo(Duration.ofMillis(1400)) >= 0);
+
+            bulkOperationResult = FileUtility.moveRecursively(targetPath, movedPath, new FileUtility.TreeCopyOptions());
+            Assertions.assertTrue(bulkOperationResult.isSuccessful());
+            Assertions.assertTrue(Files.notExists(targetPath));
+            Assertions.assertTrue(Files.isDirectory(movedPath.resolve("fold3")));
+
+            // A special file cannot be copied, hence the source isn't deleted
+            if (OS.getOs() != OS.WINDOWS) {
+                Path namedPipePath = testBedPath.resolve("folder1").resolve("namedPipe");
+                try {
+                    ShellUtility.executeCommand("mkfifo " + namedPipePath);
+                } catch (InterruptedException | TimeoutException e) {
+                    logger.error(e);
+                    throw new RuntimeException(e);
+                }
+                if (Files.exists(namedPipePath, LinkOption.NOFOLLOW_LINKS)) {
+                    bulkOperationResult = FileUtility.moveRecursively(testBedPath, movedPath, new FileUtility.TreeCopyOptions());
+                    Assertions.assertEquals(Set.of(namedPipePath), bulkOperationResult.getFailures().keySet());
+                    Assertions.assertTrue(Files.exists(namedPipePath, LinkOption.NOFOLLOW_LINKS));
+                    Assertions.assertTrue(Files.exists(filePath));
+                }
+            }
+
+            // A rename failing for any other reason than the file store isn't retried with a copy
+            Path missingPath = testBedPath.resolve("missing");
+            bulkOperationResult = FileUtility.moveRecursively(missingPath, targetPath, new FileUtility.TreeCopyOptions());
+            Assertions.assertEquals(0, bulkOperationResult.getSucceededCount());
+            Assertions.assertEquals(Set.of(missingPath), bulkOperationResult.getFailures().keySet());
+            Assertions.assertTrue(bulkOperationResult.getFailures().get(missingPath) instanceof NoSuchFileException);
+            Assertions.assertTrue(Files.notExists(targetPath));
+
+            Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> FileUtility.copyRecursively(testBedPath, testBedPath.resolve("folder1"))
+            );
+            Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> new FileUtility.TreeCopyOptions().setMaxBytesPerSecond(-1)
+            );
+        }
+        finally {
+            clearTestBed();
+            for (Path pathToDelete : Arrays.asList(targetPath, movedPath, checkpointPath)) {
+                if (Files.exists(pathToDelete, LinkOption.NOFOLLOW_LINKS)) {
+                    FileUtility.deleteRecursively(pathToDelete);
+                }
+            }
+        }
+    }
+
     /**
-    TODO: Try to setAttributeIfMatches and verify with the following regexs, between each regex delete
-        all remnant and recreate all folders/files
-        abc
-        abc.*
-        folder.*
-        folder\d+
-        fold.*\d+
-        fold\d+
-        fold.*[3-5]
-    */
-    @SuppressWarnings("unused")
-    public void testSetAttributeIfMatches() {
+     * Test that the attributes of a partially copied directory aren't copied, so that a read only directory can be
+     * resumed once the paths that failed can be copied.
+     * @throws IOException Thrown if the test bed cannot be created or modified
+     */
+    @Test
+    public void testResumePartialCopy() throws IOException {
+        Assumptions.assumeTrue(
+            OS.getOs() != OS.WINDOWS && FileSystems.getDefault().supportedFileAttributeViews().contains("posix"),
+            "Skipping partial copy testing as named pipes and POSIX permissions aren't supported"
+        );
+
+        Path targetPath = testBedPath.resolveSibling("FUT_copy");
+        Path checkpointPath = testBedPath.resolveSibling("FUT_copy.checkpoint");
+        Path readOnlyFolderPath = testBedPath.resolve("readOnly");
+        Path copiedReadOnlyFolderPath = targetPath.resolve("readOnly");
+        Set<PosixFilePermission> readOnlyPermissions = PosixFilePermissions.fromString("r-xr-xr-x");
+        Set<PosixFilePermission> writablePermissions = PosixFilePermissions.fromString("rwxr-xr-x");
+        try {
+            createTestBed();
+            Files.createDirectory(readOnlyFolderPath);
+            Files.createFile(readOnlyFolderPath.resolve("copied.txt"));
+            Path namedPipePath = readOnlyFolderPath.resolve("namedPipe");
+            try {
+                ShellUtility.executeCommand("mkfifo " + namedPipePath);
+            } catch (InterruptedException | TimeoutException e) {
+                logger.error(e);
+                throw new RuntimeException(e);
+            }
+            Assumptions.assumeTrue(Files.exists(namedPipePath, LinkOption.NOFOLLOW_LINKS), "Couldn't create a named pipe");
+            Files.setPosixFilePermissions(readOnlyFolderPath, readOnlyPermissions);
+            long sourcePathCount = FileUtility.treeMatches(testBedPath, ".*").size();
+
+            // The named pipe fails, so neither the folder containing it nor the test bed are complete
+            FileUtility.BulkOperationResult bulkOperationResult = FileUtility.copyRecursively(
+                testBedPath,
+                targetPath,
+                new FileUtility.TreeCopyOptions().setCheckpointPath(checkpointPath)
+            );
+            Assertions.assertEquals(Set.of(namedPipePath), bulkOperationResult.getFailures().keySet());
+            Assertions.assertEquals(sourcePathCount - 3, bulkOperationResult.getSucceededCount());
+            Assertions.assertTrue(Files.exists(copiedReadOnlyFolderPath.resolve("copied.txt")));
+            Assertions.assertNotEquals(readOnlyPermissions, Files.getPosixFilePermissions(copiedReadOnlyFolderPath));
+            Assertions.assertTrue(Files.exists(checkpointPath));
+
+            // The resumed copy writes the new file into the partially copied folder, then makes it read only
+            Files.setPosixFilePermissions(readOnlyFolderPath, writablePermissions);
+            Files.delete(namedPipePath);
+            Files.createFile(readOnlyFolderPath.resolve("resumed.txt"));
+            Files.setPosixFilePermissions(readOnlyFolderPath, readOnlyPermissions);
+            bulkOperationResult = FileUtility.copyRecursively(
+                testBedPath,
+                targetPath,
+                new FileUtility.TreeCopyOptions().setCheckpointPath(checkpointPath)
+            );
+            Assertions.assertTrue(bulkOperationResult.isSuccessful(), bulkOperationResult.getFailures().toString());
+            Assertions.assertTrue(Files.exists(copiedReadOnlyFolderPath.resolve("resumed.txt")));
+            Assertions.assertEquals(readOnlyPermissions, Files.getPosixFilePermissions(copiedReadOnlyFolderPath));
+            Assertions.assertTrue(Files.notExists(checkpointPath));
+        }
+        finally {
+            for (Path folderPath : Arrays.asList(readOnlyFolderPath, copiedReadOnlyFolderPath)) {
+                if (Files.exists(folderPath)) {
+                    Files.setPosixFilePermissions(folderPath, writablePermissions);
+                }
+            }
+            clearTestBed();
+            for (Path pathToDelete : Arrays.asList(targetPath, checkpointPath)) {
+                if (Files.exists(pathToDelete, LinkOption.NOFOLLOW_LINKS)) {
+                    FileUtility.deleteRecursively(pathToDelete);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDiskUsage() throws IOException, InterruptedException {
+        createTestBed();
+        try {
+            Files.write(testBedPath.resolve("folder1").resolve("folder1.txt"), new byte[100]);
+            Files.write(testBedPath.resolve("fold3").resolve("fold3_child").resolve("large.bin"), new byte[1000]);
+            Files.write(testBedPath.resolve("fold4").resolve("medium.bin"), new byte[500]);
+            Files.write(testBedPath.resolve("fold3").resolve("fold3.txt"), new byte[10]);
+            long expectedFileCount = FileUtility.treeMatches(testBedPath, ".*")
+                    .stream()
+                    .filter(path -> !Files.isDirectory(path))
+                    .count();
+
+            DiskUsageNode diskUsageNode = FileUtility.computeDiskUsage(testBedPath, 4);
+            Assertions.assertEquals(1610, diskUsageNode.getSize());
+            Assertions.assertEquals(expectedFileCount, diskUsageNode.getFileCount());
+            Assertions.assertEquals(testBedPath.resolve("fold3"), diskUsageNode.getChildren().get(0).getPath());
+            Assertions.assertEquals(1000, diskUsageNode.getNode(Paths.get("fold3", "fold3_child")).getSize());
+            Assertions.assertEquals(
+                Arrays.asList(testBedPath.resolve("fold3"), testBedPath.resolve("fold3").resolve("fold3_child"),
+                        testBedPath.resolve("fold4")),
+                diskUsageNode.getLargestSubtrees(3)
+                    .stream()
+                    .map(DiskUsageNode::getPath)
+                    .collect(Collectors.toList())
+            );
+            Assertions.assertThrows(IllegalArgumentException.class, () -> diskUsageNode.getLargestSubtrees(-1));
+
+            if (OS.getOs() == OS.MAC_OS_X) {
+                // The WatchService of MAC OS X is unreliable, refer testWatchServiceReRegistrationOfRecreatedDirectory
+                return;
+            }
+            // Keep the rollups up to date from watch events
+            FileUtility.registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(
+                testBedPath,
+                3,
+                diskUsageNode::updateFromWatchEvent,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY
+            );
+            Files.write(testBedPath.resolve("fold4").resolve("medium.bin"), new byte[700]);
+            Files.delete(testBedPath.resolve("fold3").resolve("fold3_child").resolve("large.bin"));
+            Path newFolderPath = Files.createDirectory(testBedPath.resolve("newFolder"));
+            Thread.sleep(fileActionWaitTimeInMs);
+            Files.write(newFolderPath.resolve("new.bin"), new byte[50]);
+            Thread.sleep(fileActionWaitTimeInMs);
+
+            Assertions.assertEquals(860, diskUsageNode.getSize());
+            Assertions.assertEquals(expectedFileCount, diskUsageNode.getFileCount());
+            Assertions.assertEquals(10, diskUsageNode.getNode(Paths.get("fold3")).getSize());
+            Assertions.assertEquals(50, diskUsageNode.getNode(newFolderPath).getSize());
+        }
+        finally {
+            FileUtility.deRegisterWatchServiceForDirectory(testBedPath);
+            clearTestBed();
+        }
+    }
 
+    @Test
+    public void testSetAttributeIfMatches() throws IOException {
+        try {
+            createTestBed();
+            FileTime lastModifiedTime = FileTime.from(Instant.parse("2000-01-01T00:00:00Z"));
+            FileAttribute<FileTime> lastModifiedTimeAttribute = new FileAttribute<>() {
+                @Override
+                public String name() {
+                    return "lastModifiedTime";
+                }
+
+                @Override
+                public FileTime value() {
+                    return lastModifiedTime;
+                }
+            };
+
+            // Only the matched contents are updated
+            FileUtility.setAttributeIfMatches(testBedPath, lastModifiedTimeAttribute, "fold\\d+\\.txt", true);
+            List<Path> expectedMatches = FileUtility.treeMatches(testBedPath, "fold\\d+\\.txt");
+            Assertions.assertEquals(3, expectedMatches.size());
+            for (Path content : FileUtility.treeMatches(testBedPath, ".*")) {
+                Assertions.assertEquals(
+                    expectedMatches.contains(content),
+                    lastModifiedTime.equals(Files.getLastModifiedTime(content)),
+                    content.toString()
+                );
+            }
+
+            // Without recursion, only the specified path is matched
+            Path folderPath = testBedPath.resolve("folder1");
+            FileUtility.setAttributeIfMatches(folderPath, lastModifiedTimeAttribute, "folder\\d+", false);
+            Assertions.assertEquals(lastModifiedTime, Files.getLastModifiedTime(folderPath));
+            Assertions.assertNotEquals(
+                lastModifiedTime,
+                Files.getLastModifiedTime(folderPath.resolve("folder1.txt"))
+            );
+
+            Assertions.assertThrows(
+                IOException.class,
+                () -> FileUtility.setAttributeIfMatches(
+                    testBedPath.resolve("nonExistent"),
+                    lastModifiedTimeAttribute,
+                    ".*",
+                    true
+                )
+            );
+        }
+        finally {
+            clearTestBed();
+        }
     }
 
     @Test
@@ -900,6 +1594,852 @@ class FileUtilityTest {
         clearTestBed();
     }
 
+    /**
+     * Test that events generated while the dispatcher is stopped are delivered once it's started again.
+     * @throws IOException Thrown if registering a WatchService or walking through a path  or modifying it fails
+     * @throws InterruptedException Thrown if the current thread is interrupted
+     */
+    @Test
+    public void testWatchServiceEventDispatcherLifecycle() throws IOException, InterruptedException {
+        Assumptions.assumeFalse(
+            OS.getOs() == OS.MAC_OS_X,
+            "Skipping WatchService testing for " +
+            "MAC OS X as there's a known issue in the JDK that takes a lot of time to generate watch service events\n" +
+            " and sometimes doesn't generate them. Since we cannot reliably test WatchService on MAC OS X, we skip \n" +
+            "it for MAC OS X.\nhttps://bugs.openjdk.java.net/browse/JDK-7133447"
+        );
+
+        actualPathToEventKindMap.clear();
+        createTestBed();
+
+        FileUtility.registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(
+            testBedPath,
+            1,
+            (path, watchEvent) -> {
+                String absolutePathString = path.toAbsolutePath().toString();
+                actualPathToEventKindMap.putIfAbsent(absolutePathString, new LinkedList<>());
+                actualPathToEventKindMap.get(absolutePathString)
+                        .add(watchEvent.kind());
+            },
+            StandardWatchEventKinds.ENTRY_CREATE
+        );
+        Assertions.assertTrue(FileUtility.isWatchServiceEventDispatcherRunning());
+
+        // Events generated while the dispatcher is stopped aren't dispatched
+        FileUtility.stopWatchServiceEventDispatcher();
+        Assertions.assertFalse(FileUtility.isWatchServiceEventDispatcherRunning());
+        Path createdFilePath = testBedPath.resolve("dispatcherLifecycle.txt");
+        Files.createFile(createdFilePath);
+        Thread.sleep(fileActionWaitTimeInMs);
+        Assertions.assertNull(actualPathToEventKindMap.get(createdFilePath.toString()));
+
+        // They're dispatched once the dispatcher is started again
+        FileUtility.startWatchServiceEventDispatcher();
+        Assertions.assertTrue(FileUtility.isWatchServiceEventDispatcherRunning());
+        Thread.sleep(fileActionWaitTimeInMs);
+        Queue<WatchEvent.Kind<?>> generatedEventsQueue = actualPathToEventKindMap.get(createdFilePath.toString());
+        Assertions.assertNotNull(
+            generatedEventsQueue,
+            String.format(
+                I18NUtility.getString("test.FileUtilityTest.noEventsGeneratedForActionMessage"),
+                createdFilePath
+            )
+        );
+        Assertions.assertTrue(generatedEventsQueue.contains(StandardWatchEventKinds.ENTRY_CREATE));
+
+        FileUtility.deRegisterWatchServiceForDirectory(testBedPath);
+        clearTestBed();
+    }
+
+    /**
+     * Test that the directories of the registered trees share a single WatchService and that the events of nested
+     * directories are dispatched to the consumer of the tree they belong to.
+     * @throws IOException Thrown if registering a WatchService or walking through a path  or modifying it fails
+     * @throws InterruptedException Thrown if the current thread is interrupted
+     */
+    @Test
+    public void testSharedWatchServiceEventRouting() throws IOException, InterruptedException {
+        Assumptions.assumeFalse(
+            OS.getOs() == OS.MAC_OS_X,
+            "Skipping WatchService testing for " +
+            "MAC OS X as there's a known issue in the JDK that takes a lot of time to generate watch service events\n" +
+            " and sometimes doesn't generate them. Since we cannot reliably test WatchService on MAC OS X, we skip \n" +
+            "it for MAC OS X.\nhttps://bugs.openjdk.java.net/browse/JDK-7133447"
+        );
+
+        createTestBed();
+        Path firstTreePath = testBedPath.resolve("fold3");
+        Path secondTreePath = testBedPath.resolve("fold4");
+        Map<String, Queue<WatchEvent.Kind<?>>> firstTreePathToEventKindMap = new ConcurrentHashMap<>();
+        Map<String, Queue<WatchEvent.Kind<?>>> secondTreePathToEventKindMap = new ConcurrentHashMap<>();
+        try {
+            FileUtility.registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(
+                firstTreePath,
+                2,
+                (path, watchEvent) -> firstTreePathToEventKindMap
+                        .computeIfAbsent(path.toAbsolutePath().toString(), key -> new ConcurrentLinkedQueue<>())
+                        .add(watchEvent.kind()),
+                StandardWatchEventKinds.ENTRY_CREATE
+            );
+            FileUtility.registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(
+                secondTreePath,
+                2,
+                (path, watchEvent) -> secondTreePathToEventKindMap
+                        .computeIfAbsent(path.toAbsolutePath().toString(), key -> new ConcurrentLinkedQueue<>())
+                        .add(watchEvent.kind()),
+                StandardWatchEventKinds.ENTRY_CREATE
+            );
+            // Each tree is made of the folder, its child and its grandchild, all registered with the same WatchService
+            Assertions.assertEquals(1, FileUtility.getWatchServiceMetrics().getWatchServiceCount());
+
+            Path firstTreeCreatedFilePath = firstTreePath.resolve("fold3_child")
+                .resolve("fold3_grandchild")
+                .resolve("routing.txt");
+            Path secondTreeCreatedFilePath = secondTreePath.resolve("fold4_child")
+                .resolve("routing.txt");
+            Files.createFile(firstTreeCreatedFilePath);
+            Files.createFile(secondTreeCreatedFilePath);
+            Thread.sleep(fileActionWaitTimeInMs);
+
+            Assertions.assertEquals(
+                Collections.singletonMap(
+                    firstTreeCreatedFilePath.toString(),
+                    List.of(StandardWatchEventKinds.ENTRY_CREATE)
+                ),
+                firstTreePathToEventKindMap.entrySet()
+                    .stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, entry -> List.copyOf(entry.getValue())))
+            );
+            Assertions.assertEquals(
+                Collections.singletonMap(
+                    secondTreeCreatedFilePath.toString(),
+                    List.of(StandardWatchEventKinds.ENTRY_CREATE)
+                ),
+                secondTreePathToEventKindMap.entrySet()
+                    .stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, entry -> List.copyOf(entry.getValue())))
+            );
+        }
+        finally {
+            FileUtility.deRegisterWatchServiceForDirectory(firstTreePath);
+            FileUtility.deRegisterWatchServiceForDirectory(secondTreePath);
+            clearTestBed();
+        }
+    }
+
+    /**
+     * Test that the asynchronous registration reports its progress and arms the whole tree.
+     * @throws Exception Thrown if registering a WatchService or walking through a path fails or the registration times
+     *                   out.
+     */
+    @Test
+    public void testAsyncWatchServiceRegistering() throws Exception {
+        Assumptions.assumeFalse(
+            OS.getOs() == OS.MAC_OS_X,
+            "Skipping WatchService testing for " +
+            "MAC OS X as there's a known issue in the JDK that takes a lot of time to generate watch service events\n" +
+            " and sometimes doesn't generate them. Since we cannot reliably test WatchService on MAC OS X, we skip \n" +
+            "it for MAC OS X.\nhttps://bugs.openjdk.java.net/browse/JDK-7133447"
+        );
+
+        actualPathToEventKindMap.clear();
+        createTestBed();
+
+        FileUtility.WatchServiceRegisteringFileVisitor watchServiceRegisteringFileVisitor
+            = FileUtility.registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegisteredAsync(
+                testBedPath,
+                3,
+                (path, watchEvent) -> {
+                    String absolutePathString = path.toAbsolutePath().toString();
+                    actualPathToEventKindMap.putIfAbsent(absolutePathString, new LinkedList<>());
+                    actualPathToEventKindMap.get(absolutePathString)
+                            .add(watchEvent.kind());
+                },
+                StandardWatchEventKinds.ENTRY_CREATE
+            );
+        watchServiceRegisteringFileVisitor.getRegistrationFuture()
+            .get(fileActionWaitTimeInMs * 10L, TimeUnit.MILLISECONDS);
+
+        // Test bed root, folder1-2, folders1-2, folderToDelete and fold3-5 along with their child and grandchild
+        Assertions.assertEquals(15, watchServiceRegisteringFileVisitor.getSuccessfulDirectoryVisitsCount());
+        // A text file in each of folder1-2, folders1-2, fold3-5 and folders2/fileToDelete.txt
+        Assertions.assertEquals(8, watchServiceRegisteringFileVisitor.getSuccessfulFileVisitsCount());
+        Assertions.assertEquals(0, watchServiceRegisteringFileVisitor.getFailedVisitsCount());
+
+        // The deepest registered directory generates events
+        Path createdFilePath = testBedPath.resolve("fold5")
+            .resolve("fold5_child")
+            .resolve("fold5_grandchild")
+            .resolve("asyncRegistering.txt");
+        Files.createFile(createdFilePath);
+        Thread.sleep(fileActionWaitTimeInMs);
+        Queue<WatchEvent.Kind<?>> generatedEventsQueue = actualPathToEventKindMap.get(createdFilePath.toString());
+        Assertions.assertNotNull(
+            generatedEventsQueue,
+            String.format(
+                I18NUtility.getString("test.FileUtilityTest.noEventsGeneratedForActionMessage"),
+                createdFilePath
+            )
+        );
+        Assertions.assertTrue(generatedEventsQueue.contains(StandardWatchEventKinds.ENTRY_CREATE));
+
+        FileUtility.deRegisterWatchServiceForDirectory(testBedPath);
+        clearTestBed();
+    }
+
+    /**
+     * Test that consumers are invoked on the configured executor and receive the events of a path in order, and that
+     * the backpressure policy is applied to the events generated while the consumer is busy.
+     * @param backpressurePolicy          Policy to apply when events are generated faster than they're consumed
+     * @param expectedSlowConsumerEvents  Files whose modifications are consumed after the consumer catches up, in
+     *                                    order and separated by ;
+     * @throws IOException Thrown if registering a WatchService or walking through a path  or modifying it fails
+     * @throws InterruptedException Thrown if the current thread is interrupted
+     */
+    @ParameterizedTest
+    @CsvSource(
+        {
+            "BLOCK, slowConsumerA.txt;slowConsumerA.txt;slowConsumerB.txt",
+            "DROP_OLDEST, slowConsumerB.txt",
+            "COALESCE, slowConsumerA.txt;slowConsumerB.txt"
+        }
+    )
+    public void testAsynchronousWatchEventConsumerExecution(FileUtility.WatchEventBackpressurePolicy backpressurePolicy, String expectedSlowConsumerEvents) throws IOException, InterruptedException {
+        Assumptions.assumeFalse(
+            OS.getOs() == OS.MAC_OS_X,
+            "Skipping WatchService testing for " +
+            "MAC OS X as there's a known issue in the JDK that takes a lot of time to generate watch service events\n" +
+            " and sometimes doesn't generate them. Since we cannot reliably test WatchService on MAC OS X, we skip \n" +
+            "it for MAC OS X.\nhttps://bugs.openjdk.java.net/browse/JDK-7133447"
+        );
+
+        actualPathToEventKindMap.clear();
+        createTestBed();
+        Set<String> consumerThreadNames = ConcurrentHashMap.newKeySet();
+        ExecutorService consumerExecutorService = Executors.newFixedThreadPool(
+            2,
+            runnable -> new Thread(runnable, "FileUtilityTest-Consumer")
+        );
+        FileUtility.enableAsynchronousWatchEventConsumerExecution(consumerExecutorService, 16, backpressurePolicy);
+        try {
+            FileUtility.registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(
+                testBedPath,
+                1,
+                (path, watchEvent) -> {
+                    consumerThreadNames.add(Thread.currentThread().getName());
+                    String absolutePathString = path.toAbsolutePath().toString();
+                    actualPathToEventKindMap.putIfAbsent(absolutePathString, new ConcurrentLinkedQueue<>());
+                    actualPathToEventKindMap.get(absolutePathString)
+                            .add(watchEvent.kind());
+                },
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE
+            );
+
+            Path fileToCreatePath = testBedPath.resolve("asynchronousConsumer.txt");
+            Files.createFile(fileToCreatePath);
+            Files.delete(fileToCreatePath);
+            Thread.sleep(fileActionWaitTimeInMs);
+
+            Queue<WatchEvent.Kind<?>> generatedEventsQueue = actualPathToEventKindMap.get(fileToCreatePath.toString());
+            Assertions.assertNotNull(
+                generatedEventsQueue,
+                String.format(
+                    I18NUtility.getString("test.FileUtilityTest.noEventsGeneratedForActionMessage"),
+                    fileToCreatePath
+                )
+            );
+            Assertions.assertArrayEquals(
+                new WatchEvent.Kind<?>[]{StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE},
+                generatedEventsQueue.toArray()
+            );
+            Assertions.assertEquals(Collections.singleton("FileUtilityTest-Consumer"), consumerThreadNames);
+            FileUtility.deRegisterWatchServiceForDirectory(testBedPath);
+
+            // Slow consumer: the consumer is stuck on the first event while 3 more events are generated, only 1 of
+            // which fits in the lane
+            FileUtility.enableAsynchronousWatchEventConsumerExecution(consumerExecutorService, 1, backpressurePolicy);
+            Path blockingFilePath = testBedPath.resolve("slowConsumerBlocking.txt");
+            Path firstModifiedFilePath = Files.createFile(testBedPath.resolve("slowConsumerA.txt"));
+            Path secondModifiedFilePath = Files.createFile(testBedPath.resolve("slowConsumerB.txt"));
+            CountDownLatch consumerReleaseLatch = new CountDownLatch(1);
+            Queue<String> slowConsumerEvents = new ConcurrentLinkedQueue<>();
+            FileUtility.registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(
+                testBedPath,
+                0,
+                (path, watchEvent) -> {
+                    if(path.equals(blockingFilePath)) {
+                        try {
+                            consumerReleaseLatch.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    else {
+                        slowConsumerEvents.add(path.getFileName().toString());
+                    }
+                },
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY
+            );
+            try {
+                Files.createFile(blockingFilePath);
+                Thread.sleep(fileActionWaitTimeInMs);
+                // Each append is a single write, i.e. a single ENTRY_MODIFY event
+                for (Path modifiedFilePath : List.of(firstModifiedFilePath, firstModifiedFilePath, secondModifiedFilePath)) {
+                    Files.writeString(modifiedFilePath, "slowConsumer", StandardOpenOption.APPEND);
+                    Thread.sleep(fileActionWaitTimeInMs);
+                }
+            }
+            finally {
+                consumerReleaseLatch.countDown();
+            }
+            Thread.sleep(fileActionWaitTimeInMs);
+
+            Assertions.assertEquals(
+                Arrays.asList(expectedSlowConsumerEvents.split(";")),
+                List.copyOf(slowConsumerEvents)
+            );
+        }
+        finally {
+            FileUtility.disableAsynchronousWatchEventConsumerExecution();
+            consumerExecutorService.shutdown();
+            FileUtility.deRegisterWatchServiceForDirectory(testBedPath);
+            clearTestBed();
+        }
+    }
+
+    /**
+     * Test that the events generated for a path in quick succession are merged into their net change.
+     * @throws IOException Thrown if registering a WatchService or walking through a path  or modifying it fails
+     * @throws InterruptedException Thrown if the current thread is interrupted
+     */
+    @Test
+    public void testWatchEventDebouncing() throws IOException, InterruptedException {
+        Assumptions.assumeFalse(
+            OS.getOs() == OS.MAC_OS_X,
+            "Skipping WatchService testing for " +
+            "MAC OS X as there's a known issue in the JDK that takes a lot of time to generate watch service events\n" +
+            " and sometimes doesn't generate them. Since we cannot reliably test WatchService on MAC OS X, we skip \n" +
+            "it for MAC OS X.\nhttps://bugs.openjdk.java.net/browse/JDK-7133447"
+        );
+
+        actualPathToEventKindMap.clear();
+        createTestBed();
+        Duration debounceWindow = Duration.ofMillis(500);
+        FileUtility.enableWatchEventDebouncing(debounceWindow);
+        try {
+            FileUtility.registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(
+                testBedPath,
+                1,
+                (path, watchEvent) -> {
+                    String absolutePathString = path.toAbsolutePath().toString();
+                    actualPathToEventKindMap.putIfAbsent(absolutePathString, new ConcurrentLinkedQueue<>());
+                    actualPathToEventKindMap.get(absolutePathString)
+                            .add(watchEvent.kind());
+                },
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE
+            );
+
+            // Created, modified and deleted within the window - No net change
+            Path transientFilePath = testBedPath.resolve("transient.txt");
+            Files.createFile(transientFilePath);
+            Files.writeString(transientFilePath, "transient");
+            Files.delete(transientFilePath);
+            // Created and modified within the window - Net change is a creation
+            Path createdFilePath = testBedPath.resolve("created.txt");
+            Files.createFile(createdFilePath);
+            Files.writeString(createdFilePath, "created");
+            Thread.sleep(fileActionWaitTimeInMs + debounceWindow.toMillis());
+
+            Assertions.assertNull(actualPathToEventKindMap.get(transientFilePath.toString()));
+            Queue<WatchEvent.Kind<?>> generatedEventsQueue = actualPathToEventKindMap.get(createdFilePath.toString());
+            Assertions.assertNotNull(
+                generatedEventsQueue,
+                String.format(
+                    I18NUtility.getString("test.FileUtilityTest.noEventsGeneratedForActionMessage"),
+                    createdFilePath
+                )
+            );
+            Assertions.assertArrayEquals(
+                new WatchEvent.Kind<?>[]{StandardWatchEventKinds.ENTRY_CREATE},
+                generatedEventsQueue.toArray()
+            );
+        }
+        finally {
+            FileUtility.disableWatchEventDebouncing();
+            FileUtility.deRegisterWatchServiceForDirectory(testBedPath);
+            clearTestBed();
+        }
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> FileUtility.enableWatchEventDebouncing(Duration.ZERO));
+        Assertions.assertThrows(NullPointerException.class, () -> FileUtility.enableWatchEventDebouncing(null));
+    }
+
+    /**
+     * Test that a deleted directory is deregistered, so that it's registered again once it's recreated.
+     * @throws IOException Thrown if registering a WatchService or walking through a path  or modifying it fails
+     * @throws InterruptedException Thrown if the current thread is interrupted
+     */
+    @Test
+    public void testWatchServiceReRegistrationOfRecreatedDirectory() throws IOException, InterruptedException {
+        Assumptions.assumeFalse(
+            OS.getOs() == OS.MAC_OS_X,
+            "Skipping WatchService testing for " +
+            "MAC OS X as there's a known issue in the JDK that takes a lot of time to generate watch service events\n" +
+            " and sometimes doesn't generate them. Since we cannot reliably test WatchService on MAC OS X, we skip \n" +
+            "it for MAC OS X.\nhttps://bugs.openjdk.java.net/browse/JDK-7133447"
+        );
+
+        actualPathToEventKindMap.clear();
+        createTestBed();
+        try {
+            FileUtility.registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(
+                testBedPath,
+                2,
+                (path, watchEvent) -> {
+                    String absolutePathString = path.toAbsolutePath().toString();
+                    actualPathToEventKindMap.putIfAbsent(absolutePathString, new ConcurrentLinkedQueue<>());
+                    actualPathToEventKindMap.get(absolutePathString)
+                            .add(watchEvent.kind());
+                },
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE
+            );
+
+            Path directoryToRecreatePath = testBedPath.resolve("folderToDelete");
+            Files.delete(directoryToRecreatePath);
+            Thread.sleep(fileActionWaitTimeInMs);
+            Files.createDirectory(directoryToRecreatePath);
+            Thread.sleep(fileActionWaitTimeInMs);
+            Path fileInRecreatedDirectoryPath = directoryToRecreatePath.resolve("recreated.txt");
+            Files.createFile(fileInRecreatedDirectoryPath);
+            Thread.sleep(fileActionWaitTimeInMs);
+
+            Assertions.assertNotNull(
+                actualPathToEventKindMap.get(fileInRecreatedDirectoryPath.toString()),
+                String.format(
+                    I18NUtility.getString("test.FileUtilityTest.noEventsGeneratedForActionMessage"),
+                    fileInRecreatedDirectoryPath
+                )
+            );
+        }
+        finally {
+            FileUtility.deRegisterWatchServiceForDirectory(testBedPath);
+            clearTestBed();
+        }
+    }
+
+    /**
+     * Test that the creations missed when the events of a registered directory overflow are recovered.
+     * @throws IOException Thrown if registering a WatchService or walking through a path  or modifying it fails
+     * @throws InterruptedException Thrown if the current thread is interrupted
+     */
+    @Test
+    public void testWatchServiceOverflowRecovery() throws IOException, InterruptedException {
+        Assumptions.assumeFalse(
+            OS.getOs() == OS.MAC_OS_X,
+            "Skipping WatchService testing for " +
+            "MAC OS X as there's a known issue in the JDK that takes a lot of time to generate watch service events\n" +
+            " and sometimes doesn't generate them. Since we cannot reliably test WatchService on MAC OS X, we skip \n" +
+            "it for MAC OS X.\nhttps://bugs.openjdk.java.net/browse/JDK-7133447"
+        );
+
+        actualPathToEventKindMap.clear();
+        createTestBed();
+        try {
+            FileUtility.registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(
+                testBedPath,
+                2,
+                (path, watchEvent) -> {
+                    String absolutePathString = path.toAbsolutePath().toString();
+                    actualPathToEventKindMap.putIfAbsent(absolutePathString, new ConcurrentLinkedQueue<>());
+                    actualPathToEventKindMap.get(absolutePathString)
+                            .add(watchEvent.kind());
+                },
+                StandardWatchEventKinds.ENTRY_CREATE
+            );
+
+            /* The JDK signals an OVERFLOW once more than 512 events of a directory are pending, so creating more
+            entries than that while the events aren't retrieved makes the events overflow. */
+            FileUtility.stopWatchServiceEventDispatcher();
+            int filesToCreateCount = 600;
+            for (int i = 0; i < filesToCreateCount; i++) {
+                Files.createFile(testBedPath.resolve("overflow" + i + ".txt"));
+            }
+            Path directoryToCreatePath = testBedPath.resolve("overflowFolder");
+            Files.createDirectory(directoryToCreatePath);
+            FileUtility.startWatchServiceEventDispatcher();
+            Thread.sleep(fileActionWaitTimeInMs);
+
+            Assertions.assertNotNull(actualPathToEventKindMap.get(testBedPath.toString()));
+            Assertions.assertTrue(
+                actualPathToEventKindMap.get(testBedPath.toString()).contains(StandardWatchEventKinds.OVERFLOW)
+            );
+            for (int i = 0; i < filesToCreateCount; i++) {
+                Path createdFilePath = testBedPath.resolve("overflow" + i + ".txt");
+                Assertions.assertNotNull(
+                    actualPathToEventKindMap.get(createdFilePath.toString()),
+                    String.format(
+                        I18NUtility.getString("test.FileUtilityTest.noEventsGeneratedForActionMessage"),
+                        createdFilePath
+                    )
+                );
+            }
+
+            // The folder created while the events overflowed has been registered
+            Path fileInCreatedDirectoryPath = directoryToCreatePath.resolve("overflow.txt");
+            Files.createFile(fileInCreatedDirectoryPath);
+            Thread.sleep(fileActionWaitTimeInMs);
+            Assertions.assertNotNull(
+                actualPathToEventKindMap.get(fileInCreatedDirectoryPath.toString()),
+                String.format(
+                    I18NUtility.getString("test.FileUtilityTest.noEventsGeneratedForActionMessage"),
+                    fileInCreatedDirectoryPath
+                )
+            );
+        }
+        finally {
+            FileUtility.startWatchServiceEventDispatcher();
+            FileUtility.deRegisterWatchServiceForDirectory(testBedPath);
+            clearTestBed();
+        }
+    }
+
+    /**
+     * Test that the changes made to a directory tree since its snapshot was persisted are replayed.
+     * @throws IOException Thrown if walking through a path or modifying it fails
+     */
+    @Test
+    public void testDirectorySnapshotChangeReplay() throws IOException {
+        createTestBed();
+        try {
+            // The snapshot file itself isn't part of the snapshot
+            Path snapshotPath = testBedPath.resolve("tree.snapshot");
+            long expectedEntryCount;
+            try (Stream<Path> testBedPaths = Files.walk(testBedPath)) {
+                expectedEntryCount = testBedPaths.count() - 1;
+            }
+            Assertions.assertEquals(expectedEntryCount, FileUtility.writeDirectorySnapshot(testBedPath, snapshotPath));
+
+            Files.writeString(testBedPath.resolve("folder1").resolve("folder1.txt"), "modified");
+            Files.delete(testBedPath.resolve("folders2").resolve("fileToDelete.txt"));
+            Files.createFile(testBedPath.resolve("folder2").resolve("created.txt"));
+            Files.delete(testBedPath.resolve("folderToDelete"));
+            Files.createDirectory(testBedPath.resolve("folderCreated"));
+
+            HashMap<Path, WatchEvent.Kind<?>> expectedChanges = new HashMap<>();
+            expectedChanges.put(testBedPath.resolve("folder1").resolve("folder1.txt"), StandardWatchEventKinds.ENTRY_MODIFY);
+            expectedChanges.put(testBedPath.resolve("folders2").resolve("fileToDelete.txt"), StandardWatchEventKinds.ENTRY_DELETE);
+            expectedChanges.put(testBedPath.resolve("folder2").resolve("created.txt"), StandardWatchEventKinds.ENTRY_CREATE);
+            expectedChanges.put(testBedPath.resolve("folderToDelete"), StandardWatchEventKinds.ENTRY_DELETE);
+            expectedChanges.put(testBedPath.resolve("folderCreated"), StandardWatchEventKinds.ENTRY_CREATE);
+
+            HashMap<Path, WatchEvent.Kind<?>> actualChanges = new HashMap<>();
+            FileUtility.replayChangesSinceDirectorySnapshot(
+                testBedPath,
+                snapshotPath,
+                (path, watchEvent) -> Assertions.assertNull(actualChanges.put(path, watchEvent.kind()))
+            );
+            Assertions.assertEquals(expectedChanges, actualChanges);
+
+            // Nothing has changed since a new snapshot
+            FileUtility.writeDirectorySnapshot(testBedPath, snapshotPath);
+            FileUtility.replayChangesSinceDirectorySnapshot(
+                testBedPath,
+                snapshotPath,
+                (path, watchEvent) -> Assertions.fail(path.toString())
+            );
+
+            Path invalidSnapshotPath = testBedPath.resolve("folder1").resolve("folder1.txt");
+            Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> FileUtility.replayChangesSinceDirectorySnapshot(testBedPath, invalidSnapshotPath, (path, watchEvent) -> {})
+            );
+
+            // A snapshot that cannot replace its file doesn't leave its temporary file behind
+            Path nonEmptyFolderPath = testBedPath.resolve("fold3");
+            Assertions.assertThrows(
+                IOException.class,
+                () -> FileUtility.writeDirectorySnapshot(testBedPath, nonEmptyFolderPath)
+            );
+            Assertions.assertTrue(Files.notExists(testBedPath.resolve("fold3.tmp")));
+        }
+        finally {
+            clearTestBed();
+        }
+    }
+
+    /**
+     * Test that the WatchService metrics are recorded and exposed through JMX.
+     * @throws IOException Thrown if registering a WatchService or walking through a path  or modifying it fails
+     * @throws InterruptedException Thrown if the current thread is interrupted
+     * @throws JMException Thrown if the metrics cannot be read through JMX
+     */
+    @Test
+    public void testWatchServiceMetrics() throws IOException, InterruptedException, JMException {
+        Assumptions.assumeFalse(
+            OS.getOs() == OS.MAC_OS_X,
+            "Skipping WatchService testing for " +
+            "MAC OS X as there's a known issue in the JDK that takes a lot of time to generate watch service events\n" +
+            " and sometimes doesn't generate them. Since we cannot reliably test WatchService on MAC OS X, we skip \n" +
+            "it for MAC OS X.\nhttps://bugs.openjdk.java.net/browse/JDK-7133447"
+        );
+
+        createTestBed();
+        FileUtility.WatchServiceMetrics initialWatchServiceMetrics = FileUtility.getWatchServiceMetrics();
+        // The test bed and the 8 folders within it
+        int registeredDirectoryCount = 9;
+        try {
+            FileUtility.registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(
+                testBedPath,
+                1,
+                (path, watchEvent) -> logger.debug(watchEvent.kind()),
+                StandardWatchEventKinds.ENTRY_CREATE
+            );
+            Files.createFile(testBedPath.resolve("metrics.txt"));
+            Thread.sleep(fileActionWaitTimeInMs);
+
+            FileUtility.WatchServiceMetrics watchServiceMetrics = FileUtility.getWatchServiceMetrics();
+            Assertions.assertEquals(
+                registeredDirectoryCount,
+                watchServiceMetrics.getRegistrationCount() - initialWatchServiceMetrics.getRegistrationCount()
+            );
+            Assertions.assertTrue(watchServiceMetrics.getRegisteredDirectoryCount() >= registeredDirectoryCount);
+            Assertions.assertTrue(watchServiceMetrics.getWatchServiceCount() >= 1);
+            Assertions.assertTrue(
+                watchServiceMetrics.getDispatchLoopIterationCount() > initialWatchServiceMetrics.getDispatchLoopIterationCount()
+            );
+            Assertions.assertTrue(
+                watchServiceMetrics.getDeliveredEventCounts().getOrDefault(StandardWatchEventKinds.ENTRY_CREATE.name(), 0L)
+                        > initialWatchServiceMetrics.getDeliveredEventCounts().getOrDefault(StandardWatchEventKinds.ENTRY_CREATE.name(), 0L)
+            );
+            Assertions.assertTrue(
+                watchServiceMetrics.getConsumerInvocationCount() > initialWatchServiceMetrics.getConsumerInvocationCount()
+            );
+            Assertions.assertEquals(
+                initialWatchServiceMetrics.getRegistrationFailureCount(),
+                watchServiceMetrics.getRegistrationFailureCount()
+            );
+
+            long registrationCountThroughJmx = (Long) ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(new ObjectName("utilities:type=FileUtility,name=WatchService"), "RegistrationCount");
+            Assertions.assertEquals(watchServiceMetrics.getRegistrationCount(), registrationCountThroughJmx);
+        }
+        finally {
+            FileUtility.deRegisterWatchServiceForDirectory(testBedPath);
+            clearTestBed();
+        }
+        Assertions.assertEquals(
+            registeredDirectoryCount,
+            FileUtility.getWatchServiceMetrics().getDeregistrationCount() - initialWatchServiceMetrics.getDeregistrationCount()
+        );
+    }
+
+    /**
+     * Test that a directory registered from several threads at once is registered only once.
+     * @throws Exception Thrown if registering a WatchService or walking through a path fails or a registering thread
+     *                   fails
+     */
+    @Test
+    public void testConcurrentWatchServiceRegistering() throws Exception {
+        Assumptions.assumeFalse(
+            OS.getOs() == OS.MAC_OS_X,
+            "Skipping WatchService testing for " +
+            "MAC OS X as there's a known issue in the JDK that takes a lot of time to generate watch service events\n" +
+            " and sometimes doesn't generate them. Since we cannot reliably test WatchService on MAC OS X, we skip \n" +
+            "it for MAC OS X.\nhttps://bugs.openjdk.java.net/browse/JDK-7133447"
+        );
+
+        createTestBed();
+        FileUtility.WatchServiceMetrics initialWatchServiceMetrics = FileUtility.getWatchServiceMetrics();
+        // The test bed and the 8 folders within it
+        int registeredDirectoryCount = 9;
+        int registeringThreadCount = 8;
+        ExecutorService registeringExecutorService = Executors.newFixedThreadPool(registeringThreadCount);
+        try {
+            CountDownLatch startLatch = new CountDownLatch(1);
+            List<Future<?>> registrationFutures = new ArrayList<>();
+            for (int i = 0; i < registeringThreadCount; i++) {
+                registrationFutures.add(
+                    registeringExecutorService.submit(
+                        () -> {
+                            startLatch.await();
+                            FileUtility.registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(
+                                testBedPath,
+                                1,
+                                (path, watchEvent) -> logger.debug(watchEvent.kind()),
+                                StandardWatchEventKinds.ENTRY_CREATE
+                            );
+                            return null;
+                        }
+                    )
+                );
+            }
+            startLatch.countDown();
+            for (Future<?> registrationFuture : registrationFutures) {
+                registrationFuture.get(fileActionWaitTimeInMs * 10L, TimeUnit.MILLISECONDS);
+            }
+
+            Assertions.assertEquals(
+                registeredDirectoryCount,
+                FileUtility.getWatchServiceMetrics().getRegistrationCount() - initialWatchServiceMetrics.getRegistrationCount()
+            );
+        }
+        finally {
+            registeringExecutorService.shutdown();
+            FileUtility.deRegisterWatchServiceForDirectory(testBedPath);
+            clearTestBed();
+        }
+        Assertions.assertEquals(
+            registeredDirectoryCount,
+            FileUtility.getWatchServiceMetrics().getDeregistrationCount() - initialWatchServiceMetrics.getDeregistrationCount()
+        );
+    }
+
+    /**
+     * Test that the dispatcher can be stopped while it registers the sub directories being created under a watched
+     * root, and that it isn't restarted by these registrations.
+     * @throws Exception Thrown if registering a WatchService or walking through a path  or modifying it fails or the
+     *                   dispatcher cannot be stopped in time
+     */
+    @Test
+    public void testStopWatchServiceEventDispatcherWhileRegistering() throws Exception {
+        Assumptions.assumeFalse(
+            OS.getOs() == OS.MAC_OS_X,
+            "Skipping WatchService testing for " +
+            "MAC OS X as there's a known issue in the JDK that takes a lot of time to generate watch service events\n" +
+            " and sometimes doesn't generate them. Since we cannot reliably test WatchService on MAC OS X, we skip \n" +
+            "it for MAC OS X.\nhttps://bugs.openjdk.java.net/browse/JDK-7133447"
+        );
+
+        createTestBed();
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            FileUtility.registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(
+                testBedPath,
+                3,
+                (path, watchEvent) -> logger.debug(watchEvent.kind()),
+                StandardWatchEventKinds.ENTRY_CREATE
+            );
+            Assertions.assertTrue(FileUtility.isWatchServiceEventDispatcherRunning());
+
+            // Keep creating sub directories until the dispatcher is stopped, so that it's stopped while registering them
+            CountDownLatch creationLatch = new CountDownLatch(10);
+            AtomicBoolean isDispatcherStopped = new AtomicBoolean();
+            Future<?> creationFuture = executorService.submit(
+                () -> {
+                    for (int i = 0; i < 1000 && !isDispatcherStopped.get(); i++) {
+                        Files.createDirectories(testBedPath.resolve("stop" + i).resolve("stop" + i + "_child"));
+                        creationLatch.countDown();
+                    }
+                    return null;
+                }
+            );
+            creationLatch.await();
+            for (int i = 0; i < 20; i++) {
+                executorService.submit(FileUtility::stopWatchServiceEventDispatcher)
+                    .get(fileActionWaitTimeInMs * 10L, TimeUnit.MILLISECONDS);
+                if(i < 19) {
+                    FileUtility.startWatchServiceEventDispatcher();
+                    Thread.sleep(10);
+                }
+            }
+            isDispatcherStopped.set(true);
+            creationFuture.get(fileActionWaitTimeInMs * 10L, TimeUnit.MILLISECONDS);
+            Thread.sleep(fileActionWaitTimeInMs);
+
+            // The registration of the sub directories created meanwhile must not start the dispatcher again
+            Assertions.assertFalse(FileUtility.isWatchServiceEventDispatcherRunning());
+        }
+        finally {
+            executorService.shutdown();
+            FileUtility.startWatchServiceEventDispatcher();
+            FileUtility.deRegisterWatchServiceForDirectory(testBedPath);
+            clearTestBed();
+        }
+    }
+
+    /**
+     * Test that metrics are recorded per watched root.
+     * @throws IOException Thrown if registering a WatchService or walking through a path  or modifying it fails
+     * @throws InterruptedException Thrown if the current thread is interrupted
+     */
+    @Test
+    public void testWatchedRootMetrics() throws IOException, InterruptedException {
+        Assumptions.assumeFalse(
+            OS.getOs() == OS.MAC_OS_X,
+            "Skipping WatchService testing for " +
+            "MAC OS X as there's a known issue in the JDK that takes a lot of time to generate watch service events\n" +
+            " and sometimes doesn't generate them. Since we cannot reliably test WatchService on MAC OS X, we skip \n" +
+            "it for MAC OS X.\nhttps://bugs.openjdk.java.net/browse/JDK-7133447"
+        );
+
+        createTestBed();
+        try {
+            FileUtility.registerWatchServiceIfPathIsADirectoryAndIsNotAlreadyRegistered(
+                testBedPath,
+                2,
+                (path, watchEvent) -> logger.debug(watchEvent.kind()),
+                StandardWatchEventKinds.ENTRY_CREATE
+            );
+
+            // Events of the registered sub directories are attributed to the watched root
+            Files.createFile(testBedPath.resolve("metrics.txt"));
+            Files.createFile(testBedPath.resolve("folder1").resolve("metrics.txt"));
+            Files.createFile(testBedPath.resolve("fold3").resolve("metrics.txt"));
+            Thread.sleep(fileActionWaitTimeInMs);
+
+            FileUtility.WatchedRootMetrics watchedRootMetrics = FileUtility.getWatchedRootMetrics().get(testBedPath);
+            Assertions.assertNotNull(watchedRootMetrics);
+            Assertions.assertNull(FileUtility.getWatchedRootMetrics().get(testBedPath.resolve("folder1")));
+            Assertions.assertEquals(testBedPath, watchedRootMetrics.getRootPath());
+            Assertions.assertEquals(0, watchedRootMetrics.getQueueDepth());
+            Assertions.assertEquals(0, watchedRootMetrics.getDroppedEventsCount());
+            Assertions.assertTrue(watchedRootMetrics.getEventsPerSecond() > 0);
+            Assertions.assertTrue(watchedRootMetrics.getConsumerLatencyPercentile(50).compareTo(Duration.ZERO) > 0);
+            Assertions.assertTrue(
+                watchedRootMetrics.getConsumerLatencyPercentile(50)
+                        .compareTo(watchedRootMetrics.getConsumerLatencyPercentile(100)) <= 0
+            );
+            Assertions.assertThrows(IllegalArgumentException.class, () -> watchedRootMetrics.getConsumerLatencyPercentile(0));
+        }
+        finally {
+            FileUtility.deRegisterWatchServiceForDirectory(testBedPath);
+            clearTestBed();
+        }
+        Assertions.assertNull(FileUtility.getWatchedRootMetrics().get(testBedPath));
+    }
+
+    /**
+     * Test enabling asynchronous consumer execution with invalid inputs.
+     */
+    @Test
+    public void testAsynchronousWatchEventConsumerExecutionWithInvalidInputs() {
+        Assertions.assertThrows(
+            NullPointerException.class,
+            () -> FileUtility.enableAsynchronousWatchEventConsumerExecution(
+                null,
+                16,
+                FileUtility.WatchEventBackpressurePolicy.BLOCK
+            )
+        );
+        Assertions.assertThrows(
+            NullPointerException.class,
+            () -> FileUtility.enableAsynchronousWatchEventConsumerExecution(Runnable::run, 16, null)
+        );
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> FileUtility.enableAsynchronousWatchEventConsumerExecution(
+                Runnable::run,
+                0,
+                FileUtility.WatchEventBackpressurePolicy.BLOCK
+            )
+        );
+    }
+
     /**
      * Get the expected logged events from the provided path, maxDepth and the types of events
      * @param path Registered path to provide the events for
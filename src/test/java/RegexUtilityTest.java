@@ -8,11 +8,21 @@ import org.junit.jupiter.params.provider.CsvSource;
 import utilities.I18NUtility;
 import utilities.RegexUtility;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 class RegexUtilityTest {
     private final Logger logger = LogManager.getLogger(RegexUtilityTest.class);
@@ -138,8 +148,182 @@ class RegexUtilityTest {
         for (String dataValueToProbe : dataValuesToProbe) {
             logger.debug(Arrays.toString(RegexUtility.probeRegexField(dataValueToProbe).toArray()));
         }
+        Assertions.assertEquals(
+                Arrays.asList(
+                        RegexUtility.RegexField.DOMAIN_NAME,
+                        RegexUtility.RegexField.IPV4_ADDRESS,
+                        RegexUtility.RegexField.IPV4_SUBNET_MASK
+                ),
+                RegexUtility.probeRegexField("255.255.255.0")
+        );
+        Assertions.assertEquals(
+                Arrays.asList(
+                        RegexUtility.RegexField.DECIMAL,
+                        RegexUtility.RegexField.DOMAIN_NAME
+                ),
+                RegexUtility.probeRegexField("3.14")
+        );
+        Assertions.assertEquals(
+                Arrays.asList(
+                        RegexUtility.RegexField.DOMAIN_NAME,
+                        RegexUtility.RegexField.INTEGER,
+                        RegexUtility.RegexField.NATURAL_NUMBER,
+                        RegexUtility.RegexField.WHOLE_NUMBER
+                ),
+                RegexUtility.probeRegexField("42")
+        );
+        Assertions.assertEquals(List.of(), RegexUtility.probeRegexField("not a field!"));
+    }
+
+    @Test
+    void testRegisterRegexField() throws RegexUtility.InvalidRegexException {
+        // A backreference can't be combined with the other fields, it's matched on its own
+        RegexUtility.registerRegexField("REPEATED_WORD", "(\\w+) \\1");
+        RegexUtility.registerRegexField("HEX_COLOR", "#(?i)[0-9a-f]{6}");
+        // A comment would swallow the rest of the combined pattern and named groups would clash, they're matched on
+        // their own as well
+        RegexUtility.registerRegexField("LOWER_HEX_COLOR", "(?x) \\# [0-9a-f]{6} # Eg: #00ffaa");
+        RegexUtility.registerRegexField("YEAR", "(?<year>\\d{4})");
+        RegexUtility.registerRegexField("YEAR_MONTH", "(?<year>\\d{4})-(?<month>\\d{2})");
+        try {
+            Map<String, String> registeredRegexFields = RegexUtility.getRegisteredRegexFields();
+            Assertions.assertEquals("(\\w+) \\1", registeredRegexFields.get("REPEATED_WORD"));
+            Assertions.assertFalse(registeredRegexFields.containsKey(RegexUtility.RegexField.DATE.name()));
+
+            List<String> dataValuesToProbe = Arrays.asList(
+                    "ab ab", "ab ac", "#00FFaa", "#00ffaa", "#00FFag", "12", "-12", "1999", "1999-12", "255.255.0.0",
+                    "example.com", "1999-12-31 23:59:59", ""
+            );
+            // The single scan matches each value exactly like matching every field on its own
+            for (String dataValueToProbe : dataValuesToProbe) {
+                List<String> expectedFieldNames = new ArrayList<>();
+                registeredRegexFields.forEach((fieldName, regex) -> {
+                    if(Pattern.compile(regex).matcher(dataValueToProbe).matches()) {
+                        expectedFieldNames.add(fieldName);
+                    }
+                });
+                Assertions.assertEquals(expectedFieldNames, RegexUtility.probeRegexFieldNames(dataValueToProbe), dataValueToProbe);
+            }
+            Assertions.assertEquals(List.of("REPEATED_WORD"), RegexUtility.probeRegexFieldNames("ab ab"));
+            Assertions.assertEquals(List.of("HEX_COLOR"), RegexUtility.probeRegexFieldNames("#00FFaa"));
+            Assertions.assertEquals(List.of("HEX_COLOR", "LOWER_HEX_COLOR"), RegexUtility.probeRegexFieldNames("#00ffaa"));
+            Assertions.assertEquals(List.of(), RegexUtility.probeRegexField("#00FFaa"));
+
+            Assertions.assertThrows(
+                    RegexUtility.InvalidRegexException.class,
+                    () -> RegexUtility.registerRegexField("INVALID", "(\\d")
+            );
+            Assertions.assertThrows(
+                    IllegalArgumentException.class,
+                    () -> RegexUtility.registerRegexField("", "\\d")
+            );
+        } finally {
+            Assertions.assertTrue(RegexUtility.unregisterRegexField("REPEATED_WORD"));
+            Assertions.assertTrue(RegexUtility.unregisterRegexField("HEX_COLOR"));
+            Assertions.assertTrue(RegexUtility.unregisterRegexField("LOWER_HEX_COLOR"));
+            Assertions.assertTrue(RegexUtility.unregisterRegexField("YEAR"));
+            Assertions.assertTrue(RegexUtility.unregisterRegexField("YEAR_MONTH"));
+        }
+        Assertions.assertFalse(RegexUtility.unregisterRegexField("HEX_COLOR"));
+        Assertions.assertEquals(List.of(), RegexUtility.probeRegexFieldNames("#00FFaa"));
+    }
+
+
+    @ParameterizedTest
+    @CsvSource({"1, 1", "4, 7", "8, 4096"})
+    void testClassifyRegexFields(int parallelism, int chunkSize) {
+        List<String> values = new ArrayList<>();
+        IntStream.range(0, 1000)
+                .forEach(i -> values.add(i % 10 == 0 ? "192.168.0." + (i % 256) : Integer.toString(i + 1)));
+        values.add(null);
+        RegexUtility.BatchClassificationOptions options = new RegexUtility.BatchClassificationOptions()
+                .setParallelism(parallelism)
+                .setChunkSize(chunkSize);
+
+        RegexUtility.BatchClassificationResult result = RegexUtility.classifyRegexFields(values, options);
+        Assertions.assertFalse(result.isStoppedEarly());
+        Assertions.assertEquals(values.size(), result.getValueCount());
+        Assertions.assertEquals(1, result.getUnmatchedCount());
+        Assertions.assertEquals(values.size(), result.getMatchingFieldNames().size());
+        for (int i = 0; i < values.size() - 1; i++) {
+            Assertions.assertEquals(RegexUtility.probeRegexFieldNames(values.get(i)), result.getMatchingFieldNames().get(i));
+        }
+        Assertions.assertEquals(List.of(), result.getMatchingFieldNames().get(values.size() - 1));
+        Assertions.assertEquals(100, result.getFieldHistogram().get(RegexUtility.RegexField.IPV4_ADDRESS.name()));
+        Assertions.assertEquals(900, result.getFieldHistogram().get(RegexUtility.RegexField.NATURAL_NUMBER.name()));
+        Assertions.assertEquals(1000, result.getFieldHistogram().get(RegexUtility.RegexField.DOMAIN_NAME.name()));
+        Assertions.assertEquals(RegexUtility.RegexField.DOMAIN_NAME.name(), result.getMostFrequentField());
+        Assertions.assertEquals(1, result.getFieldCombinationHistogram().get(List.of()));
+        Assertions.assertEquals(
+                values.size(),
+                result.getFieldCombinationHistogram().values().stream().mapToLong(Long::longValue).sum()
+        );
+
+        // Every non null value matches DOMAIN_NAME, which settles the field once the minimum number of values is classified
+        options.setKeepValueMatches(false)
+                .setEarlyStop(0.85, 100);
+        result = RegexUtility.classifyRegexFields(values.stream(), options);
+        Assertions.assertNull(result.getMatchingFieldNames());
+        if(chunkSize < values.size()) {
+            Assertions.assertTrue(result.isStoppedEarly());
+            Assertions.assertTrue(result.getValueCount() >= 100 && result.getValueCount() < values.size());
+            Assertions.assertEquals(0, result.getValueCount() % chunkSize);
+        }
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> options.setEarlyStop(0, 100));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> options.setChunkSize(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> options.setParallelism(0));
     }
 
+    @ParameterizedTest
+    @CsvSource(
+        {
+            "(\\d+)-(\\d+)-(\\d+), 0",
+            "(?<=user=)\\w+, 0",
+            "^id=(\\d+), 8",
+            "\\b\\w{3}\\b, 0",
+            "\\d*, 0",
+            "é(😀)?, 0"
+        }
+    )
+    void testStreamMatches(String patternString, int patternOptions) throws RegexUtility.InvalidRegexException, IOException {
+        StringBuilder inputBuilder = new StringBuilder();
+        IntStream.range(0, 500)
+                .forEach(i -> inputBuilder.append(String.format("id=%d user=u%d é%s %d-%02d-%02d%n", i, i * 7, i % 3 == 0 ? "😀" : "", 2000 + i, i % 12 + 1, i % 28 + 1)));
+        String input = inputBuilder.toString();
+        List<List<String>> expectedMatches = RegexUtility.getAllMatches(patternString, patternOptions, input);
+        Assertions.assertFalse(expectedMatches.isEmpty());
+
+        for (int windowSize : new int[] {64, 1000, 1024 * 1024}) {
+            List<RegexUtility.StreamMatch> actualMatches;
+            try (Stream<RegexUtility.StreamMatch> matches = RegexUtility.streamMatches(patternString, patternOptions, new StringReader(input), windowSize)) {
+                actualMatches = matches.collect(Collectors.toList());
+            }
+            Assertions.assertEquals(
+                    expectedMatches,
+                    actualMatches.stream().map(RegexUtility.StreamMatch::getGroups).collect(Collectors.toList()),
+                    String.valueOf(windowSize)
+            );
+            actualMatches.forEach(match -> Assertions.assertEquals(
+                    match.getGroups().get(0),
+                    input.substring((int) match.getStart(), (int) match.getEnd())
+            ));
+        }
+
+        byte[] inputBytes = input.getBytes(StandardCharsets.UTF_8);
+        try (Stream<RegexUtility.StreamMatch> matches = RegexUtility.streamMatches(patternString, patternOptions, new ByteArrayInputStream(inputBytes), StandardCharsets.UTF_8)) {
+            Assertions.assertEquals(expectedMatches, matches.map(RegexUtility.StreamMatch::getGroups).collect(Collectors.toList()));
+        }
+        Path inputPath = Files.createTempFile("RegexUtilityTest", ".log");
+        try {
+            Files.write(inputPath, inputBytes);
+            try (Stream<RegexUtility.StreamMatch> matches = RegexUtility.streamMatches(patternString, patternOptions, FileChannel.open(inputPath), StandardCharsets.UTF_8)) {
+                Assertions.assertEquals(expectedMatches, matches.map(RegexUtility.StreamMatch::getGroups).collect(Collectors.toList()));
+            }
+        } finally {
+            Files.delete(inputPath);
+        }
+    }
 
     /**
      * Ensures that all the desired comparison's output for test numbers b/w -2 * number and 2 * number yield a result
@@ -245,4 +429,76 @@ class RegexUtilityTest {
         );
     }
 
+    @Test
+    void testVisitMatches() throws RegexUtility.InvalidRegexException {
+        StringBuilder input = new StringBuilder("a=1, bb=22, ccc=333, dddd=");
+        List<int[]> groupOffsets = new ArrayList<>();
+        int visitedCount = RegexUtility.visitMatches("(\\w+)=(\\d+)?", 0, input, (matchedInput, matchResult) -> {
+            Assertions.assertSame(input, matchedInput);
+            groupOffsets.add(new int[] {matchResult.start(1), matchResult.end(1), matchResult.start(2), matchResult.end(2)});
+            return true;
+        });
+        Assertions.assertEquals(4, visitedCount);
+        Assertions.assertArrayEquals(new int[] {0, 1, 2, 3}, groupOffsets.get(0));
+        Assertions.assertArrayEquals(new int[] {5, 7, 8, 10}, groupOffsets.get(1));
+        Assertions.assertArrayEquals(new int[] {12, 15, 16, 19}, groupOffsets.get(2));
+        // Groups that didn't participate in the match have no offsets
+        Assertions.assertArrayEquals(new int[] {21, 25, -1, -1}, groupOffsets.get(3));
+
+        // The visitor stops the visit
+        Assertions.assertEquals(
+                2,
+                RegexUtility.visitMatches("\\d+", 0, input, (matchedInput, matchResult) -> matchResult.start() < 5)
+        );
+        Assertions.assertThrows(
+                RegexUtility.InvalidRegexException.class,
+                () -> RegexUtility.visitMatches("(\\d+", 0, input, (matchedInput, matchResult) -> true)
+        );
+        Assertions.assertEquals(
+                Arrays.asList(Arrays.asList("dddd=", "dddd", null)),
+                RegexUtility.getFirstNMatches("(\\w+)=(\\d+)?", 0, -1, input.toString()).subList(3, 4)
+        );
+    }
+
+    @Test
+    void testPatternCache() {
+        String patternString = "(\\d+)-(\\w+)";
+        RegexUtility.clearPatternCache();
+        RegexUtility.PatternCacheStats initialStats = RegexUtility.getPatternCacheStats();
+
+        Pattern pattern = RegexUtility.getPattern(patternString, 0);
+        Assertions.assertSame(pattern, RegexUtility.getPattern(patternString, 0));
+        Assertions.assertNotSame(pattern, RegexUtility.getPattern(patternString, Pattern.CASE_INSENSITIVE));
+        Assertions.assertTrue(RegexUtility.matches(patternString, 0, "12-ab"));
+        RegexUtility.PatternCacheStats stats = RegexUtility.getPatternCacheStats();
+        Assertions.assertEquals(2, stats.getMissCount() - initialStats.getMissCount());
+        Assertions.assertEquals(2, stats.getHitCount() - initialStats.getHitCount());
+        Assertions.assertEquals(2, stats.getSize());
+
+        // Invalid patterns aren't cached
+        Assertions.assertThrows(
+                RegexUtility.InvalidRegexException.class,
+                () -> RegexUtility.getFirstNMatches("(\\d+", 0, 1, "12")
+        );
+        Assertions.assertFalse(RegexUtility.isValidRegex("(\\d+"));
+        Assertions.assertEquals(2, RegexUtility.getPatternCacheStats().getSize());
+
+        // The least recently used patterns are evicted once the capacity is exceeded. Recency is tracked by misses
+        // rather than by time, so the evicted patterns don't depend on the resolution of the clock
+        int capacity = stats.getCapacity();
+        IntStream.range(0, capacity)
+                .forEach(i -> {
+                    RegexUtility.getPattern("\\d{" + i + "}", 0);
+                    RegexUtility.getPattern(patternString, 0);
+                });
+        stats = RegexUtility.getPatternCacheStats();
+        Assertions.assertEquals(capacity, stats.getSize());
+        Assertions.assertEquals(2, stats.getEvictionCount() - initialStats.getEvictionCount());
+        long missCount = stats.getMissCount();
+        RegexUtility.getPattern(patternString, 0);
+        Assertions.assertEquals(missCount, RegexUtility.getPatternCacheStats().getMissCount());
+        RegexUtility.getPattern(patternString, Pattern.CASE_INSENSITIVE);
+        Assertions.assertEquals(missCount + 1, RegexUtility.getPatternCacheStats().getMissCount());
+    }
+
 }
@@ -0,0 +1,74 @@
+package utilities;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+class AttributeTreeWalkerTest {
+
+    private final Path testBedPath;
+
+    public AttributeTreeWalkerTest() {
+        testBedPath = Paths.get(PropertyUtility.getProperty("common.dir.temp"))
+            .resolve("ATWT")
+            .toAbsolutePath();
+    }
+
+    /**
+     * Test that the POSIX attributes of the nodes are read by the walk itself when they're needed, so that the
+     * operations don't have to read them again.
+     * @param isParallel true to walk the tree on a fork join pool, false to walk it with Files.walkFileTree()
+     * @throws IOException Thrown if the tree cannot be created
+     */
+    @ParameterizedTest
+    @CsvSource(
+        {
+            "true",
+            "false"
+        }
+    )
+    public void testPosixAttributesAreReadOnce(boolean isParallel) throws IOException {
+        Files.createDirectories(testBedPath);
+        Assumptions.assumeTrue(
+            Files.getFileStore(testBedPath).supportsFileAttributeView(PosixFileAttributeView.class),
+            "Skipping POSIX attributes testing as the file store doesn't support them"
+        );
+
+        try {
+            Files.createFile(Files.createDirectories(testBedPath.resolve("folder").resolve("child")).resolve("file.txt"));
+            Map<Path, BasicFileAttributes> pathToAttributesMap = new ConcurrentHashMap<>();
+            Map<Path, BasicFileAttributes> pathToPosixAttributesMap = new ConcurrentHashMap<>();
+            AttributeTreeWalker treeWalker = new AttributeTreeWalker(
+                (path, attributes) -> {
+                    pathToAttributesMap.put(path, attributes);
+                    pathToPosixAttributesMap.put(path, AttributeTreeWalker.getPosixFileAttributes(path, attributes));
+                    return true;
+                },
+                Integer.MAX_VALUE,
+                true
+            );
+            Assertions.assertTrue(isParallel ? treeWalker.walk(testBedPath, ForkJoinPool.commonPool()) : treeWalker.walk(testBedPath));
+
+            // The test bed, the folder, its child and the file
+            Assertions.assertEquals(4, pathToAttributesMap.size());
+            // Reading the POSIX attributes again would return different instances
+            pathToAttributesMap.forEach(
+                (path, attributes) -> Assertions.assertSame(attributes, pathToPosixAttributesMap.get(path), path.toString())
+            );
+        }
+        finally {
+            FileUtility.deleteRecursively(testBedPath);
+        }
+    }
+}